@@ -1,4 +1,5 @@
 // Represents an action card in the deck (Ace, Jack, Queen, King).
+// What a card does when played is set by the game's RuleSet, not by its class.
 
 /**
  * Constructs a new action card.
@@ -10,6 +11,10 @@ public class ActionCard extends Card {
     super(suit, rank);
   }
 
+  public ActionCard(int suit, int rank) {
+    super(suit, rank);
+  }
+
   // Override
   /**
    * Gets the point value of the action card.
@@ -27,11 +32,11 @@ public class ActionCard extends Card {
   // Override
   /**
    * Checks if action card can be played.
-   * @param currentSuit Current suit in play
+   * @param currentSuit Current suit index in play
    * @param currentRank Current rank in play
    * @return true if card matches current suit or rank
    */
-  public boolean CanPlay(String currentSuit, int currentRank) { // Returns true if the card matches the current suit or rank
-    return GetSuit().equals(currentSuit) || GetRank() == currentRank;
+  public boolean CanPlay(int currentSuit, int currentRank) { // Returns true if the card matches the current suit or rank
+    return GetSuitIndex() == currentSuit || GetRank() == currentRank;
   }
 }
\ No newline at end of file
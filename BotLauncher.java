@@ -0,0 +1,106 @@
+import java.io.PrintStream;
+
+/**
+ * Fast-starting entry point for short headless bot runs.
+ * A scheduler that launches thousands of small runs pays JVM startup on
+ * every one of them, so this launcher loads as little as it can: no
+ * Displayer, Scanner, Formatter or JMX, and output is built with
+ * StringBuilder rather than printf. Start it through bots.sh, which adds
+ * the Application Class Data Sharing archive made by the cds Maven profile
+ * (see README), so the classes it does load come pre-parsed from the
+ * archive.
+ *
+ * The first line printed is the first move of the first game, written as
+ * soon as it is made, so a caller can time JVM start to first move
+ * (benchmarks/StartupBenchmark.java does). A summary line follows when all
+ * games are done.
+ */
+public class BotLauncher {
+  private static final String RANK_CODES = "A23456789TJQK";
+  private static final String SUIT_LETTERS = "SHCD"; // In suit index order
+
+  /**
+   * Strategy for one seat that prints the first card played by anyone at
+   * the table, then just passes decisions on to the seat's own strategy.
+   */
+  private static class FirstMoveReporter implements PlayerStrategy {
+    private static boolean reported; // Only one table runs per launch
+    private PlayerStrategy strategy;
+    private PrintStream out;
+
+    FirstMoveReporter(PlayerStrategy strategy, PrintStream out) {
+      this.strategy = strategy;
+      this.out = out;
+    }
+
+    public int SelectCard(GameSystem game, Player player) {
+      int index = strategy.SelectCard(game, player);
+      if (!reported && game.IsValidPlay(player, index)) {
+        reported = true;
+        StringBuilder line = new StringBuilder("first move: player ").append(game.GetCurrentPlayerIndex() + 1).append(" plays ");
+        out.println(AppendCard(line, player.GetCard(index).GetOrdinal()));
+        out.flush();
+      }
+      return index;
+    }
+
+    public int SelectSuit(GameSystem game, Player player) {
+      return strategy.SelectSuit(game, player);
+    }
+  }
+
+  // ========== HELPER METHODS ==========//
+  /**
+   * Appends a two-letter card code such as "TH" for the 10 of Hearts.
+   * @param line    The line to append to
+   * @param ordinal The card ordinal
+   * @return The line
+   */
+  private static StringBuilder AppendCard(StringBuilder line, int ordinal) {
+    return line.append(RANK_CODES.charAt(ordinal % Cards.RANK_COUNT)).append(SUIT_LETTERS.charAt(ordinal / Cards.RANK_COUNT));
+  }
+
+  /**
+   * Creates the strategy for a seat: Greedy in even seats, Random in odd ones.
+   * @param seat The seat
+   * @param seed Run seed
+   * @return The seat's strategy
+   */
+  private static PlayerStrategy StrategyFor(int seat, long seed) {
+    return seat % 2 == 0 ? new GreedyStrategy() : new RandomStrategy(TournamentRunner.MixSeed(seed, seat));
+  }
+
+  // ========== PUBLIC METHODS ==========//
+
+  /**
+   * Plays a batch of bot games and prints the first move and a summary.
+   * Usage: java BotLauncher [games] [seed] [players] [decks]
+   * @param args Optional number of games, seed, players and decks
+   */
+  public static void main(String[] args) {
+    long games = args.length > 0 ? Long.parseLong(args[0]) : 1;
+    long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+    int playerCount = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+    int deckCount = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+
+    GameSystem game = new GameSystem(seed, playerCount, deckCount);
+    game.SetMetrics(null); // Keeps JFR and the metric counters out of the run
+    PlayerStrategy[] strategies = new PlayerStrategy[playerCount];
+    PrintStream out = System.out;
+    for (int i = 0; i < playerCount; i++) {
+      strategies[i] = new FirstMoveReporter(StrategyFor(i, seed), out);
+    }
+    GameRunner runner = new GameRunner(game, strategies);
+
+    for (long i = 0; i < games; i++) {
+      runner.PlayGame(i == 0 ? seed : TournamentRunner.MixSeed(seed, i));
+    }
+
+    StringBuilder line = new StringBuilder("games ");
+    line.append(runner.GetGamesPlayed()).append(" stalemates ").append(runner.GetStalemates()).append(" wins");
+    for (int i = 0; i < playerCount; i++) {
+      line.append(' ').append(runner.GetWins(i));
+    }
+    out.println(line);
+  }
+}
@@ -1,18 +1,74 @@
-// Abstract class representing a card in the deck. 
+// Abstract class representing a card in the deck.
 // Provides common functionality for all card types.
+// Cards are immutable; every game shares the same 52 instances from Cards.
 
 public abstract class Card {
-  private String suit;
-  private int rank;
+  // Suit indexes, in the order the deck is built
+  public static final int SPADES = 0;
+  public static final int HEARTS = 1;
+  public static final int CLUBS = 2;
+  public static final int DIAMONDS = 3;
+  public static final int SUIT_COUNT = 4;
+
+  private static final String[] SUIT_NAMES = { "Spades", "Hearts", "Clubs", "Diamonds" };
+  private static final String[] RANK_NAMES = { "Ace", "2", "3", "4", "5", "6", "7", "8", "9", "10", "Jack", "Queen", "King" };
+
+  private final String suit;
+  private final int suitIndex;
+  private final int rank;
+  private final int ordinal;
+  private final String name;
 
   /**
    * Constructs a new card with the given suit and rank.
-   * @param suit The suit of the card
+   * @param suit The suit of the card (eg: "Spades")
    * @param rank The rank of the card
    */
   public Card(String suit, int rank) {
-    this.suit = suit;
+    this(SuitIndex(suit), rank);
+  }
+
+  /**
+   * Constructs a new card with the given suit index and rank.
+   * @param suitIndex The suit of the card (SPADES, HEARTS, CLUBS or DIAMONDS)
+   * @param rank      The rank of the card
+   */
+  public Card(int suitIndex, int rank) {
+    this.suitIndex = suitIndex;
+    this.suit = SUIT_NAMES[suitIndex];
     this.rank = rank;
+    this.ordinal = suitIndex * 13 + rank - 1;
+    if (rank == 8) {
+      this.name = RankToString() + " of " + suit + " (Wild Card)";
+    } else {
+      this.name = RankToString() + " of " + suit;
+    }
+  }
+
+  /**
+   * Converts a suit name to its suit index.
+   * @param suit The suit name (eg: "Hearts")
+   * @return The suit index, or -1 if the name is not a suit
+   */
+  public static int SuitIndex(String suit) {
+    for (int i = 0; i < SUIT_NAMES.length; i++) {
+      if (SUIT_NAMES[i].equals(suit)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Converts a suit index to its suit name.
+   * @param suitIndex The suit index
+   * @return The suit name, or an empty string if the index is not a suit
+   */
+  public static String SuitName(int suitIndex) {
+    if (suitIndex < 0 || suitIndex >= SUIT_NAMES.length) {
+      return "";
+    }
+    return SUIT_NAMES[suitIndex];
   }
 
   /**
@@ -23,6 +79,14 @@ public abstract class Card {
     return suit;
   }
 
+  /**
+   * Gets the suit index of the card.
+   * @return The suit index (SPADES, HEARTS, CLUBS or DIAMONDS)
+   */
+  public int GetSuitIndex() {
+    return suitIndex;
+  }
+
   /**
    * Gets the rank of the card.
    * @return The rank of the card
@@ -31,13 +95,20 @@ public abstract class Card {
     return rank;
   }
 
+  /**
+   * Gets the position of the card in a sorted deck.
+   * @return The card ordinal from 0 to 51 (suit index * 13 + rank - 1)
+   */
+  public int GetOrdinal() {
+    return ordinal;
+  }
+
   /**
    * Converts the rank of the card to a string representation.
    * @return The string representation of the rank
    */
   public String RankToString() {
-    String[] name = { "Ace", "2", "3", "4", "5", "6", "7", "8", "9", "10", "Jack", "Queen", "King" };
-    return name[rank - 1]; // subtract 1 to get correct index
+    return RANK_NAMES[rank - 1]; // subtract 1 to get correct index
   }
 
   /**
@@ -45,14 +116,20 @@ public abstract class Card {
    * @return The string representation of the card (eg: "Jack of Spades")
    */
   public String ToString() {
-    if (RankToString().equals("8")) {
-      return RankToString() + " of " + suit + " (Wild Card)";
-    } else {
-      return RankToString() + " of " + suit;
-    }
+    return name;
+  }
+
+  /**
+   * Checks if the card can be played on the given suit name and rank.
+   * @param currentSuit Current suit in play (eg: "Hearts")
+   * @param currentRank Current rank in play
+   * @return true if the card can be played
+   */
+  public boolean CanPlay(String currentSuit, int currentRank) {
+    return CanPlay(SuitIndex(currentSuit), currentRank);
   }
 
   // abstract methods to be implemented by subclasses
   public abstract int GetPoints();
-  public abstract boolean CanPlay(String currentsuit, int currentRank);
-}
\ No newline at end of file
+  public abstract boolean CanPlay(int currentSuit, int currentRank);
+}
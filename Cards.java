@@ -0,0 +1,189 @@
+/**
+ * Shared, immutable cards for every game.
+ * Each card is identified by an ordinal from 0 to 51 (suit index * 13 + rank - 1).
+ * Points, names and playability are precomputed per ordinal so the engine
+ * never allocates cards or compares suit strings while a game is running.
+ * A set of cards is a 52-bit mask with bit n set for the card with ordinal n.
+ */
+public final class Cards {
+  public static final int DECK_SIZE = 52;
+  public static final int RANK_COUNT = 13;
+
+  private static final Card[] CARDS = new Card[DECK_SIZE];
+  private static final int[] POINTS = new int[DECK_SIZE];
+  private static final String[] NAMES = new String[DECK_SIZE];
+  private static final boolean[] WILD = new boolean[DECK_SIZE];
+  private static final long[] SUIT_MASKS = new long[Card.SUIT_COUNT];
+  private static final long[] RANK_MASKS = new long[RANK_COUNT + 1]; // Indexed by rank (1-13)
+  private static final long WILD_MASK;
+  // Cards playable on each top suit and rank, indexed by top suit * 13 + top rank - 1
+  private static final long[] PLAYABLE_MASKS = new long[DECK_SIZE];
+  // Cards grouped by point value, so hand points are a popcount per group
+  private static final long[] POINT_MASKS;
+  private static final int[] POINT_VALUES;
+
+  static {
+    for (int suit = 0; suit < Card.SUIT_COUNT; suit++) {
+      for (int rank = 1; rank <= RANK_COUNT; rank++) {
+        Card card;
+        if (rank == 8) {
+          card = new WildCard(suit, rank);
+        } else if (rank >= 2 && rank <= 10) {
+          card = new NormalCard(suit, rank);
+        } else {
+          card = new ActionCard(suit, rank);
+        }
+        int ordinal = card.GetOrdinal();
+        CARDS[ordinal] = card;
+        POINTS[ordinal] = card.GetPoints();
+        NAMES[ordinal] = card.ToString();
+        WILD[ordinal] = card instanceof WildCard;
+        SUIT_MASKS[suit] |= 1L << ordinal;
+        RANK_MASKS[rank] |= 1L << ordinal;
+      }
+    }
+
+    long wild = 0;
+    for (int ordinal = 0; ordinal < DECK_SIZE; ordinal++) {
+      if (WILD[ordinal]) {
+        wild |= 1L << ordinal;
+      }
+    }
+    WILD_MASK = wild;
+
+    for (int top = 0; top < DECK_SIZE; top++) {
+      for (int ordinal = 0; ordinal < DECK_SIZE; ordinal++) {
+        if (CARDS[ordinal].CanPlay(top / RANK_COUNT, top % RANK_COUNT + 1)) {
+          PLAYABLE_MASKS[top] |= 1L << ordinal;
+        }
+      }
+    }
+
+    long[] masks = new long[DECK_SIZE];
+    int[] values = new int[DECK_SIZE];
+    int groups = 0;
+    for (int ordinal = 0; ordinal < DECK_SIZE; ordinal++) {
+      int group = 0;
+      while (group < groups && values[group] != POINTS[ordinal]) {
+        group++;
+      }
+      if (group == groups) { // First card with this point value
+        values[groups++] = POINTS[ordinal];
+      }
+      masks[group] |= 1L << ordinal;
+    }
+    POINT_MASKS = new long[groups];
+    POINT_VALUES = new int[groups];
+    System.arraycopy(masks, 0, POINT_MASKS, 0, groups);
+    System.arraycopy(values, 0, POINT_VALUES, 0, groups);
+  }
+
+  private Cards() {
+  }
+
+  /**
+   * Returns the shared card with the given ordinal.
+   * @param ordinal The card ordinal (0-51)
+   * @return The card
+   */
+  public static Card Get(int ordinal) {
+    return CARDS[ordinal];
+  }
+
+  /**
+   * Returns the shared card with the given suit and rank.
+   * @param suit The suit index
+   * @param rank The rank (1-13)
+   * @return The card
+   */
+  public static Card Get(int suit, int rank) {
+    return CARDS[suit * RANK_COUNT + rank - 1];
+  }
+
+  /**
+   * Returns the point value of a card.
+   * @param ordinal The card ordinal
+   * @return The card's points
+   */
+  public static int Points(int ordinal) {
+    return POINTS[ordinal];
+  }
+
+  /**
+   * Returns the display name of a card.
+   * @param ordinal The card ordinal
+   * @return The card name (eg: "Jack of Spades")
+   */
+  public static String Name(int ordinal) {
+    return NAMES[ordinal];
+  }
+
+  /**
+   * Checks if a card is a wild card.
+   * @param ordinal The card ordinal
+   * @return true if the card is an 8
+   */
+  public static boolean IsWild(int ordinal) {
+    return WILD[ordinal];
+  }
+
+  /**
+   * Checks if a card can be played on the current suit and rank.
+   * @param ordinal     The card ordinal
+   * @param currentSuit Current suit index in play
+   * @param currentRank Current rank in play
+   * @return true if the card can be played
+   */
+  public static boolean CanPlay(int ordinal, int currentSuit, int currentRank) {
+    return (PlayableMask(currentSuit, currentRank) & (1L << ordinal)) != 0;
+  }
+
+  /**
+   * Returns the set of cards that can be played on the current suit and rank.
+   * @param currentSuit Current suit index in play
+   * @param currentRank Current rank in play
+   * @return Mask of playable cards
+   */
+  public static long PlayableMask(int currentSuit, int currentRank) {
+    return PLAYABLE_MASKS[currentSuit * RANK_COUNT + currentRank - 1];
+  }
+
+  /**
+   * Returns the set of cards in a suit.
+   * @param suit The suit index
+   * @return Mask of the suit's 13 cards
+   */
+  public static long SuitMask(int suit) {
+    return SUIT_MASKS[suit];
+  }
+
+  /**
+   * Returns the set of cards with a rank.
+   * @param rank The rank (1-13)
+   * @return Mask of the rank's 4 cards
+   */
+  public static long RankMask(int rank) {
+    return RANK_MASKS[rank];
+  }
+
+  /**
+   * Returns the set of wild cards.
+   * @return Mask of the four 8s
+   */
+  public static long WildMask() {
+    return WILD_MASK;
+  }
+
+  /**
+   * Returns the total points of a set of cards.
+   * @param hand The set of cards
+   * @return Total points value
+   */
+  public static int HandPoints(long hand) {
+    int points = 0;
+    for (int i = 0; i < POINT_MASKS.length; i++) {
+      points += Long.bitCount(hand & POINT_MASKS[i]) * POINT_VALUES[i];
+    }
+    return points;
+  }
+}
@@ -0,0 +1,37 @@
+/**
+ * Strategy for a person at the console.
+ * Asks for each decision with the Displayer prompts, so CrazyEightsMain
+ * runs human and computer players through the same PlayerStrategy calls.
+ */
+public class ConsoleStrategy implements PlayerStrategy {
+  private Displayer displayer;
+
+  /**
+   * Creates a console player that answers the given displayer's prompts.
+   * @param displayer The displayer to prompt with
+   */
+  public ConsoleStrategy(Displayer displayer) {
+    this.displayer = displayer;
+  }
+
+  /**
+   * Asks the player which card to play.
+   * The selection is not checked; the turn loop asks again if it is invalid.
+   * @param game   The game in progress
+   * @param player The player making the selection
+   * @return The index of the selected card
+   */
+  public int SelectCard(GameSystem game, Player player) {
+    return displayer.PromptCardSelection(player);
+  }
+
+  /**
+   * Asks the player to name the suit for their wild card.
+   * @param game   The game in progress
+   * @param player The player making the selection
+   * @return The chosen suit index
+   */
+  public int SelectSuit(GameSystem game, Player player) {
+    return Card.SuitIndex(displayer.PromptNewSuit());
+  }
+}
@@ -6,18 +6,24 @@ import java.util.Scanner;
 
 public class CrazyEightsMain {
   public static void main(String[] args) {
+    EngineMetrics.Register();
 
     String name1 = "";
     String name2 = "";
-
     GameSystem game = new GameSystem();
     Displayer disp = new Displayer();
+    PlayerStrategy[] strategies = { new ConsoleStrategy(disp), new ConsoleStrategy(disp) }; // One per seat
     Scanner input = new Scanner(System.in);
     disp.DisplayWelcomeMessage();
+    disp.Flush();
     System.out.print("\n" + "Enter Player 1 name: ");
     name1 = input.nextLine();
-    System.out.print("Enter Player 2 name: ");
+    System.out.print("Enter Player 2 name (leave blank to play the computer): ");
     name2 = input.nextLine();
+    if (name2.isEmpty()) {
+      name2 = "Computer";
+      strategies[1] = new MonteCarloStrategy(System.nanoTime()); // Single-player game
+    }
     System.out.println("\n" + "Welcome " + name1 + " and " + name2 + "!" + "\n");
     disp.DisplayGameRules();
 
@@ -30,23 +36,29 @@ public class CrazyEightsMain {
 
       while (!game.IsGameOver()) { // When the game is not over
         Player currPlayer = game.GetCurrentPlayer();
+        PlayerStrategy strategy = strategies[game.GetCurrentPlayerIndex()];
+        boolean human = strategy instanceof ConsoleStrategy;
         boolean turnEnd = false;
 
         while (!turnEnd && !game.IsGameOver()) { // When turn is not valid and game is not over
           disp.DisplayScores(p1, p2); // Display the current scores of players
           disp.DisplayGameState(game.GetTopCard(), game.GetCurrentSuit()); // Display the top card and current suit
-          disp.DisplayPlayerHand(currPlayer); // Display current player's hand
+          if (human) {
+            disp.DisplayPlayerHand(currPlayer); // Display current player's hand
+          }
 
           if (game.HasPlayableCards(currPlayer)) { // If player has playable cards
-            int index = disp.PromptCardSelection(currPlayer); // Prompt player to select a card from hand
+            long start = System.nanoTime();
+            int index = strategy.SelectCard(game, currPlayer); // Prompts a human player to select a card from hand
             boolean isValid = game.IsValidPlay(currPlayer, index);
 
             if (isValid) { // if the selected card is valid
-              Card selected = currPlayer.GetHand()[index]; // Get the selected card
+              game.GetMetricsRecorder().Decision(game.GetCurrentPlayerIndex(), System.nanoTime() - start);
+              Card selected = currPlayer.GetCard(index); // Get the selected card
 
               String nextSuitIfWild = "";
               if (selected instanceof WildCard) { // If the selected card is a wild card
-                nextSuitIfWild = disp.PromptNewSuit(); // Prompt player to select the new suit
+                nextSuitIfWild = Card.SuitName(strategy.SelectSuit(game, currPlayer)); // Prompts a human player for the new suit
               }
 
               game.PlayCard(currPlayer, index, nextSuitIfWild); // Play the selected card
@@ -54,37 +66,44 @@ public class CrazyEightsMain {
             }
 
             else {
+              game.GetMetricsRecorder().InvalidSelection();
               disp.AnnounceInvalidSelection(); // Announce invalid selection
             }
           } else {
             disp.AnnounceDrawing(); // Announce drawing card
+            int reshuffles = game.GetReshuffleCount();
             Card drawn = game.DrawCard(); // Draw card from deck
-            currPlayer.AddCard(drawn); // Add drawn card to player's hand
-            disp.AnnounceCardDrawn(drawn); // Announce card drawn
+            if (game.GetReshuffleCount() != reshuffles) { // Discard pile was reshuffled into the deck
+              disp.AnnounceReshuffle();
+            }
+            if (drawn == null) { // Deck and discard pile are both exhausted, the game ends as a stalemate
+              disp.AnnounceStalemate();
+            } else {
+              currPlayer.AddCard(drawn); // Add drawn card to player's hand
+              disp.AnnounceCardDrawn(drawn); // Announce card drawn
+            }
           }
         }
 
+        disp.Flush(); // Write the whole turn to the console at once
         if (!game.IsGameOver()) {
           game.SwitchTurn(); // Switch player if game not over
         }
       }
 
       // Game end
-      Player winner;
-      Player loser;
-
-      if (p1.HasWon()) { // If player 1 won
-        winner = p1;
-        loser = p2;
-      } else { // Player 2 won
-        winner = p2;
-        loser = p1;
+      game.FlushMetrics(); // Publish this game's metrics before waiting for the player
+      if (game.IsStalemate()) { // Nobody could go out
+        disp.DisplayStalemateScores(p1, p2); // Display both players' points
+      } else {
+        Player winner = p1.HasWon() ? p1 : p2;
+        Player loser = winner == p1 ? p2 : p1;
+        disp.AnnounceWinner(winner); // Announce winner
+        disp.DisplayFinalScores(winner, loser); // Display final scores
       }
 
-      disp.AnnounceWinner(winner); // Announce winner
-      disp.DisplayFinalScores(winner, loser); // Display final scores
-
       disp.DisplayReplay(); // Ask user if they want to replay
+      disp.Flush();
       System.out.print("Enter your choice: ");
       int choice = input.nextInt();
       input.nextLine();
@@ -92,6 +111,7 @@ public class CrazyEightsMain {
       if (choice == 1) { // If user choose to replay
         System.out.println("\n" + "Replaying game..." + "\n");
         disp.DisplayWelcomeBackMessage(); // Display welcome back message
+        disp.Flush();
         game = new GameSystem(); // Create new game system
         gameReplay = false; // Set game replay to false to continue the game loop
       }
@@ -2,12 +2,50 @@ import java.util.Scanner;
 
 /**
  * Handles all display and user input for the Crazy Eights game.
+ * Output is rendered into a reusable buffer and written to the sink in one
+ * call when input is needed or Flush() is called, so a whole turn reaches
+ * the console as a single write.
  */
 
 public class Displayer {
+    private static final String SPACES = "                                        "; // Padding for table columns
+    private static final String LINE = "--------------------------------------------\n";
+    private static final String GAME_STATE_HEADER = "\n" + LINE + "8                GAME STATE                8\n" + LINE;
+    private static final String SCORE_HEADER = "\n* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\n"
+            + "\n" + LINE + "8               CURRENT SCORE              8\n" + LINE;
+    private static final String FINAL_SCORE_HEADER = LINE + "8                FINAL SCORE               8\n" + LINE;
+    private static final String RULES = ""
+            + "-----------------------------------------------------------------\n"
+            + "8                           GAME RULES                          8\n"
+            + "-----------------------------------------------------------------\n"
+            + "|    1. Each player has 7 cards.                                |\n"
+            + "|    2. Players will take turns playing a card that matches     |\n"
+            + "|       the suit or rank of the top card.                       |\n"
+            + "|    3. Wild cards (8s) can be played at any time and can       |\n"
+            + "|       change the current suit.                                |\n"
+            + "|    4. If the player can't play a card, cards will be drawn    |\n"
+            + "|       until an available cards is found.                      |\n"
+            + "|    5. First player to get rid of all cards wins the game.     |\n"
+            + "-----------------------------------------------------------------\n";
+
     Scanner input = new Scanner(System.in);
+    private RenderSink sink;
+    private StringBuilder buffer = new StringBuilder(1024); // Output not yet written to the sink
+    private char[] chars = new char[1024]; // Buffer contents handed to the sink
 
+    /**
+     * Creates a displayer that writes to the console.
+     */
     public Displayer() {
+        this(new StreamSink());
+    }
+
+    /**
+     * Creates a displayer that writes to the given sink.
+     * @param sink Destination for the rendered output (RenderSink.NULL to discard it)
+     */
+    public Displayer(RenderSink sink) {
+        this.sink = sink;
     }
 
     // ========== HELPER METHODS ==========//
@@ -25,7 +63,8 @@ public class Displayer {
             if (value >= min && value <= max) {
                 return value;
             } else {
-                System.out.print("Input out of range. Enter a number between " + min + " and " + max + ": ");
+                buffer.append("Input out of range. Enter a number between ").append(min).append(" and ").append(max).append(": ");
+                Flush();
             }
         }
     }
@@ -48,40 +87,86 @@ public class Displayer {
         }
     }
 
+    /**
+     * Appends text padded with spaces on the right, like printf's %-Ns.
+     * @param text  The text
+     * @param width Minimum number of characters to append
+     */
+    private void AppendLeft(String text, int width) {
+        buffer.append(text);
+        if (text.length() < width) {
+            buffer.append(SPACES, 0, width - text.length());
+        }
+    }
+
+    /**
+     * Appends a number padded with spaces on the left, like printf's %Nd.
+     * @param value The number
+     * @param width Minimum number of characters to append
+     */
+    private void AppendRight(int value, int width) {
+        int digits = value < 0 ? 2 : 1;
+        for (int rest = value / 10; rest != 0; rest /= 10) {
+            digits++;
+        }
+        if (digits < width) {
+            buffer.append(SPACES, 0, width - digits);
+        }
+        buffer.append(value);
+    }
+
+    /**
+     * Appends one row of a score table.
+     * @param name   The player's name
+     * @param points The player's points
+     */
+    private void AppendScoreRow(String name, int points) {
+        buffer.append("| ");
+        AppendLeft(name, 12);
+        buffer.append(':');
+        AppendRight(points, 4);
+        buffer.append(" points                 |\n");
+    }
+
     // ========== PUBLIC METHODS ==========//
 
+    /**
+     * Writes everything rendered so far to the sink in one call.
+     */
+    public void Flush() {
+        int length = buffer.length();
+        if (length == 0) {
+            return;
+        }
+        if (chars.length < length) {
+            chars = new char[Math.max(length, chars.length * 2)];
+        }
+        buffer.getChars(0, length, chars, 0);
+        buffer.setLength(0);
+        sink.Write(chars, length);
+    }
+
     public void DisplayWelcomeMessage() {
-        System.out.println("---------------------------------------");
-        System.out.println("8       WELCOME TO CRAZY EIGHTS       8");
-        System.out.println("---------------------------------------");
+        buffer.append("---------------------------------------\n");
+        buffer.append("8       WELCOME TO CRAZY EIGHTS       8\n");
+        buffer.append("---------------------------------------\n");
     }
 
     /**
      * Displays a welcome back message when the game is replayed.
      */
     public void DisplayWelcomeBackMessage() {
-        System.out.println("---------------------------------------");
-        System.out.println("8     WELCOME BACK TO CRAZY EIGHTS    8");
-        System.out.println("---------------------------------------");
-        System.out.println("\n" + "Thank you for playing again!");
+        buffer.append("---------------------------------------\n");
+        buffer.append("8     WELCOME BACK TO CRAZY EIGHTS    8\n");
+        buffer.append("---------------------------------------\n");
+        buffer.append("\nThank you for playing again!\n");
     }
 
     /**
      * Displays the game rules to the players.
      */
     public void DisplayGameRules() {
-        System.out.println("-----------------------------------------------------------------");
-        System.out.println("8                           GAME RULES                          8");
-        System.out.println("-----------------------------------------------------------------");
-        System.out.println("|    1. Each player has 7 cards.                                |");
-        System.out.println("|    2. Players will take turns playing a card that matches     |");
-        System.out.println("|       the suit or rank of the top card.                       |");
-        System.out.println("|    3. Wild cards (8s) can be played at any time and can       |");
-        System.out.println("|       change the current suit.                                |");
-        System.out.println("|    4. If the player can't play a card, cards will be drawn    |");
-        System.out.println("|       until an available cards is found.                      |");
-        System.out.println("|    5. First player to get rid of all cards wins the game.     |");
-        System.out.println("-----------------------------------------------------------------");
+        buffer.append(RULES);
     }
 
     /**
@@ -90,12 +175,12 @@ public class Displayer {
      * @param currentSuit The current suit in play
      */
     public void DisplayGameState(Card topCard, String currentSuit) { // Shows the top card and the current suit
-        System.out.println("\n" + "--------------------------------------------");
-        System.out.println("8                GAME STATE                8");
-        System.out.println("--------------------------------------------");
-        System.out.printf("%-15s:%s%-26s|\n", "| Top Card ", " ", topCard.ToString());
-        System.out.printf("%-15s:%s%-26s|\n", "| Current Suit ", " ", currentSuit);
-        System.out.println("--------------------------------------------");
+        buffer.append(GAME_STATE_HEADER);
+        buffer.append("| Top Card     : ");
+        AppendLeft(Cards.Name(topCard.GetOrdinal()), 26);
+        buffer.append("|\n| Current Suit : ");
+        AppendLeft(currentSuit, 26);
+        buffer.append("|\n").append(LINE);
     }
 
     /**
@@ -104,10 +189,9 @@ public class Displayer {
      */
 
     public void DisplayPlayerHand(Player player) { // Shows the player's hand
-        System.out.println("\n" + player.GetName() + "'s Hand:");
-        Card[] hand = player.GetHand();
+        buffer.append('\n').append(player.GetName()).append("'s Hand:\n");
         for (int i = 0; i < player.GetHandSize(); i++) {
-            System.out.println((i + 1) + ". " + hand[i].ToString());
+            buffer.append(i + 1).append(". ").append(Cards.Name(player.GetCard(i).GetOrdinal())).append('\n');
         }
     }
 
@@ -117,7 +201,8 @@ public class Displayer {
      * @return The index of the selected card
      */
     public int PromptCardSelection(Player player) { // Prompts the player to select a card from their hand
-        System.out.print("Select a card (1-" + player.GetHandSize() + "): ");
+        buffer.append("Select a card (1-").append(player.GetHandSize()).append("): ");
+        Flush();
         return GetValidIntInput(1, player.GetHandSize()) - 1;
     }
 
@@ -126,7 +211,8 @@ public class Displayer {
      * @return The chosen suit as a full string
      */
     public String PromptNewSuit() { // Prompts the player to select a new suit for a wild card
-        System.out.print("Choose new suit (H/D/C/S): ");
+        buffer.append("Choose new suit (H/D/C/S): ");
+        Flush();
         String suit;
         while (true) {
             suit = input.nextLine().toUpperCase();
@@ -136,7 +222,8 @@ public class Displayer {
                     break;
                 }
             }
-            System.out.print("Invalid suit! Choose H/D/C/S: ");
+            buffer.append("Invalid suit! Choose H/D/C/S: ");
+            Flush();
         }
         return CheckSuit(suit);
     }
@@ -147,13 +234,10 @@ public class Displayer {
      * @param player2 Second player
      */
     public void DisplayScores(Player player1, Player player2) { // Shows the scores of both players
-        System.out.println("\n" + "* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *");
-        System.out.println("\n" + "--------------------------------------------");
-        System.out.println("8               CURRENT SCORE              8");
-        System.out.println("--------------------------------------------");
-        System.out.printf("|%s%-12s:%4d%-24s|\n", " ", player1.GetName(), player1.GetHandPoints(), " points");
-        System.out.printf("|%s%-12s:%4d%-24s|\n", " ", player2.GetName(), player2.GetHandPoints(), " points");
-        System.out.println("--------------------------------------------");
+        buffer.append(SCORE_HEADER);
+        AppendScoreRow(player1.GetName(), player1.GetHandPoints());
+        AppendScoreRow(player2.GetName(), player2.GetHandPoints());
+        buffer.append(LINE);
     }
 
     /**
@@ -162,23 +246,39 @@ public class Displayer {
      * @param loser  The losing player
      */
     public void DisplayFinalScores(Player winner, Player loser) { // Shows the final scores of both players
-        System.out.println("--------------------------------------------");
-        System.out.println("8                FINAL SCORE               8");
-        System.out.println("--------------------------------------------");
-        System.out.printf("|%s%-12s:%-28s|\n", " ", winner.GetName(), "  0 points (WINNER)");
-        System.out.printf("|%s%-12s:%3d%-25s|\n", " ", loser.GetName(), loser.GetHandPoints(), " points");
-        System.out.println("--------------------------------------------");
+        buffer.append(FINAL_SCORE_HEADER);
+        buffer.append("| ");
+        AppendLeft(winner.GetName(), 12);
+        buffer.append(":  0 points (WINNER)         |\n");
+        buffer.append("| ");
+        AppendLeft(loser.GetName(), 12);
+        buffer.append(':');
+        AppendRight(loser.GetHandPoints(), 3);
+        buffer.append(" points                  |\n");
+        buffer.append(LINE);
+    }
+
+    /**
+     * Displays the final scores of a game that ended without a winner.
+     * @param player1 First player
+     * @param player2 Second player
+     */
+    public void DisplayStalemateScores(Player player1, Player player2) { // Shows the points left in both hands
+        buffer.append(FINAL_SCORE_HEADER);
+        AppendScoreRow(player1.GetName(), player1.GetHandPoints());
+        AppendScoreRow(player2.GetName(), player2.GetHandPoints());
+        buffer.append(LINE);
     }
 
     /**
      * Displays the replay option when game ends
      */
     public void DisplayReplay() {
-        System.out.println("\n" + "GAME OVER!");
-        System.out.println("Thank you for playing Crazy Eights!" + "\n");
-        System.out.println("Would you like to play another round?");
-        System.out.println("1. Yes");
-        System.out.println("2. Exit");
+        buffer.append("\nGAME OVER!\n");
+        buffer.append("Thank you for playing Crazy Eights!\n\n");
+        buffer.append("Would you like to play another round?\n");
+        buffer.append("1. Yes\n");
+        buffer.append("2. Exit\n");
     }
 
     /**
@@ -186,14 +286,28 @@ public class Displayer {
      * @param player The winning player
      */
     public void AnnounceWinner(Player player) {
-        System.out.println("\n" + player.GetName() + " is the WINNER!");
+        buffer.append('\n').append(player.GetName()).append(" is the WINNER!\n");
+    }
+
+    /**
+     * Announces that no cards are left to draw, which ends the game.
+     */
+    public void AnnounceStalemate() {
+        buffer.append("No cards left to draw. The game is a STALEMATE!\n");
     }
 
     /**
      * Announces that the player is drawing a card.
      */
     public void AnnounceDrawing() {
-        System.out.println("No playable cards at the moment. Drawing a card...");
+        buffer.append("No playable cards at the moment. Drawing a card...\n");
+    }
+
+    /**
+     * Announces that the discard pile was reshuffled into the deck.
+     */
+    public void AnnounceReshuffle() {
+        buffer.append("Reshuffling complete. Deck is ready.\n");
     }
 
     /**
@@ -201,7 +315,7 @@ public class Displayer {
      * @param card The drawn card
      */
     public void AnnounceCardDrawn(Card card) {
-        System.out.println("Card drawn: " + card.ToString());
+        buffer.append("Card drawn: ").append(Cards.Name(card.GetOrdinal())).append('\n');
     }
 
     /**
@@ -209,6 +323,6 @@ public class Displayer {
      * Prompts the player to try again.
      */
     public void AnnounceInvalidSelection() {
-        System.out.println("WARNING: Invalid selection! Please try again.");
+        buffer.append("WARNING: Invalid selection! Please try again.\n");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,543 @@
+import java.util.Arrays;
+
+/**
+ * Exact alpha-beta solver for late-game positions.
+ * Looks at the whole position, including the other hand and the order of
+ * the deck, so it is meant for positions where little is hidden anyway:
+ * the deck is empty or nearly empty and both hands are effectively known.
+ * A position's value is the point swing for the player to move: the
+ * opponent's final GetHandPoints() if they win, minus their own if they
+ * lose, and 0 for a stalemate.
+ *
+ * Positions are cached in a bounded transposition table keyed by Zobrist
+ * hashes of the hands, the cards left in the deck, the suit, rank and side
+ * to move. The table keeps two entries per bucket: one that is only
+ * replaced by a search at least as large, and one that is always replaced.
+ * The table is kept between calls, so solving successive positions of the
+ * same game reuses earlier work.
+ *
+ * Drawing past the end of the deck would reshuffle the discard pile, which
+ * is a random event; such positions are scored by the difference in hand
+ * points and the result is reported as not exact.
+ *
+ * The solver draws from the top of the deck as GetDeckCard() lists it. The
+ * engine only draws in that order once GameSystem.ShuffleDeck() has fixed
+ * it, so callers that go on playing the solved game should fix it first.
+ * Games whose RuleSet gives cards effects are not supported.
+ */
+public class EndgameSolver {
+  public static final int DEFAULT_TABLE_BITS = 20; // 1M entries, 12 MB
+
+  private static final int INFINITY = 10000;
+  private static final int MAX_PLIES = Cards.DECK_SIZE + 1; // Every ply plays a card
+  private static final int MAX_MOVES = 32; // At most 15 playable non-wild cards plus 4 suits for a wild card
+  private static final int NO_MOVE = 0xFF;
+
+  // Transposition table entry: value + 2048 (bits 0-11), bound (12-13),
+  // best move (14-21), log2 of nodes searched (22-27), inexact flag (28)
+  private static final int EXACT = 0;
+  private static final int LOWER = 1;
+  private static final int UPPER = 2;
+  private static final int INEXACT = 1 << 28;
+
+  private static final long[][] HAND_KEYS = new long[2][Cards.DECK_SIZE];
+  private static final long[][] DECK_KEYS = new long[Cards.DECK_SIZE][Cards.DECK_SIZE]; // Indexed by position, then ordinal
+  private static final long[] SUIT_KEYS = new long[Card.SUIT_COUNT];
+  private static final long[] RANK_KEYS = new long[Cards.RANK_COUNT + 1];
+  private static final long SIDE_KEY;
+
+  static {
+    RandomSource keys = new Xoroshiro128PlusPlus(0x2B992DDFA23249D6L);
+    for (int ordinal = 0; ordinal < Cards.DECK_SIZE; ordinal++) {
+      HAND_KEYS[0][ordinal] = keys.NextLong();
+      HAND_KEYS[1][ordinal] = keys.NextLong();
+      for (int position = 0; position < Cards.DECK_SIZE; position++) {
+        DECK_KEYS[position][ordinal] = keys.NextLong();
+      }
+    }
+    for (int suit = 0; suit < Card.SUIT_COUNT; suit++) {
+      SUIT_KEYS[suit] = keys.NextLong();
+    }
+    for (int rank = 0; rank <= Cards.RANK_COUNT; rank++) {
+      RANK_KEYS[rank] = keys.NextLong();
+    }
+    SIDE_KEY = keys.NextLong();
+  }
+
+  private long[] tableKeys;
+  private int[] tableData;
+  private int tableMask;
+
+  // Position being searched
+  private long[] hands = new long[2];
+  private int[] deck = new int[Cards.DECK_SIZE];
+  private long[] deckKeys = new long[Cards.DECK_SIZE + 1]; // Hash of the bottom n cards of the deck
+  private int deckTop;
+  private int side;
+  private int suit;
+  private int rank;
+  private int cardCount; // Cards in both hands, the deck and the discard pile
+  private long key; // Hash of everything but the deck
+
+  private int[][] moves = new int[MAX_PLIES][MAX_MOVES];
+  private int[] rootValues = new int[MAX_MOVES];
+  private int rootCount;
+  private int bestMove;
+  private int lastBest; // Best move found by the last SearchMoves() call
+  private int value;
+  private long nodes;
+  private long maxNodes;
+  private boolean aborted;
+  private long reshuffleLeaves;
+
+  /**
+   * Creates a solver with the default transposition table size.
+   */
+  public EndgameSolver() {
+    this(DEFAULT_TABLE_BITS);
+  }
+
+  /**
+   * Creates a solver with a transposition table of 2^tableBits entries.
+   * @param tableBits Log2 of the number of table entries (at least 1)
+   */
+  public EndgameSolver(int tableBits) {
+    if (tableBits < 1 || tableBits > 30) {
+      throw new IllegalArgumentException("Table bits must be between 1 and 30");
+    }
+    tableKeys = new long[1 << tableBits];
+    tableData = new int[1 << tableBits];
+    tableMask = (1 << tableBits) - 1;
+  }
+
+  // ========== HELPER METHODS ==========//
+  /**
+   * Packs a transposition table entry.
+   * @param value    The position's value
+   * @param bound    EXACT, LOWER or UPPER
+   * @param move     Best move found, or NO_MOVE
+   * @param searched Positions visited to find the value
+   * @param inexact  true if the value depends on a reshuffle
+   * @return The packed entry
+   */
+  private static int Pack(int value, int bound, int move, long searched, boolean inexact) {
+    int effort = 64 - Long.numberOfLeadingZeros(searched);
+    return (value + 2048) | bound << 12 | move << 14 | effort << 22 | (inexact ? INEXACT : 0);
+  }
+
+  /**
+   * Finds a position in the transposition table.
+   * @param fullKey The position's hash
+   * @return The entry's index, or -1 if the position is not stored
+   */
+  private int Probe(long fullKey) {
+    int index = (int) fullKey & tableMask & ~1;
+    if (tableKeys[index] == fullKey) {
+      return index;
+    }
+    if (tableKeys[index + 1] == fullKey) {
+      return index + 1;
+    }
+    return -1;
+  }
+
+  /**
+   * Stores a position in the transposition table.
+   * The first entry of a bucket keeps the larger search; the entry it
+   * pushes out, or any smaller search, goes into the second entry.
+   * @param fullKey The position's hash
+   * @param data    The packed entry
+   */
+  private void Store(long fullKey, int data) {
+    int index = (int) fullKey & tableMask & ~1;
+    if (tableKeys[index] == fullKey) {
+      tableData[index] = data;
+    } else if ((data >>> 22 & 0x3F) >= (tableData[index] >>> 22 & 0x3F)) {
+      tableKeys[index + 1] = tableKeys[index];
+      tableData[index + 1] = tableData[index];
+      tableKeys[index] = fullKey;
+      tableData[index] = data;
+    } else {
+      tableKeys[index + 1] = fullKey;
+      tableData[index + 1] = data;
+    }
+  }
+
+  /**
+   * Lists the moves of the player to move, best guesses first.
+   * Every wild card plays the same way, so only the lowest one is tried.
+   * @param playable Mask of the playable cards in hand
+   * @param list     Filled with the moves (see GameSystem.PackMove())
+   * @param first    Move to try first (eg: from the transposition table), or NO_MOVE
+   * @return Number of moves
+   */
+  private static int GenerateMoves(long playable, int[] list, int first) {
+    int count = 0;
+    for (long normal = playable & ~Cards.WildMask(); normal != 0; normal &= normal - 1) {
+      int ordinal = Long.numberOfTrailingZeros(normal);
+      int move = GameSystem.PackMove(ordinal, ordinal / Cards.RANK_COUNT);
+      int i = count++;
+      for (; i > 0 && Cards.Points(GameSystem.MoveCardOf(list[i - 1])) < Cards.Points(ordinal); i--) {
+        list[i] = list[i - 1]; // Shed high-point cards first
+      }
+      list[i] = move;
+    }
+    long wild = playable & Cards.WildMask();
+    if (wild != 0) {
+      int ordinal = Long.numberOfTrailingZeros(wild);
+      for (int s = 0; s < Card.SUIT_COUNT; s++) {
+        list[count++] = GameSystem.PackMove(ordinal, s);
+      }
+    }
+    for (int i = 0; i < count; i++) {
+      if (list[i] == first) {
+        list[i] = list[0];
+        list[0] = first;
+        break;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Searches the current position.
+   * @param alpha Lower bound of interest
+   * @param beta  Upper bound of interest
+   * @param ply   Plays made since the root
+   * @return The position's value for the player to move
+   */
+  private int Search(int alpha, int beta, int ply) {
+    if (++nodes > maxNodes) {
+      aborted = true;
+      return 0;
+    }
+    long startNodes = nodes;
+    long startLeaves = reshuffleLeaves;
+    long fullKey = key ^ deckKeys[deckTop];
+    int first = NO_MOVE;
+    int slot = ply == 0 ? -1 : Probe(fullKey);
+    if (slot >= 0) {
+      int data = tableData[slot];
+      int stored = (data & 0xFFF) - 2048;
+      int bound = data >>> 12 & 3;
+      if ((data & INEXACT) != 0) {
+        reshuffleLeaves++;
+      }
+      if (bound == EXACT || (bound == LOWER && stored >= beta) || (bound == UPPER && stored <= alpha)) {
+        return stored;
+      }
+      first = data >>> 14 & 0xFF;
+    }
+
+    // Draw until a card can be played, as the turn loop does
+    int me = side;
+    long saved = hands[me];
+    long hand = saved;
+    int top = deckTop;
+    long playableMask = Cards.PlayableMask(suit, rank);
+    while ((hand & playableMask) == 0 && deckTop > 0) {
+      int card = deck[--deckTop];
+      hand |= 1L << card;
+      key ^= HAND_KEYS[me][card];
+    }
+    int result;
+    int move = NO_MOVE;
+    if ((hand & playableMask) == 0) { // Deck ran out
+      if (cardCount - Long.bitCount(hand) - Long.bitCount(hands[1 - me]) > 1) { // Discard pile would be reshuffled
+        reshuffleLeaves++;
+        result = Cards.HandPoints(hands[1 - me]) - Cards.HandPoints(hand);
+      } else {
+        result = 0; // Stalemate
+      }
+    } else {
+      result = SearchMoves(alpha, beta, ply, hand, first);
+      move = lastBest;
+    }
+
+    // Put the drawn cards back
+    for (int i = deckTop; i < top; i++) {
+      key ^= HAND_KEYS[me][deck[i]];
+    }
+    deckTop = top;
+    hands[me] = saved;
+
+    if (!aborted) {
+      int bound = result <= alpha ? UPPER : result >= beta ? LOWER : EXACT;
+      Store(fullKey, Pack(result, bound, move, nodes - startNodes + 1, reshuffleLeaves > startLeaves));
+    }
+    return result;
+  }
+
+  /**
+   * Tries every move of the player to move after drawing.
+   * @param alpha Lower bound of interest
+   * @param beta  Upper bound of interest
+   * @param ply   Plays made since the root
+   * @param hand  The player's hand after drawing
+   * @param first Move to try first, or NO_MOVE
+   * @return The best value found
+   */
+  private int SearchMoves(int alpha, int beta, int ply, long hand, int first) {
+    int me = side;
+    int[] list = moves[ply];
+    int count = GenerateMoves(hand & Cards.PlayableMask(suit, rank), list, first);
+    int best = -INFINITY;
+    int bestAt = NO_MOVE;
+    int oldSuit = suit;
+    int oldRank = rank;
+    for (int i = 0; i < count; i++) {
+      int move = list[i];
+      int card = GameSystem.MoveCardOf(move);
+      int newSuit = GameSystem.MoveSuitOf(move);
+      int newRank = card % Cards.RANK_COUNT + 1;
+      hands[me] = hand & ~(1L << card);
+      key ^= HAND_KEYS[me][card] ^ SUIT_KEYS[oldSuit] ^ SUIT_KEYS[newSuit] ^ RANK_KEYS[oldRank] ^ RANK_KEYS[newRank];
+      suit = newSuit;
+      rank = newRank;
+
+      int score;
+      if (hands[me] == 0) {
+        score = Cards.HandPoints(hands[1 - me]); // Won
+      } else {
+        side = 1 - me;
+        key ^= SIDE_KEY;
+        score = ply == 0 ? -Search(-INFINITY, INFINITY, ply + 1) : -Search(-beta, -Math.max(alpha, best), ply + 1);
+        side = me;
+        key ^= SIDE_KEY;
+      }
+
+      suit = oldSuit;
+      rank = oldRank;
+      key ^= HAND_KEYS[me][card] ^ SUIT_KEYS[oldSuit] ^ SUIT_KEYS[newSuit] ^ RANK_KEYS[oldRank] ^ RANK_KEYS[newRank];
+      if (aborted) {
+        return 0;
+      }
+      if (ply == 0) {
+        rootValues[i] = score;
+      }
+      if (score > best) {
+        best = score;
+        bestAt = move;
+      }
+      if (ply > 0 && best >= beta) {
+        break;
+      }
+    }
+    if (ply == 0) {
+      rootCount = count;
+      bestMove = bestAt;
+    }
+    lastBest = bestAt;
+    return best;
+  }
+
+  // ========== PUBLIC METHODS ==========//
+
+  /**
+   * Solves the position for the current player.
+   * If the player cannot play, they draw first, as in the turn loop.
+   * @param game     The position to solve (not changed)
+   * @param maxNodes Most positions to visit before giving up
+   * @return true if the position was solved within the node limit
+   */
+  public boolean Solve(GameSystem game, long maxNodes) {
+    Player[] players = game.GetPlayers();
+    if (players.length != 2 || game.GetDeckCount() != 1 || game.IsGameOver() || game.GetRules().HasEffects()) {
+      throw new IllegalArgumentException("Can only solve a two-player, single-deck game in progress with no card effects");
+    }
+    hands[0] = players[0].GetHandMask();
+    hands[1] = players[1].GetHandMask();
+    side = game.GetCurrentPlayerIndex();
+    suit = game.GetCurrentSuitIndex();
+    rank = game.GetCurrentRank();
+    deckTop = game.GetDeckSize();
+    cardCount = Long.bitCount(hands[0]) + Long.bitCount(hands[1]) + deckTop + game.GetDiscardSize();
+    for (int i = 0; i < deckTop; i++) {
+      deck[i] = game.GetDeckCard(i).GetOrdinal();
+      deckKeys[i + 1] = deckKeys[i] ^ DECK_KEYS[i][deck[i]];
+    }
+    key = SUIT_KEYS[suit] ^ RANK_KEYS[rank] ^ (side == 1 ? SIDE_KEY : 0);
+    for (int p = 0; p < 2; p++) {
+      for (long hand = hands[p]; hand != 0; hand &= hand - 1) {
+        key ^= HAND_KEYS[p][Long.numberOfTrailingZeros(hand)];
+      }
+    }
+
+    nodes = 0;
+    this.maxNodes = maxNodes;
+    aborted = false;
+    reshuffleLeaves = 0;
+    rootCount = 0;
+    bestMove = NO_MOVE;
+    value = Search(-INFINITY, INFINITY, 0);
+    return !aborted;
+  }
+
+  /**
+   * Returns the value of the last solved position.
+   * @return Points won (positive) or lost (negative) by the player to move with best play
+   */
+  public int GetValue() {
+    return value;
+  }
+
+  /**
+   * Returns whether the last result is exact.
+   * @return false if some line ran past the end of the deck into a reshuffle
+   */
+  public boolean IsExact() {
+    return reshuffleLeaves == 0;
+  }
+
+  /**
+   * Returns the best card to play in the last solved position.
+   * @return The card, or null if the player could not play at all
+   */
+  public Card GetBestCard() {
+    return bestMove == NO_MOVE ? null : Cards.Get(GameSystem.MoveCardOf(bestMove));
+  }
+
+  /**
+   * Returns the suit to name with the best card.
+   * @return The suit index (the card's own suit unless it is wild)
+   */
+  public int GetBestSuit() {
+    return bestMove == NO_MOVE ? -1 : GameSystem.MoveSuitOf(bestMove);
+  }
+
+  /**
+   * Returns the number of moves valued in the last solved position.
+   * Only the lowest wild card in hand is listed, once per suit.
+   * @return Number of moves
+   */
+  public int GetMoveCount() {
+    return rootCount;
+  }
+
+  /**
+   * Returns a move of the last solved position.
+   * @param index Index of the move
+   * @return The move (see GameSystem.PackMove())
+   */
+  public int GetMove(int index) {
+    return moves[0][index];
+  }
+
+  /**
+   * Returns the exact value of a move of the last solved position.
+   * @param index Index of the move
+   * @return Points won or lost by playing the move, then playing perfectly
+   */
+  public int GetMoveValue(int index) {
+    return rootValues[index];
+  }
+
+  /**
+   * Returns the number of positions visited by the last solve.
+   * @return Positions visited
+   */
+  public long GetNodes() {
+    return nodes;
+  }
+
+  /**
+   * Empties the transposition table.
+   */
+  public void Clear() {
+    Arrays.fill(tableKeys, 0);
+    Arrays.fill(tableData, 0);
+  }
+
+  /**
+   * Wraps a strategy and grades each of its late-game choices against
+   * the solver's exact move values.
+   */
+  private static class GradedStrategy implements PlayerStrategy {
+    private PlayerStrategy strategy;
+    private EndgameSolver solver;
+    private int maxDeck;
+    private long maxNodes;
+    private int pendingSuit;
+    long graded;
+    long optimal;
+    long pointsLost;
+    long attempts;
+    long solveNanos;
+
+    GradedStrategy(PlayerStrategy strategy, EndgameSolver solver, int maxDeck, long maxNodes) {
+      this.strategy = strategy;
+      this.solver = solver;
+      this.maxDeck = maxDeck;
+      this.maxNodes = maxNodes;
+    }
+
+    public int SelectCard(GameSystem game, Player player) {
+      int index = strategy.SelectCard(game, player);
+      if (!game.IsValidPlay(player, index)) {
+        return index; // The runner asks again
+      }
+      int ordinal = player.GetCard(index).GetOrdinal();
+      int suit = ordinal / Cards.RANK_COUNT;
+      if (Cards.IsWild(ordinal)) {
+        pendingSuit = strategy.SelectSuit(game, player);
+        suit = pendingSuit;
+        ordinal = Long.numberOfTrailingZeros(player.GetHandMask() & Cards.WildMask()); // Solver lists the lowest wild card
+      }
+
+      if (game.GetDeckSize() <= maxDeck) {
+        if (game.GetOrderedDeckSize() < game.GetDeckSize()) {
+          game.ShuffleDeck(); // Fix the draw order the solver looks at
+        }
+        attempts++;
+        long start = System.nanoTime();
+        boolean solved = solver.Solve(game, maxNodes);
+        solveNanos += System.nanoTime() - start;
+        if (solved && solver.IsExact()) {
+          for (int i = 0; i < solver.GetMoveCount(); i++) {
+            if (solver.GetMove(i) == GameSystem.PackMove(ordinal, suit)) {
+              graded++;
+              optimal += solver.GetMoveValue(i) == solver.GetValue() ? 1 : 0;
+              pointsLost += solver.GetValue() - solver.GetMoveValue(i);
+            }
+          }
+        }
+      }
+      return index;
+    }
+
+    public int SelectSuit(GameSystem game, Player player) {
+      return pendingSuit;
+    }
+  }
+
+  /**
+   * Grades Greedy and Random players against exact late-game play.
+   * Usage: java EndgameSolver [games] [seed] [max-deck] [max-nodes]
+   * @param args Optional number of games, seed, largest deck to solve and node limit per position
+   */
+  public static void main(String[] args) {
+    long games = args.length > 0 ? Long.parseLong(args[0]) : 10000;
+    long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+    int maxDeck = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+    long maxNodes = args.length > 3 ? Long.parseLong(args[3]) : 100000;
+
+    EndgameSolver solver = new EndgameSolver();
+    GradedStrategy greedy = new GradedStrategy(new GreedyStrategy(), solver, maxDeck, maxNodes);
+    GradedStrategy random = new GradedStrategy(new RandomStrategy(seed), solver, maxDeck, maxNodes);
+    GameRunner runner = new GameRunner(seed, greedy, random);
+    for (long i = 0; i < games; i++) {
+      runner.PlayGame();
+    }
+
+    GradedStrategy[] graded = { greedy, random };
+    String[] names = { "Greedy", "Random" };
+    for (int i = 0; i < graded.length; i++) {
+      GradedStrategy g = graded[i];
+      System.out.printf("%-7s: %d exact positions, %.1f%% optimal, %.2f points lost per move%n", names[i], g.graded,
+          g.graded == 0 ? 0 : 100.0 * g.optimal / g.graded, g.graded == 0 ? 0 : (double) g.pointsLost / g.graded);
+    }
+    long attempts = greedy.attempts + random.attempts;
+    System.out.printf("Solver : %d positions, %.1f us average%n", attempts,
+        (greedy.solveNanos + random.solveNanos) / 1000.0 / Math.max(1, attempts));
+  }
+}
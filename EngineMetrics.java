@@ -0,0 +1,436 @@
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counters and histograms for the engine, shared by every game system.
+ * Counters are striped LongAdders, so games on many threads can record
+ * without contending on one memory location. Each game system counts into
+ * its own Recorder and adds to the shared counters once every few dozen
+ * games, which keeps atomic updates out of the game loop.
+ * Register() publishes the global instance as a JMX MBean; GameSystem also
+ * commits TurnEvent and ReshuffleEvent for Flight Recorder.
+ */
+public class EngineMetrics implements EngineMetricsMBean {
+  public static final String OBJECT_NAME = "crazyeights:type=EngineMetrics";
+
+  private static final EngineMetrics GLOBAL = new EngineMetrics();
+  private static final int GAME_BATCH = 64; // Games a Recorder buffers before adding them to the shared counters
+  private static final int TURN_BUCKETS = 12; // Histogram buckets a Recorder keeps for turns per game (up to 2047)
+  private static final int DRAW_BUCKETS = 8; // Histogram buckets a Recorder keeps for cards drawn per turn (up to 127)
+  private static final int DECISION_BATCH = 16; // Decision times a Recorder keeps before adding them
+
+  private final LongAdder gamesStarted = new LongAdder();
+  private final LongAdder gamesFinished = new LongAdder();
+  private final LongAdder stalemates = new LongAdder();
+  private final LongAdder turns = new LongAdder();
+  private final LongAdder cardsDrawn = new LongAdder();
+  private final LongAdder reshuffles = new LongAdder();
+  private final LongAdder invalidSelections = new LongAdder();
+  private final Histogram turnsPerGame = new Histogram();
+  private final Histogram cardsDrawnPerTurn = new Histogram();
+  private final Histogram[] decisionNanos = new Histogram[GameSystem.MAX_PLAYERS]; // Indexed by seat
+
+  // Last reading of getGamesPerSecond()
+  private long rateNanos;
+  private long rateGames;
+
+  /**
+   * Power-of-two histogram of non-negative values.
+   * Bucket b holds values whose highest set bit is bit b - 1 (bucket 0 holds 0),
+   * so recording is a bit scan and an add, and percentiles are exact to a factor of two.
+   */
+  static class Histogram {
+    private final LongAdder[] buckets = new LongAdder[Long.SIZE + 1];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    Histogram() {
+      for (int i = 0; i < buckets.length; i++) {
+        buckets[i] = new LongAdder();
+      }
+    }
+
+    /**
+     * Returns the bucket a value belongs to.
+     * @param value The value, not negative
+     * @return The bucket index
+     */
+    static int BucketOf(long value) {
+      return Long.SIZE - Long.numberOfLeadingZeros(value);
+    }
+
+    /**
+     * Records one value.
+     * @param value The value (negative values count as 0)
+     */
+    void Record(long value) {
+      value = Math.max(0, value);
+      buckets[BucketOf(value)].increment();
+      count.increment();
+      sum.add(value);
+      max.accumulate(value);
+    }
+
+    /**
+     * Adds values already counted into buckets.
+     * @param counts   Number of values in each bucket, from bucket 0
+     * @param valueSum Sum of the values
+     * @param valueMax Largest value
+     */
+    void Add(long[] counts, long valueSum, long valueMax) {
+      long total = 0;
+      for (int b = 0; b < counts.length; b++) {
+        if (counts[b] != 0) {
+          buckets[b].add(counts[b]);
+          total += counts[b];
+        }
+      }
+      count.add(total);
+      sum.add(valueSum);
+      max.accumulate(valueMax);
+    }
+
+    long GetCount() {
+      return count.sum();
+    }
+
+    double GetMean() {
+      long n = count.sum();
+      return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    long GetMax() {
+      return max.get();
+    }
+
+    /**
+     * Returns the upper bound of the bucket holding a percentile.
+     * @param percentile Percentile between 0 and 100
+     * @return A value at least as large as the percentile, and at most twice as large
+     */
+    long GetPercentile(double percentile) {
+      long n = count.sum();
+      long rank = (long) Math.ceil(n * percentile / 100);
+      long seen = 0;
+      for (int b = 0; b < buckets.length; b++) {
+        seen += buckets[b].sum();
+        if (seen >= rank && seen > 0) {
+          return b == 0 ? 0 : Math.min(max.get(), b == Long.SIZE ? Long.MAX_VALUE : (1L << b) - 1);
+        }
+      }
+      return 0;
+    }
+
+    void Reset() {
+      for (int i = 0; i < buckets.length; i++) {
+        buckets[i].reset();
+      }
+      count.reset();
+      sum.reset();
+      max.reset();
+    }
+  }
+
+  /**
+   * Buffer of metrics owned by one game system and used by one thread.
+   * Counts are kept in plain fields and added to the shared metrics every
+   * GAME_BATCH games, or when Flush() is called, so recording a turn or a
+   * game costs a few plain increments instead of atomic updates.
+   */
+  public static class Recorder {
+    private final EngineMetrics metrics;
+    private long gamesStarted;
+    private long gamesFinished;
+    private long stalemates;
+    private final long[] turnBuckets = new long[TURN_BUCKETS];
+    private long turnSum; // Turns in finished games, for the turns per game histogram
+    private long turnMax;
+    private long turns;
+    private long cardsDrawn;
+    private final long[] drawBuckets = new long[DRAW_BUCKETS];
+    private long drawSum; // Cards drawn in turns counted in drawBuckets, for the cards drawn per turn histogram
+    private long drawMax;
+    private long reshuffles;
+    private long invalidSelections;
+    private final long[] decisions = new long[DECISION_BATCH]; // seat << 56 | nanoseconds
+    private int decisionCount;
+
+    Recorder(EngineMetrics metrics) {
+      this.metrics = metrics;
+    }
+
+    /**
+     * Returns the metrics this recorder adds to.
+     * @return The shared metrics
+     */
+    public EngineMetrics GetMetrics() {
+      return metrics;
+    }
+
+    /**
+     * Records that a game was dealt.
+     */
+    public void GameStart() {
+      gamesStarted++;
+    }
+
+    /**
+     * Records the end of a game, and adds everything recorded to the shared
+     * metrics once GAME_BATCH games have ended.
+     * @param gameTurns Turns played in the game
+     * @param stalemate true if no cards were left to draw
+     */
+    public void GameEnd(int gameTurns, boolean stalemate) {
+      if (stalemate) {
+        stalemates++;
+      }
+      int bucket = Histogram.BucketOf(gameTurns);
+      if (bucket < TURN_BUCKETS) {
+        turnBuckets[bucket]++;
+        turnSum += gameTurns;
+        turnMax = Math.max(turnMax, gameTurns);
+      } else { // Very long game, recorded directly
+        metrics.turnsPerGame.Record(gameTurns);
+      }
+      if (++gamesFinished == GAME_BATCH) {
+        Flush();
+      }
+    }
+
+    /**
+     * Records the end of a turn.
+     * @param drawn Cards the player drew during the turn
+     */
+    public void Turn(int drawn) {
+      turns++;
+      cardsDrawn += drawn;
+      int bucket = Histogram.BucketOf(drawn);
+      if (bucket < DRAW_BUCKETS) {
+        drawBuckets[bucket]++;
+        drawSum += drawn;
+        drawMax = Math.max(drawMax, drawn);
+      } else { // Very long draw, recorded directly
+        metrics.cardsDrawnPerTurn.Record(drawn);
+      }
+    }
+
+    /**
+     * Records a reshuffle of the discard pile into the deck.
+     */
+    public void Reshuffle() {
+      reshuffles++;
+    }
+
+    /**
+     * Records a card selection that could not be played.
+     */
+    public void InvalidSelection() {
+      invalidSelections++;
+    }
+
+    /**
+     * Records how long a player took to choose a card.
+     * @param seat  The player's seat
+     * @param nanos Time taken in nanoseconds
+     */
+    public void Decision(int seat, long nanos) {
+      if (decisionCount == DECISION_BATCH) {
+        FlushDecisions();
+      }
+      decisions[decisionCount++] = (long) seat << 56 | Math.max(0, Math.min(nanos, (1L << 56) - 1));
+    }
+
+    /**
+     * Adds the buffered decision times to the shared histograms.
+     */
+    private void FlushDecisions() {
+      for (int i = 0; i < decisionCount; i++) {
+        metrics.decisionNanos[(int) (decisions[i] >>> 56)].Record(decisions[i] & ((1L << 56) - 1));
+      }
+      decisionCount = 0;
+    }
+
+    /**
+     * Adds a count to a shared counter and returns 0 to clear the buffered one.
+     * @param counter The shared counter
+     * @param count   The buffered count
+     * @return 0
+     */
+    private static long Drain(LongAdder counter, long count) {
+      if (count != 0) {
+        counter.add(count);
+      }
+      return 0;
+    }
+
+    /**
+     * Adds everything recorded so far to the shared metrics.
+     */
+    public void Flush() {
+      if (gamesFinished != 0) {
+        metrics.turnsPerGame.Add(turnBuckets, turnSum, turnMax);
+        Arrays.fill(turnBuckets, 0);
+        turnSum = 0;
+        turnMax = 0;
+      }
+      if (turns != 0) {
+        metrics.cardsDrawnPerTurn.Add(drawBuckets, drawSum, drawMax);
+        Arrays.fill(drawBuckets, 0);
+        drawSum = 0;
+        drawMax = 0;
+      }
+      gamesStarted = Drain(metrics.gamesStarted, gamesStarted);
+      gamesFinished = Drain(metrics.gamesFinished, gamesFinished);
+      stalemates = Drain(metrics.stalemates, stalemates);
+      turns = Drain(metrics.turns, turns);
+      cardsDrawn = Drain(metrics.cardsDrawn, cardsDrawn);
+      reshuffles = Drain(metrics.reshuffles, reshuffles);
+      invalidSelections = Drain(metrics.invalidSelections, invalidSelections);
+      FlushDecisions();
+    }
+  }
+
+  /**
+   * Creates a set of metrics, separate from the global one.
+   */
+  public EngineMetrics() {
+    for (int i = 0; i < decisionNanos.length; i++) {
+      decisionNanos[i] = new Histogram();
+    }
+    rateNanos = System.nanoTime();
+  }
+
+  // ========== PUBLIC METHODS ==========//
+
+  /**
+   * Returns the metrics every game system records to unless told otherwise.
+   * @return The global metrics
+   */
+  public static EngineMetrics Global() {
+    return GLOBAL;
+  }
+
+  /**
+   * Publishes the global metrics on the platform MBean server.
+   * Calling it again does nothing.
+   */
+  public static synchronized void Register() {
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName name = new ObjectName(OBJECT_NAME);
+      if (!server.isRegistered(name)) {
+        server.registerMBean(GLOBAL, name);
+      }
+    } catch (JMException e) {
+      throw new IllegalStateException("Cannot register " + OBJECT_NAME, e);
+    }
+  }
+
+  /**
+   * Creates a buffer for one game system to record into.
+   * @return A new recorder for these metrics
+   */
+  public Recorder NewRecorder() {
+    return new Recorder(this);
+  }
+
+  public long getGamesStarted() {
+    return gamesStarted.sum();
+  }
+
+  public long getGamesFinished() {
+    return gamesFinished.sum();
+  }
+
+  public long getStalemates() {
+    return stalemates.sum();
+  }
+
+  public long getTurns() {
+    return turns.sum();
+  }
+
+  public long getCardsDrawn() {
+    return cardsDrawn.sum();
+  }
+
+  public long getReshuffles() {
+    return reshuffles.sum();
+  }
+
+  public long getInvalidSelections() {
+    return invalidSelections.sum();
+  }
+
+  public synchronized double getGamesPerSecond() {
+    long now = System.nanoTime();
+    long games = gamesFinished.sum();
+    double rate = now == rateNanos ? 0 : (games - rateGames) * 1e9 / (now - rateNanos);
+    rateNanos = now;
+    rateGames = games;
+    return rate;
+  }
+
+  public double getMeanTurnsPerGame() {
+    return turnsPerGame.GetMean();
+  }
+
+  public long getMaxTurnsPerGame() {
+    return turnsPerGame.GetMax();
+  }
+
+  public double getMeanCardsDrawnPerTurn() {
+    return cardsDrawnPerTurn.GetMean();
+  }
+
+  public long getMaxCardsDrawnPerTurn() {
+    return cardsDrawnPerTurn.GetMax();
+  }
+
+  public long[] getDecisions() {
+    long[] decisions = new long[decisionNanos.length];
+    for (int i = 0; i < decisions.length; i++) {
+      decisions[i] = decisionNanos[i].GetCount();
+    }
+    return decisions;
+  }
+
+  public double[] getMeanDecisionMicros() {
+    double[] micros = new double[decisionNanos.length];
+    for (int i = 0; i < micros.length; i++) {
+      micros[i] = decisionNanos[i].GetMean() / 1000;
+    }
+    return micros;
+  }
+
+  public double[] getP99DecisionMicros() {
+    double[] micros = new double[decisionNanos.length];
+    for (int i = 0; i < micros.length; i++) {
+      micros[i] = decisionNanos[i].GetPercentile(99) / 1000.0;
+    }
+    return micros;
+  }
+
+  public synchronized void reset() {
+    gamesStarted.reset();
+    gamesFinished.reset();
+    stalemates.reset();
+    turns.reset();
+    cardsDrawn.reset();
+    reshuffles.reset();
+    invalidSelections.reset();
+    turnsPerGame.Reset();
+    cardsDrawnPerTurn.Reset();
+    for (int i = 0; i < decisionNanos.length; i++) {
+      decisionNanos[i].Reset();
+    }
+    rateNanos = System.nanoTime();
+    rateGames = 0;
+  }
+}
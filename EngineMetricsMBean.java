@@ -0,0 +1,101 @@
+/**
+ * Management interface of EngineMetrics, published over JMX.
+ * Method names follow the JMX getter convention rather than the rest of
+ * the project, since that is how JMX finds attributes.
+ */
+public interface EngineMetricsMBean {
+  /**
+   * Games dealt.
+   * @return Number of games started
+   */
+  long getGamesStarted();
+
+  /**
+   * Games that ended, with a winner or in a stalemate.
+   * @return Number of games finished
+   */
+  long getGamesFinished();
+
+  /**
+   * Games that ended because no cards were left to draw.
+   * @return Number of stalemates
+   */
+  long getStalemates();
+
+  /**
+   * Turns played across all games.
+   * @return Number of turns
+   */
+  long getTurns();
+
+  /**
+   * Cards drawn from the deck across all games.
+   * @return Number of cards drawn
+   */
+  long getCardsDrawn();
+
+  /**
+   * Times the discard pile was shuffled back into the deck.
+   * @return Number of reshuffles
+   */
+  long getReshuffles();
+
+  /**
+   * Card selections rejected as unplayable.
+   * @return Number of invalid selections
+   */
+  long getInvalidSelections();
+
+  /**
+   * Games finished per second since the previous call (or since the counters started).
+   * @return Recent game throughput
+   */
+  double getGamesPerSecond();
+
+  /**
+   * Average length of a finished game.
+   * @return Turns per game
+   */
+  double getMeanTurnsPerGame();
+
+  /**
+   * Longest finished game.
+   * @return Turns in the longest game
+   */
+  long getMaxTurnsPerGame();
+
+  /**
+   * Average number of cards drawn in a turn.
+   * @return Cards drawn per turn
+   */
+  double getMeanCardsDrawnPerTurn();
+
+  /**
+   * Most cards drawn in one turn.
+   * @return Cards drawn in the longest turn
+   */
+  long getMaxCardsDrawnPerTurn();
+
+  /**
+   * Decisions timed for each seat.
+   * @return Number of decisions, indexed by seat
+   */
+  long[] getDecisions();
+
+  /**
+   * Average time each seat took to choose a card.
+   * @return Microseconds, indexed by seat
+   */
+  double[] getMeanDecisionMicros();
+
+  /**
+   * Upper bound of the 99th percentile decision time for each seat.
+   * @return Microseconds, indexed by seat
+   */
+  double[] getP99DecisionMicros();
+
+  /**
+   * Sets every counter and histogram back to zero.
+   */
+  void reset();
+}
@@ -0,0 +1,448 @@
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Estimated win probability of two-player opening deals, filled in by
+ * simulation on demand.
+ * A deal is the 7-card hand, the card turned face up and whether the hand
+ * moves first. Deals that differ only by renaming suits play the same, so
+ * they share one entry: CanonicalKey() sorts the suits into a fixed order.
+ *
+ * Estimates live in a memory-mapped, open-addressed file that later runs
+ * reuse, with an LRU cache of the most recent lookups in front of it. A
+ * deal found in neither is estimated by playing it out many times with
+ * GreedyStrategy in both seats, redealing the hidden cards each time, and
+ * is then written to both. The file has a fixed capacity; once it is three
+ * quarters full, new estimates are still cached but no longer stored.
+ *
+ * Lookups are synchronized, so one table can serve every thread.
+ */
+public class EquityTable implements AutoCloseable {
+  public static final long MAGIC = 0x31595449555145L; // "EQUITY1" little-endian
+  public static final int DEFAULT_CAPACITY = 1 << 20; // 16 MB file
+  public static final int DEFAULT_CACHE_SIZE = 1 << 16;
+  public static final int DEFAULT_GAMES = 400; // Games per estimate, about 2.5% standard error
+  public static final int HAND_SIZE = 7;
+
+  private static final int HEADER_SIZE = 16;
+  private static final int ENTRY_SIZE = 16; // key, half points, games
+  private static final long OCCUPIED = 1L << 63; // Set in every stored key, so 0 marks an empty slot
+  private static final int MAX_TURNS = 500; // Greedy against Greedy can cycle; scored as a stalemate beyond this
+  private static final long SUIT_BITS = (1L << Cards.RANK_COUNT) - 1;
+
+  /**
+   * Least-recently-used map from keys to equities, in flat arrays.
+   * Slots form a doubly linked list from most to least recently used, and
+   * a linear-probing index finds a key's slot.
+   */
+  static class LruCache {
+    private final long[] keys;
+    private final double[] values;
+    private final int[] prev;
+    private final int[] next;
+    private final int[] index; // Slot + 1, or 0 if empty
+    private final int indexMask;
+    private int size;
+    private int head = -1; // Most recently used
+    private int tail = -1; // Least recently used
+
+    LruCache(int capacity) {
+      keys = new long[capacity];
+      values = new double[capacity];
+      prev = new int[capacity];
+      next = new int[capacity];
+      index = new int[Integer.highestOneBit(Math.max(1, capacity)) << 2]; // At most half full
+      indexMask = index.length - 1;
+    }
+
+    private int Home(long key) {
+      return (int) (TournamentRunner.MixSeed(key, 0) & indexMask);
+    }
+
+    private int Find(long key) {
+      for (int i = Home(key); index[i] != 0; i = (i + 1) & indexMask) {
+        if (keys[index[i] - 1] == key) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    private void Unlink(int slot) {
+      if (prev[slot] >= 0) {
+        next[prev[slot]] = next[slot];
+      } else {
+        head = next[slot];
+      }
+      if (next[slot] >= 0) {
+        prev[next[slot]] = prev[slot];
+      } else {
+        tail = prev[slot];
+      }
+    }
+
+    private void PushFront(int slot) {
+      prev[slot] = -1;
+      next[slot] = head;
+      if (head >= 0) {
+        prev[head] = slot;
+      }
+      head = slot;
+      if (tail < 0) {
+        tail = slot;
+      }
+    }
+
+    /**
+     * Removes an index entry, shifting later entries of the probe run back.
+     * @param i Index position to empty
+     */
+    private void RemoveIndex(int i) {
+      index[i] = 0;
+      for (int j = (i + 1) & indexMask; index[j] != 0; j = (j + 1) & indexMask) {
+        int home = Home(keys[index[j] - 1]);
+        if (((j - home) & indexMask) >= ((j - i) & indexMask)) { // Entry may move back to i
+          index[i] = index[j];
+          index[j] = 0;
+          i = j;
+        }
+      }
+    }
+
+    /**
+     * Looks up a key and marks it most recently used.
+     * @param key The key
+     * @return The equity, or NaN if the key is not cached
+     */
+    double Get(long key) {
+      int i = Find(key);
+      if (i < 0) {
+        return Double.NaN;
+      }
+      int slot = index[i] - 1;
+      if (slot != head) {
+        Unlink(slot);
+        PushFront(slot);
+      }
+      return values[slot];
+    }
+
+    /**
+     * Adds a key that is not cached, evicting the least recently used one if full.
+     * @param key   The key
+     * @param value Its equity
+     */
+    void Put(long key, double value) {
+      if (keys.length == 0) {
+        return;
+      }
+      int slot;
+      if (size < keys.length) {
+        slot = size++;
+      } else {
+        slot = tail;
+        Unlink(slot);
+        RemoveIndex(Find(keys[slot]));
+      }
+      keys[slot] = key;
+      values[slot] = value;
+      PushFront(slot);
+      int i = Home(key);
+      while (index[i] != 0) {
+        i = (i + 1) & indexMask;
+      }
+      index[i] = slot + 1;
+    }
+  }
+
+  private FileChannel channel;
+  private MappedByteBuffer table;
+  private int capacity; // Entries in the file, a power of two
+  private int stored;
+  private LruCache cache;
+  private int gamesPerEstimate;
+  private long seed;
+  private GameSystem game;
+  private GameRunner runner;
+  private long[] hands = new long[2]; // The deal being estimated
+  private long cacheHits;
+  private long fileHits;
+  private long simulations;
+
+  /**
+   * Opens an equity table file, creating it if needed.
+   * @param file             The table file
+   * @param capacity         Entries in a new file (rounded up to a power of two); an existing file keeps its own
+   * @param cacheSize        Entries kept in memory
+   * @param gamesPerEstimate Games played to estimate a deal that is not stored
+   * @param seed             Seed for the simulations; a deal's games depend only on it and the deal
+   * @throws IOException if the file cannot be opened or is not an equity table
+   */
+  public EquityTable(Path file, int capacity, int cacheSize, int gamesPerEstimate, long seed) throws IOException {
+    if (capacity < 16 || capacity > 1 << 26) {
+      throw new IllegalArgumentException("Capacity must be 16 to " + (1 << 26) + " entries, not " + capacity);
+    }
+    channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    if (channel.size() > 0) {
+      MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+      header.order(ByteOrder.LITTLE_ENDIAN);
+      if (header.getLong(0) != MAGIC) {
+        channel.close();
+        throw new IOException(file + " is not an equity table");
+      }
+      this.capacity = header.getInt(8);
+    } else {
+      this.capacity = Integer.highestOneBit(capacity - 1) << 1;
+    }
+    table = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) this.capacity * ENTRY_SIZE);
+    table.order(ByteOrder.LITTLE_ENDIAN);
+    table.putLong(0, MAGIC);
+    table.putInt(8, this.capacity);
+    stored = table.getInt(12);
+
+    cache = new LruCache(cacheSize);
+    this.gamesPerEstimate = gamesPerEstimate;
+    this.seed = seed;
+    game = new GameSystem(seed);
+    game.SetMetrics(null);
+    runner = new GameRunner(game, new GreedyStrategy(), new GreedyStrategy());
+    runner.SetTurnLimit(MAX_TURNS);
+  }
+
+  /**
+   * Opens an equity table file with the default capacity, cache size and estimate size.
+   * @param file The table file
+   * @throws IOException if the file cannot be opened or is not an equity table
+   */
+  public EquityTable(Path file) throws IOException {
+    this(file, DEFAULT_CAPACITY, DEFAULT_CACHE_SIZE, DEFAULT_GAMES, 0);
+  }
+
+  // ========== HELPER METHODS ==========//
+  /**
+   * Returns the file offset of an entry.
+   * @param slot The entry's slot
+   * @return Byte offset in the table
+   */
+  private static int Offset(int slot) {
+    return HEADER_SIZE + slot * ENTRY_SIZE;
+  }
+
+  /**
+   * Finds a key's slot in the file, or the empty slot where it would go.
+   * @param key The stored key (with OCCUPIED set)
+   * @return The slot
+   */
+  private int Probe(long key) {
+    int mask = capacity - 1;
+    int slot = (int) (TournamentRunner.MixSeed(key, 1) & mask);
+    while (true) {
+      long found = table.getLong(Offset(slot));
+      if (found == key || found == 0) {
+        return slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  /**
+   * Estimates a deal by playing it out with the hidden cards redealt.
+   * @param key A canonical key
+   * @return Half points won by the hand (2 per win, 1 per stalemate)
+   */
+  private int Simulate(long key) {
+    long hand = key & ((1L << Cards.DECK_SIZE) - 1);
+    int top = (int) (key >>> Cards.DECK_SIZE & 63);
+    int seat = (int) (key >>> 58 & 1);
+
+    // The hand in its seat and any 7 other cards in the other one, for
+    // Determinize() to redeal with the deck before each game
+    long rest = ~hand & ~(1L << top) & ((1L << Cards.DECK_SIZE) - 1);
+    long other = 0;
+    for (int i = 0; i < HAND_SIZE; i++) {
+      other |= Long.lowestOneBit(rest & ~other);
+    }
+    hands[seat] = hand;
+    hands[1 - seat] = other;
+
+    game.SetSeed(TournamentRunner.MixSeed(seed, key));
+    int halfPoints = 0;
+    for (int g = 0; g < gamesPerEstimate; g++) {
+      game.DealPosition(hands, top, 0);
+      game.Determinize(seat);
+      int winner = runner.ContinueGame();
+      halfPoints += winner < 0 ? 1 : winner == seat ? 2 : 0;
+    }
+    simulations++;
+    return halfPoints;
+  }
+
+  // ========== PUBLIC METHODS ==========//
+
+  /**
+   * Returns the key shared by every suit renaming of a deal.
+   * The suits are sorted by the ranks held in them, a suit's ranks packed
+   * as 13 bits, with the top card's suit first among equals; the hand is
+   * then rebuilt in that suit order.
+   * @param hand     Mask of the 7 card ordinals in the hand (see Cards)
+   * @param topCard  Ordinal of the card turned face up (not wild, not in the hand)
+   * @param position 0 if the hand moves first, 1 if second
+   * @return The canonical key: hand in bits 0-51, top card in bits 52-57, position in bit 58
+   */
+  public static long CanonicalKey(long hand, int topCard, int position) {
+    if (Long.bitCount(hand) != HAND_SIZE || hand >>> Cards.DECK_SIZE != 0 || topCard < 0 || topCard >= Cards.DECK_SIZE
+        || (hand & 1L << topCard) != 0 || Cards.IsWild(topCard) || position < 0 || position > 1) {
+      throw new IllegalArgumentException("Not a two-player opening deal");
+    }
+    int topSuit = topCard / Cards.RANK_COUNT;
+    long[] suits = new long[Card.SUIT_COUNT];
+    for (int s = 0; s < Card.SUIT_COUNT; s++) {
+      suits[s] = (hand >>> (s * Cards.RANK_COUNT) & SUIT_BITS) << 1 | (s == topSuit ? 1 : 0);
+    }
+    // Sorting network for four values, largest first
+    long t;
+    if (suits[0] < suits[1]) { t = suits[0]; suits[0] = suits[1]; suits[1] = t; }
+    if (suits[2] < suits[3]) { t = suits[2]; suits[2] = suits[3]; suits[3] = t; }
+    if (suits[0] < suits[2]) { t = suits[0]; suits[0] = suits[2]; suits[2] = t; }
+    if (suits[1] < suits[3]) { t = suits[1]; suits[1] = suits[3]; suits[3] = t; }
+    if (suits[1] < suits[2]) { t = suits[1]; suits[1] = suits[2]; suits[2] = t; }
+
+    long key = 0;
+    int canonicalTop = 0;
+    for (int s = 0; s < Card.SUIT_COUNT; s++) {
+      key |= (suits[s] >>> 1) << (s * Cards.RANK_COUNT);
+      if ((suits[s] & 1) != 0) {
+        canonicalTop = s * Cards.RANK_COUNT + topCard % Cards.RANK_COUNT;
+      }
+    }
+    return key | (long) canonicalTop << Cards.DECK_SIZE | (long) position << 58;
+  }
+
+  /**
+   * Returns the estimated chance that a deal's hand wins.
+   * @param hand     Mask of the 7 card ordinals in the hand
+   * @param topCard  Ordinal of the card turned face up
+   * @param position 0 if the hand moves first, 1 if second
+   * @return Win probability, counting a stalemate as half a win
+   */
+  public synchronized double GetEquity(long hand, int topCard, int position) {
+    long key = CanonicalKey(hand, topCard, position);
+    double equity = cache.Get(key);
+    if (!Double.isNaN(equity)) {
+      cacheHits++;
+      return equity;
+    }
+
+    int slot = Probe(key | OCCUPIED);
+    int offset = Offset(slot);
+    if (table.getLong(offset) != 0) {
+      fileHits++;
+      equity = table.getInt(offset + 8) / (2.0 * table.getInt(offset + 12));
+    } else {
+      int halfPoints = Simulate(key);
+      equity = halfPoints / (2.0 * gamesPerEstimate);
+      if (stored < capacity - (capacity >>> 2)) {
+        table.putInt(offset + 8, halfPoints);
+        table.putInt(offset + 12, gamesPerEstimate);
+        table.putLong(offset, key | OCCUPIED); // Key last, so a half-written entry reads as empty
+        stored++;
+        table.putInt(12, stored);
+      }
+    }
+    cache.Put(key, equity);
+    return equity;
+  }
+
+  /**
+   * Returns the estimated chance that a player wins the game just dealt.
+   * Equities are simulated under the standard rules, so house-rule deals are refused.
+   * @param dealt A two-player, single-deck game under the standard rules, straight after InitializeGame()
+   * @param seat  The player's seat
+   * @return Win probability, counting a stalemate as half a win
+   * @throws IllegalArgumentException if the deal is for another table or other rules
+   */
+  public double GetEquity(GameSystem dealt, int seat) {
+    if (dealt.GetPlayerCount() != 2 || dealt.GetDeckCount() != 1) {
+      throw new IllegalArgumentException("Equities are for two-player, single-deck deals");
+    }
+    RuleSet rules = dealt.GetRules();
+    if (rules.GetVariants() != 0 || rules.GetHandSize(2) != HAND_SIZE) {
+      throw new IllegalArgumentException("Equities are simulated under the standard rules: 7-card hands and no card effects");
+    }
+    int position = seat == dealt.GetFirstPlayerIndex() ? 0 : 1;
+    return GetEquity(dealt.GetOpeningHand(seat), dealt.GetStartCard().GetOrdinal(), position);
+  }
+
+  /**
+   * Returns the number of deals stored in the file.
+   * @return Stored entries
+   */
+  public synchronized int GetStoredCount() {
+    return stored;
+  }
+
+  /**
+   * Returns the number of lookups answered from memory.
+   * @return Cache hits
+   */
+  public synchronized long GetCacheHits() {
+    return cacheHits;
+  }
+
+  /**
+   * Returns the number of lookups answered from the file.
+   * @return File hits
+   */
+  public synchronized long GetFileHits() {
+    return fileHits;
+  }
+
+  /**
+   * Returns the number of deals estimated by simulation.
+   * @return Simulated deals
+   */
+  public synchronized long GetSimulations() {
+    return simulations;
+  }
+
+  /**
+   * Writes the table out and closes the file.
+   * @throws IOException if the file cannot be written
+   */
+  public synchronized void close() throws IOException {
+    table.force();
+    channel.close();
+  }
+
+  /**
+   * Looks up the equity of random deals and reports where the answers came from.
+   * Usage: java EquityTable table-file [deals] [seed]
+   * @param args Table file, optional number of deals and seed
+   * @throws IOException if the table cannot be opened
+   */
+  public static void main(String[] args) throws IOException {
+    int deals = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+    long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+    try (EquityTable table = new EquityTable(Paths.get(args[0]))) {
+      GameSystem game = new GameSystem(seed);
+      game.SetMetrics(null);
+      double first = 0;
+      long start = System.nanoTime();
+      for (int i = 0; i < deals; i++) {
+        game.InitializeGame("Player 1", "Player 2");
+        first += table.GetEquity(game, game.GetFirstPlayerIndex());
+      }
+      double seconds = (System.nanoTime() - start) / 1e9;
+      System.out.printf("Deals        : %d, first player %.2f%% average equity%n", deals, 100 * first / deals);
+      System.out.printf("Answered by  : %d cache, %d file, %d simulations%n",
+          table.GetCacheHits(), table.GetFileHits(), table.GetSimulations());
+      System.out.printf("Stored deals : %d%n", table.GetStoredCount());
+      System.out.printf("Elapsed      : %.3f s (%.1f us per lookup)%n", seconds, seconds * 1e6 / deals);
+    }
+  }
+}
@@ -0,0 +1,304 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Plays Crazy Eights games between computer players without any console I/O.
+ * Runs the same turn loop as CrazyEightsMain, with PlayerStrategy decisions
+ * in place of the Displayer prompts.
+ */
+public class GameRunner {
+  // Finished games last under 1000 turns; two deterministic strategies can cycle forever
+  public static final int DEFAULT_TURN_LIMIT = 10000;
+
+  // A strategy that keeps choosing unplayable cards would otherwise loop forever
+  private static final int MAX_INVALID_SELECTIONS = 1000;
+  // Decisions between timed ones; reading the clock costs about as much as a fast strategy's choice
+  private static final int DECISION_SAMPLE_INTERVAL = 16;
+
+  private GameSystem game;
+  private PlayerStrategy[] strategies;
+  private String[] names;
+  private long gamesPlayed;
+  private long turnsPlayed;
+  private long stalemates;
+  private long invalidSelections;
+  private long[] wins;
+  private int[] matchScores;
+  private int lastGameTurns;
+  private int turnLimit = DEFAULT_TURN_LIMIT; // 0 for no limit
+  private int untimedDecisions;
+
+  /**
+   * Creates a runner for two computer players.
+   * @param strategy1 Strategy for the first player
+   * @param strategy2 Strategy for the second player
+   */
+  public GameRunner(PlayerStrategy strategy1, PlayerStrategy strategy2) {
+    this(new GameSystem(), strategy1, strategy2);
+  }
+
+  /**
+   * Creates a runner for two computer players with seeded shuffles.
+   * @param seed      Seed for the game system's shuffles
+   * @param strategy1 Strategy for the first player
+   * @param strategy2 Strategy for the second player
+   */
+  public GameRunner(long seed, PlayerStrategy strategy1, PlayerStrategy strategy2) {
+    this(new GameSystem(seed), strategy1, strategy2);
+  }
+
+  /**
+   * Creates a runner for a game system with any number of players or decks.
+   * @param game       The game system to play in
+   * @param strategies Strategy for each player, one per seat
+   */
+  public GameRunner(GameSystem game, PlayerStrategy... strategies) {
+    if (strategies.length != game.GetPlayerCount()) {
+      throw new IllegalArgumentException("Expected " + game.GetPlayerCount() + " strategies, got " + strategies.length);
+    }
+    this.game = game;
+    this.strategies = strategies;
+    names = new String[strategies.length];
+    for (int i = 0; i < names.length; i++) {
+      names[i] = "Player " + (i + 1);
+    }
+    wins = new long[strategies.length];
+    matchScores = new int[strategies.length];
+  }
+
+  /**
+   * Plays one full game.
+   * @return Index of the winning player, or -1 if no cards were left to draw
+   */
+  public int PlayGame() {
+    game.InitializeGame(names);
+    return ContinueGame();
+  }
+
+  /**
+   * Plays the game in the game system from its current position to the end.
+   * Used to play out a position restored with ReadSnapshot(); counts as one game.
+   * @return Index of the winning player, or -1 if no cards were left to draw
+   */
+  public int ContinueGame() {
+    gamesPlayed++;
+    lastGameTurns = 0;
+
+    while (!game.IsGameOver()) {
+      int seat = game.GetCurrentPlayerIndex();
+      Player currPlayer = game.GetCurrentPlayer();
+      PlayerStrategy strategy = strategies[seat];
+      boolean turnEnd = false;
+      int invalid = 0;
+
+      while (!turnEnd && !game.IsGameOver()) {
+        if (game.HasPlayableCards(currPlayer)) {
+          EngineMetrics.Recorder recorder = game.GetMetricsRecorder();
+          boolean timed = recorder != null && ++untimedDecisions >= DECISION_SAMPLE_INTERVAL;
+          long start = timed ? System.nanoTime() : 0;
+          int index = strategy.SelectCard(game, currPlayer);
+          if (game.IsValidPlay(currPlayer, index)) {
+            int nextSuitIfWild = -1;
+            if (Cards.IsWild(currPlayer.GetCard(index).GetOrdinal())) {
+              nextSuitIfWild = strategy.SelectSuit(game, currPlayer);
+            }
+            if (timed) {
+              recorder.Decision(seat, System.nanoTime() - start);
+              untimedDecisions = 0;
+            }
+            game.PlayCard(currPlayer, index, nextSuitIfWild);
+            turnEnd = true;
+          } else {
+            invalidSelections++;
+            if (recorder != null) {
+              recorder.InvalidSelection();
+            }
+            if (++invalid >= MAX_INVALID_SELECTIONS) {
+              throw new IllegalStateException("Strategy for player " + (seat + 1) + " keeps selecting invalid cards");
+            }
+          }
+        } else {
+          Card drawn = game.DrawCard();
+          if (drawn == null) { // Deck and discard pile are both exhausted, so the game is a stalemate
+            stalemates++;
+            turnsPlayed++;
+            lastGameTurns++;
+            return -1;
+          }
+          currPlayer.AddCard(drawn);
+        }
+      }
+
+      turnsPlayed++;
+      lastGameTurns++;
+      if (lastGameTurns == turnLimit && !game.IsGameOver()) {
+        game.SetGameOver(true); // Scored as a stalemate below
+      }
+      if (!game.IsGameOver()) {
+        game.SwitchTurn(); // A draw-two with no cards left can end the game here
+      }
+    }
+
+    int winner = game.GetWinnerIndex();
+    if (winner < 0) {
+      stalemates++;
+      return -1;
+    }
+    wins[winner]++;
+    return winner;
+  }
+
+  /**
+   * Plays games until a player reaches the rules' match target.
+   * The winner of each game scores the points left in the other hands
+   * (see GetPlayerPoints()); a stalemate scores nothing.
+   * @return Index of the player who won the match
+   */
+  public int PlayMatch() {
+    int target = game.GetRules().GetMatchTarget();
+    if (target == 0) {
+      throw new IllegalStateException("The rules in play have no match target");
+    }
+    for (int i = 0; i < matchScores.length; i++) {
+      matchScores[i] = 0;
+    }
+    while (true) {
+      int winner = PlayGame();
+      if (winner < 0) {
+        continue;
+      }
+      for (int i = 0; i < matchScores.length; i++) {
+        if (i != winner) {
+          matchScores[winner] += game.GetPlayerPoints(i);
+        }
+      }
+      if (matchScores[winner] >= target) {
+        return winner;
+      }
+    }
+  }
+
+  /**
+   * Plays one full game with shuffles determined by the given seed.
+   * @param seed Seed for the game's shuffles
+   * @return Index of the winning player, or -1 if no cards were left to draw
+   */
+  public int PlayGame(long seed) {
+    game.SetSeed(seed);
+    return PlayGame();
+  }
+
+  /**
+   * Limits the number of turns in each game; a game still going at the
+   * limit is stopped and counted as a stalemate. Two deterministic
+   * strategies can pass cards back and forth forever, even from an
+   * ordinary random deal (Greedy against Greedy does about once in 25,000
+   * deals), so every runner starts with DEFAULT_TURN_LIMIT, far above the
+   * length of any finished game.
+   * @param turns Turns per game, or 0 for no limit
+   */
+  public void SetTurnLimit(int turns) {
+    if (turns < 0) {
+      throw new IllegalArgumentException("Turn limit must not be negative, not " + turns);
+    }
+    turnLimit = turns;
+  }
+
+  /**
+   * Returns the game system used by this runner.
+   * @return The game system
+   */
+  public GameSystem GetGame() {
+    return game;
+  }
+
+  /**
+   * Returns the number of games played.
+   * @return Games played so far
+   */
+  public long GetGamesPlayed() {
+    return gamesPlayed;
+  }
+
+  /**
+   * Returns the number of turns played across all games.
+   * @return Turns played so far
+   */
+  public long GetTurnsPlayed() {
+    return turnsPlayed;
+  }
+
+  /**
+   * Returns the number of turns in the most recent game.
+   * @return Turns played in the last game
+   */
+  public int GetLastGameTurns() {
+    return lastGameTurns;
+  }
+
+  /**
+   * Returns the number of games that ended with no cards left to draw.
+   * @return Stalemated games so far
+   */
+  public long GetStalemates() {
+    return stalemates;
+  }
+
+  /**
+   * Returns the number of invalid card selections made by the strategies.
+   * @return Invalid selections so far
+   */
+  public long GetInvalidSelections() {
+    return invalidSelections;
+  }
+
+  /**
+   * Returns a player's score in the current or most recent match.
+   * @param playerIndex Index of player (0 for the first player)
+   * @return Points scored in the match
+   */
+  public int GetMatchScore(int playerIndex) {
+    return matchScores[playerIndex];
+  }
+
+  /**
+   * Returns the number of games won by the given player.
+   * @param playerIndex Index of player (0 for the first player)
+   * @return Games won by that player
+   */
+  public long GetWins(int playerIndex) {
+    return wins[playerIndex];
+  }
+
+  /**
+   * Runs a batch of headless games and reports throughput.
+   * Usage: java GameRunner [games] [seed] [journal-file]
+   * @param args Optional number of games, random seed and file to record the games to
+   * @throws IOException if the journal file cannot be written
+   */
+  public static void main(String[] args) throws IOException {
+    EngineMetrics.Register();
+    long games = args.length > 0 ? Long.parseLong(args[0]) : 100000;
+    long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+    MoveJournal journal = args.length > 2 ? new MoveJournal(Paths.get(args[2])) : null;
+
+    GameRunner runner = new GameRunner(seed, new GreedyStrategy(), new RandomStrategy(seed));
+    runner.GetGame().SetJournal(journal);
+    long start = System.nanoTime();
+    for (long i = 0; i < games; i++) {
+      runner.PlayGame();
+    }
+    runner.GetGame().FlushMetrics();
+    double seconds = (System.nanoTime() - start) / 1e9;
+
+    System.out.printf("Games played : %d (%d stalemates)%n", runner.GetGamesPlayed(), runner.GetStalemates());
+    System.out.printf("Wins         : Greedy %d, Random %d%n", runner.GetWins(0), runner.GetWins(1));
+    System.out.printf("Elapsed      : %.3f s%n", seconds);
+    System.out.printf("Games/sec    : %.0f%n", runner.GetGamesPlayed() / seconds);
+    System.out.printf("Turns/sec    : %.0f%n", runner.GetTurnsPlayed() / seconds);
+    if (journal != null) {
+      System.out.printf("Journal      : %d events, %.0f events/sec%n", journal.GetEventCount(), journal.GetEventCount() / seconds);
+      journal.close();
+    }
+  }
+}
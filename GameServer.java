@@ -0,0 +1,480 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Hosts many Crazy Eights tables in one JVM over a line-based TCP protocol.
+ * A single thread serves every connection through a NIO selector; each
+ * table is a ServerTable state machine that only runs when one of its
+ * players sends a command, so an idle table costs about a kilobyte, mostly
+ * its dealt game, and no thread. Tables and lobby connections that stay idle are evicted.
+ *
+ * Client commands (one per line):
+ * JOIN name (play the next player who joins), SOLO name (play the computer),
+ * PLAY n [S|H|C|D] (play card n of the hand, naming a suit for an 8), QUIT.
+ * Server messages: WAITING, START seat opponent, TOP card suit, HAND cards...,
+ * TURN, INVALID, DRAW card, OPPONENT DRAW, RESHUFFLE, PLAYED seat card suit,
+ * GAMEOVER WIN|LOSE|STALEMATE points opponent-points, BYE reason, ERROR message.
+ * Cards are sent as rank and suit letter (eg: "10H", "QS").
+ */
+public class GameServer {
+  public static final int DEFAULT_PORT = 8888;
+  public static final long DEFAULT_IDLE_MILLIS = 300000; // 5 minutes
+
+  private static final int MAX_LINE_LENGTH = 256;
+  private static final long SWEEP_NANOS = 1000000000L; // Check for idle tables once a second
+
+  private Selector selector;
+  private ServerSocketChannel server;
+  private long idleNanos;
+  private RandomSource random;
+  private PlayerStrategy computer;
+  private Set<ServerTable> tables;
+  private Set<Connection> lobby; // Connections not at a table
+  private Connection waiting; // Player waiting for an opponent
+  private List<Connection> pending; // Connections with output to flush
+  private long lastSweep;
+  private volatile boolean running;
+  private volatile int tableCount;
+  private volatile int connectionCount;
+  private volatile long gamesStarted;
+
+  /**
+   * One client connection.
+   * Output is queued in a buffer and written when the current event has been handled.
+   */
+  static class Connection {
+    final GameServer server;
+    final SocketChannel channel;
+    SelectionKey key;
+    ByteBuffer in = ByteBuffer.allocate(MAX_LINE_LENGTH);
+    ByteBuffer out = ByteBuffer.allocate(128);
+    String name = "Player";
+    ServerTable table;
+    int seat;
+    long lastActivity;
+    boolean queued;
+
+    Connection(GameServer server, SocketChannel channel) {
+      this.server = server;
+      this.channel = channel;
+    }
+
+    /**
+     * Queues a line to send to the client.
+     * @param line The line, without a line break (ASCII)
+     */
+    void Send(String line) {
+      if (out.remaining() < line.length() + 1) {
+        ByteBuffer grown = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + line.length() + 1));
+        out.flip();
+        grown.put(out);
+        out = grown;
+      }
+      for (int i = 0; i < line.length(); i++) {
+        out.put((byte) line.charAt(i));
+      }
+      out.put((byte) '\n');
+      if (!queued) {
+        queued = true;
+        server.pending.add(this);
+      }
+    }
+  }
+
+  /**
+   * Opens a server on the given port.
+   * @param port       TCP port to listen on (0 for any free port)
+   * @param idleMillis Milliseconds without a move before a table or lobby connection is evicted
+   * @param seed       Seed for the tables' shuffles
+   * @throws IOException if the port cannot be opened
+   */
+  public GameServer(int port, long idleMillis, long seed) throws IOException {
+    selector = Selector.open();
+    server = ServerSocketChannel.open();
+    server.bind(new InetSocketAddress(port), 1024);
+    server.configureBlocking(false);
+    server.register(selector, SelectionKey.OP_ACCEPT);
+    idleNanos = idleMillis * 1000000L;
+    random = new Xoroshiro128PlusPlus(seed);
+    computer = new GreedyStrategy();
+    tables = new HashSet<ServerTable>();
+    lobby = new HashSet<Connection>();
+    pending = new ArrayList<Connection>();
+  }
+
+  // ========== HELPER METHODS ==========//
+  /**
+   * Accepts every waiting connection.
+   */
+  private void Accept() throws IOException {
+    SocketChannel channel;
+    while ((channel = server.accept()) != null) {
+      channel.configureBlocking(false);
+      channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+      Connection connection = new Connection(this, channel);
+      connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+      connection.lastActivity = System.nanoTime();
+      lobby.add(connection);
+      connectionCount++;
+    }
+  }
+
+  /**
+   * Reads from a connection and handles each complete line.
+   * @param connection The connection to read from
+   */
+  private void Read(Connection connection) throws IOException {
+    int read = connection.channel.read(connection.in);
+    if (read < 0) {
+      Close(connection, "Disconnected");
+      return;
+    }
+    connection.lastActivity = System.nanoTime();
+    ByteBuffer in = connection.in;
+    int start = 0;
+    for (int i = 0; i < in.position(); i++) {
+      if (in.get(i) == '\n') {
+        int end = i > start && in.get(i - 1) == '\r' ? i - 1 : i;
+        char[] chars = new char[end - start];
+        for (int j = start; j < end; j++) {
+          chars[j - start] = (char) (in.get(j) & 0x7F);
+        }
+        start = i + 1;
+        Handle(connection, new String(chars));
+        if (!connection.channel.isOpen()) {
+          return;
+        }
+      }
+    }
+    in.limit(in.position()).position(start);
+    in.compact();
+    if (!in.hasRemaining()) {
+      connection.Send("ERROR Line too long");
+      Close(connection, "Line too long");
+    }
+  }
+
+  /**
+   * Handles one command from a client.
+   * @param connection The client's connection
+   * @param line       The command line
+   */
+  private void Handle(Connection connection, String line) {
+    line = line.trim();
+    int space = line.indexOf(' ');
+    String command = (space < 0 ? line : line.substring(0, space)).toUpperCase();
+    String argument = space < 0 ? "" : line.substring(space + 1).trim();
+    switch (command) {
+      case "JOIN":
+      case "SOLO":
+        if (connection.table != null) {
+          connection.Send("ERROR Already at a table");
+          return;
+        }
+        if (!argument.isEmpty()) {
+          connection.name = argument.replace(' ', '_');
+        }
+        if (command.equals("SOLO")) {
+          if (waiting == connection) {
+            waiting = null;
+          }
+          StartTable(connection, null);
+        } else if (waiting != null && waiting != connection) {
+          Connection opponent = waiting;
+          waiting = null;
+          StartTable(opponent, connection);
+        } else {
+          waiting = connection;
+          connection.Send("WAITING");
+        }
+        break;
+      case "PLAY":
+        if (connection.table == null) {
+          connection.Send("ERROR Not at a table");
+          return;
+        }
+        String[] parts = argument.split(" +");
+        int index;
+        try {
+          index = Integer.parseInt(parts[0]) - 1; // Cards are numbered from 1, as on the console
+        } catch (NumberFormatException e) {
+          connection.Send("INVALID");
+          connection.Send("TURN");
+          return;
+        }
+        ServerTable table = connection.table;
+        table.OnPlay(connection, index, parts.length > 1 ? ServerTable.ParseSuit(parts[1]) : -1);
+        if (table.IsFinished()) {
+          RemoveTable(table);
+        }
+        break;
+      case "QUIT":
+        Close(connection, "Opponent left");
+        break;
+      default:
+        connection.Send("ERROR Unknown command " + command);
+    }
+  }
+
+  /**
+   * Seats players at a new table and deals.
+   * @param seat1 First player
+   * @param seat2 Second player, or null to play the computer
+   */
+  private void StartTable(Connection seat1, Connection seat2) {
+    ServerTable table = new ServerTable(seat1, seat2, random.NextLong(), computer);
+    lobby.remove(seat1);
+    if (seat2 != null) {
+      lobby.remove(seat2);
+    }
+    tables.add(table);
+    gamesStarted++;
+    table.Start();
+    if (table.IsFinished()) { // Possible if the computer won without the player choosing anything
+      RemoveTable(table);
+    }
+    tableCount = tables.size();
+  }
+
+  /**
+   * Removes a finished table and returns its connected players to the lobby.
+   * @param table The table
+   */
+  private void RemoveTable(ServerTable table) {
+    tables.remove(table);
+    for (int i = 0; i < 2; i++) {
+      Connection seat = table.GetSeat(i);
+      if (seat != null && seat.channel.isOpen()) {
+        seat.lastActivity = System.nanoTime();
+        lobby.add(seat);
+      }
+    }
+    tableCount = tables.size();
+  }
+
+  /**
+   * Closes a connection, ending its table if it was at one.
+   * @param connection The connection to close
+   * @param reason     Reason given to the opponent
+   */
+  private void Close(Connection connection, String reason) {
+    if (!connection.channel.isOpen()) {
+      return;
+    }
+    try { // Last words, if the socket takes them
+      connection.out.flip();
+      connection.channel.write(connection.out);
+    } catch (IOException e) {
+      // Closing anyway
+    }
+    connection.out.clear();
+    ServerTable table = connection.table;
+    if (table != null) {
+      table.Abandon(connection, reason);
+      RemoveTable(table);
+    }
+    if (waiting == connection) {
+      waiting = null;
+    }
+    lobby.remove(connection);
+    connection.key.cancel();
+    try {
+      connection.channel.close();
+    } catch (IOException e) {
+      // Already gone
+    }
+    connectionCount--;
+  }
+
+  /**
+   * Writes as much queued output as the socket accepts.
+   * Anything left is written when the socket is ready again.
+   * @param connection The connection to flush
+   */
+  private void Flush(Connection connection) {
+    connection.queued = false;
+    if (connection.out.position() == 0 || !connection.channel.isOpen()) {
+      return;
+    }
+    try {
+      connection.out.flip();
+      connection.channel.write(connection.out);
+      connection.out.compact();
+      connection.key.interestOps(connection.out.position() > 0
+          ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+    } catch (IOException e) {
+      connection.out.clear();
+      Close(connection, "Disconnected");
+    }
+  }
+
+  /**
+   * Evicts tables and lobby connections that have been idle too long.
+   * The players at an idle table are disconnected.
+   */
+  private void Sweep() {
+    long now = System.nanoTime();
+    List<Connection> idle = new ArrayList<Connection>();
+    for (ServerTable table : tables) {
+      if (now - table.GetLastActivity() > idleNanos) {
+        for (int i = 0; i < 2; i++) {
+          if (table.GetSeat(i) != null) {
+            idle.add(table.GetSeat(i));
+          }
+        }
+      }
+    }
+    for (Connection connection : lobby) {
+      if (now - connection.lastActivity > idleNanos) {
+        idle.add(connection);
+      }
+    }
+    for (Connection connection : idle) {
+      connection.Send("BYE Idle");
+      Close(connection, "Idle");
+    }
+  }
+
+  // ========== PUBLIC METHODS ==========//
+
+  /**
+   * Serves clients until Stop() is called.
+   * @throws IOException if the selector fails
+   */
+  public void Run() throws IOException {
+    running = true;
+    lastSweep = System.nanoTime();
+    while (running) {
+      selector.select(SWEEP_NANOS / 1000000);
+      Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+      while (keys.hasNext()) {
+        SelectionKey key = keys.next();
+        keys.remove();
+        if (!key.isValid()) {
+          continue;
+        }
+        if (key.isAcceptable()) {
+          Accept();
+          continue;
+        }
+        Connection connection = (Connection) key.attachment();
+        try {
+          if (key.isWritable()) {
+            Flush(connection);
+          }
+          if (key.isValid() && key.isReadable()) {
+            Read(connection);
+          }
+        } catch (IOException | RuntimeException e) { // One bad table or client must not stop the others
+          Close(connection, "Server error");
+        }
+      }
+      for (int i = 0; i < pending.size(); i++) {
+        Flush(pending.get(i));
+      }
+      pending.clear();
+      if (System.nanoTime() - lastSweep > SWEEP_NANOS) {
+        lastSweep = System.nanoTime();
+        Sweep();
+        for (int i = 0; i < pending.size(); i++) {
+          Flush(pending.get(i));
+        }
+        pending.clear();
+      }
+    }
+    for (Connection connection : new ArrayList<Connection>(lobby)) {
+      Close(connection, "Server stopped");
+    }
+    for (ServerTable table : new ArrayList<ServerTable>(tables)) {
+      for (int i = 0; i < 2; i++) {
+        if (table.GetSeat(i) != null) {
+          Close(table.GetSeat(i), "Server stopped");
+        }
+      }
+    }
+    server.close();
+    selector.close();
+  }
+
+  /**
+   * Asks the server loop to stop. Safe to call from any thread.
+   */
+  public void Stop() {
+    running = false;
+    selector.wakeup();
+  }
+
+  /**
+   * Returns the port the server is listening on.
+   * @return The TCP port
+   * @throws IOException if the port cannot be read
+   */
+  public int GetPort() throws IOException {
+    return ((InetSocketAddress) server.getLocalAddress()).getPort();
+  }
+
+  /**
+   * Returns the number of tables with a game in progress.
+   * @return Active tables
+   */
+  public int GetTableCount() {
+    return tableCount;
+  }
+
+  /**
+   * Returns the number of open client connections.
+   * @return Open connections
+   */
+  public int GetConnectionCount() {
+    return connectionCount;
+  }
+
+  /**
+   * Returns the number of games started since the server opened.
+   * @return Games started
+   */
+  public long GetGamesStarted() {
+    return gamesStarted;
+  }
+
+  /**
+   * Runs a server and prints its load every ten seconds.
+   * Usage: java GameServer [port] [idle-seconds]
+   * @param args Optional port and idle timeout in seconds
+   * @throws IOException if the server cannot be started
+   */
+  public static void main(String[] args) throws IOException {
+    EngineMetrics.Register();
+    int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+    long idleMillis = args.length > 1 ? Long.parseLong(args[1]) * 1000 : DEFAULT_IDLE_MILLIS;
+    GameServer gameServer = new GameServer(port, idleMillis, System.nanoTime());
+    Thread status = new Thread(() -> {
+      Runtime runtime = Runtime.getRuntime();
+      while (true) {
+        try {
+          Thread.sleep(10000);
+        } catch (InterruptedException e) {
+          return;
+        }
+        System.out.printf("Tables: %d, connections: %d, games started: %d, heap used: %d MB%n",
+            gameServer.GetTableCount(), gameServer.GetConnectionCount(), gameServer.GetGamesStarted(),
+            (runtime.totalMemory() - runtime.freeMemory()) >> 20);
+      }
+    });
+    status.setDaemon(true);
+    status.start();
+    System.out.println("Crazy Eights server listening on port " + gameServer.GetPort());
+    gameServer.Run();
+  }
+}
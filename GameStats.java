@@ -0,0 +1,256 @@
+/**
+ * Fixed-size summary of any number of finished games.
+ * Nothing is kept per game: each statistic is a set of counters, so a
+ * summary uses the same memory after a billion games as after one. Each
+ * thread fills its own summary and the summaries are merged into a total,
+ * which gives the same result however the games were split.
+ *
+ * Seats are counted in turn order from the player who moved first, so
+ * position 0 is always the first player, whichever seat they sat in.
+ */
+public class GameStats {
+  public static final int MAX_TRACKED_TURNS = 1023; // Longer games share the last bucket
+  public static final int MAX_TRACKED_POINTS = 511;
+  public static final int MAX_TRACKED_RESHUFFLES = 63;
+
+  /**
+   * Counts of small non-negative values, one bucket per value.
+   * Values above the last bucket are counted in it, but the sum and the
+   * largest value stay exact.
+   */
+  public static class Distribution {
+    private final long[] counts;
+    private long count;
+    private long sum;
+    private long sumSquares;
+    private long max;
+
+    /**
+     * Creates an empty distribution.
+     * @param maxTracked Largest value with a bucket of its own
+     */
+    Distribution(int maxTracked) {
+      counts = new long[maxTracked + 1];
+    }
+
+    /**
+     * Records one value.
+     * @param value The value (negative values count as 0)
+     */
+    void Record(int value) {
+      value = Math.max(0, value);
+      counts[Math.min(value, counts.length - 1)]++;
+      count++;
+      sum += value;
+      sumSquares += (long) value * value;
+      max = Math.max(max, value);
+    }
+
+    /**
+     * Adds another distribution's counts into this one.
+     * @param other A distribution with the same buckets
+     */
+    void Merge(Distribution other) {
+      for (int i = 0; i < counts.length; i++) {
+        counts[i] += other.counts[i];
+      }
+      count += other.count;
+      sum += other.sum;
+      sumSquares += other.sumSquares;
+      max = Math.max(max, other.max);
+    }
+
+    /**
+     * Returns the number of values recorded.
+     * @return Values recorded
+     */
+    public long GetCount() {
+      return count;
+    }
+
+    /**
+     * Returns how many times a value was recorded.
+     * @param value The value
+     * @return Times it was recorded; the last bucket also counts every larger value
+     */
+    public long GetCount(int value) {
+      return value < 0 || value >= counts.length ? 0 : counts[value];
+    }
+
+    /**
+     * Returns the mean of the values.
+     * @return The mean, or 0 if nothing was recorded
+     */
+    public double GetMean() {
+      return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Returns the standard deviation of the values.
+     * @return The standard deviation, or 0 if nothing was recorded
+     */
+    public double GetStdDev() {
+      if (count == 0) {
+        return 0;
+      }
+      double mean = (double) sum / count;
+      return Math.sqrt(Math.max(0, (double) sumSquares / count - mean * mean));
+    }
+
+    /**
+     * Returns the largest value recorded.
+     * @return The largest value, or 0 if nothing was recorded
+     */
+    public long GetMax() {
+      return max;
+    }
+
+    /**
+     * Returns the smallest value with at least the given fraction of values at or below it.
+     * @param fraction Fraction of the values (0.5 for the median)
+     * @return The value, which is the last bucket's if the answer lies beyond it
+     */
+    public int GetPercentile(double fraction) {
+      long target = (long) Math.ceil(fraction * count);
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= target && seen > 0) {
+          return i;
+        }
+      }
+      return 0;
+    }
+  }
+
+  private long games;
+  private long stalemates;
+  private long[] winsByPosition = new long[GameSystem.MAX_PLAYERS];
+  private long[] gamesByStartSuit = new long[Card.SUIT_COUNT];
+  private long[][] winsByStartSuit = new long[Card.SUIT_COUNT][GameSystem.MAX_PLAYERS]; // Indexed by suit, then position
+  private Distribution turns = new Distribution(MAX_TRACKED_TURNS);
+  private Distribution loserPoints = new Distribution(MAX_TRACKED_POINTS);
+  private Distribution reshuffles = new Distribution(MAX_TRACKED_RESHUFFLES);
+
+  // ========== PUBLIC METHODS ==========//
+
+  /**
+   * Records a finished game.
+   * Reads everything but the turn count from the game system, so call it
+   * before the next game is dealt.
+   * @param game      The finished game
+   * @param turnCount Number of turns played
+   */
+  public void Add(GameSystem game, int turnCount) {
+    games++;
+    turns.Record(turnCount);
+    reshuffles.Record(game.GetReshuffleCount());
+    int suit = game.GetStartCard().GetSuitIndex();
+    gamesByStartSuit[suit]++;
+
+    int winner = game.GetWinnerIndex();
+    if (winner < 0) {
+      stalemates++;
+      return;
+    }
+    int players = game.GetPlayerCount();
+    int position = (winner - game.GetFirstPlayerIndex() + players) % players;
+    winsByPosition[position]++;
+    winsByStartSuit[suit][position]++;
+    for (int i = 0; i < players; i++) {
+      if (i != winner) {
+        loserPoints.Record(game.GetPlayerPoints(i));
+      }
+    }
+  }
+
+  /**
+   * Adds another summary's counts into this one.
+   * @param other The summary to merge in
+   */
+  public void Merge(GameStats other) {
+    games += other.games;
+    stalemates += other.stalemates;
+    for (int p = 0; p < winsByPosition.length; p++) {
+      winsByPosition[p] += other.winsByPosition[p];
+    }
+    for (int s = 0; s < Card.SUIT_COUNT; s++) {
+      gamesByStartSuit[s] += other.gamesByStartSuit[s];
+      for (int p = 0; p < GameSystem.MAX_PLAYERS; p++) {
+        winsByStartSuit[s][p] += other.winsByStartSuit[s][p];
+      }
+    }
+    turns.Merge(other.turns);
+    loserPoints.Merge(other.loserPoints);
+    reshuffles.Merge(other.reshuffles);
+  }
+
+  /**
+   * Returns the number of games recorded.
+   * @return Games recorded
+   */
+  public long GetGames() {
+    return games;
+  }
+
+  /**
+   * Returns the number of games that ended without a winner.
+   * @return Stalemated games
+   */
+  public long GetStalemates() {
+    return stalemates;
+  }
+
+  /**
+   * Returns how often the player at a position in turn order won.
+   * @param position Position from the first player (0 for the player who moved first)
+   * @return Fraction of all games won from that position
+   */
+  public double GetWinRate(int position) {
+    return games == 0 ? 0 : (double) winsByPosition[position] / games;
+  }
+
+  /**
+   * Returns the number of games whose first face-up card was of a suit.
+   * @param suit The suit index
+   * @return Games started on that suit
+   */
+  public long GetStartSuitGames(int suit) {
+    return gamesByStartSuit[suit];
+  }
+
+  /**
+   * Returns how often a position in turn order won when the first face-up card was of a suit.
+   * @param suit     The suit index
+   * @param position Position from the first player
+   * @return Fraction of the games started on that suit won from that position
+   */
+  public double GetStartSuitWinRate(int suit, int position) {
+    return gamesByStartSuit[suit] == 0 ? 0 : (double) winsByStartSuit[suit][position] / gamesByStartSuit[suit];
+  }
+
+  /**
+   * Returns the distribution of game length.
+   * @return Turns per game
+   */
+  public Distribution GetTurns() {
+    return turns;
+  }
+
+  /**
+   * Returns the distribution of points left in losing hands.
+   * Every player but the winner counts as a loser; stalemates are left out.
+   * @return GetHandPoints() of each losing hand
+   */
+  public Distribution GetLoserPoints() {
+    return loserPoints;
+  }
+
+  /**
+   * Returns the distribution of reshuffles per game.
+   * @return Reshuffles per game
+   */
+  public Distribution GetReshuffles() {
+    return reshuffles;
+  }
+}
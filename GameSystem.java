@@ -1,20 +1,100 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
 /**
  * Controls the core game logic for Crazy Eights.
  * Manages the deck, discard pile, and game state.
+ * A game system seats 2 to 8 players and deals from 1 to 4 decks shuffled
+ * together; turn order comes from a TurnOrder.
+ * Each game system owns its random source, so separate instances can run
+ * on separate threads and a seeded game always deals the same cards.
+ *
+ * The deck is kept unshuffled: each draw swaps a uniformly random card to
+ * the top and takes it, which deals the same odds as shuffling up front but
+ * only pays for the cards actually drawn. Reshuffling an empty deck is then
+ * just a swap of the deck and discard arrays. When the deck and discard pile
+ * are both exhausted the game ends as a stalemate (see IsStalemate()).
  */
 public class GameSystem {
+  public static final int MIN_PLAYERS = 2;
+  public static final int MAX_PLAYERS = 8;
+  public static final int MAX_DECKS = 4;
+
+  // Moves are packed as card ordinal * 4 + suit: the suit a card keeps, or
+  // the suit named for a wild card. Drawing is the one move past the cards.
+  public static final int DRAW_MOVE = Cards.DECK_SIZE * Card.SUIT_COUNT;
+  public static final int MOVE_COUNT = DRAW_MOVE + 1; // Distinct moves, so a move can index an array
+  public static final int MAX_MOVES = 31; // 15 non-wild cards match the top card, plus 4 suits for each of 4 wild cards
+
+  // Snapshot layout: magic, version, player count, deck count, flags (bit 0
+  // game over, bit 1 play reversed, bits 2-4 effect of the last card played,
+  // see RuleSet), current player, current suit (0xFF if
+  // none), current rank, deck size, discard size, ordered deck cards, one
+  // hand size per player, then one byte per card ordinal for the deck
+  // (bottom first), discard pile (bottom first) and each player's hand.
+  public static final int SNAPSHOT_MAGIC = 0xC8;
+  public static final int SNAPSHOT_VERSION = 3;
+  private static final int SNAPSHOT_HEADER_SIZE = 11;
+
+  // Undo stack: each DoMove() pushes one entry per card drawn ((pick + 1) << 6
+  // | ordinal, pick 0 for an ordered draw) and per reshuffle (deck size, ordered
+  // cards, RESHUFFLE_ENTRY), then a frame of UNDO_FRAME_SIZE words: start of
+  // its entries, move, seat, suit, rank, reversed | pendingEffect << 1, turns, turn draws
+  private static final int UNDO_FRAME_SIZE = 8;
+  private static final int RESHUFFLE_ENTRY = -1;
+
   private Card[] deck;
   private int deckSize;
+  private int deckOrdered; // Cards on top of the deck whose draw order is already fixed
   private Card[] discardPile;
   private int discardSize;
+  private int deckCount;
   private Player[] players;
-  private int currentPlayer;
-  private String currentSuit;
+  private TurnOrder turnOrder;
+  private int currentSuit;
   private boolean gameOver;
   private int currentRank;
   private boolean gameReplay;
+  private int reshuffleCount;
+  private Card startCard; // First card turned face up this game
+  private long[] openingHands; // Each player's hand mask as dealt this game
+  private int firstPlayer; // Seat that moved first this game
+  private RandomSource random;
+  private long seed;
+  private boolean seedUsed;
+  private MoveJournal journal;
+  private RuleSet rules = RuleSet.STANDARD;
+  private byte[] effects; // rules.GetEffects() for this table size
+  private int pendingEffect; // Effect of the last card played, applied when the turn passes
+  private EngineMetrics.Recorder metrics; // null when not recording
+  private int gameTurns; // Turns finished in the current game
+  private int turnDraws; // Cards drawn in the current turn
+  private long[] snapshotSeen; // Copies of each card counted while checking a snapshot, one mask per deck
+  private int[] undoStack; // Allocated by the first DoMove(), since only search code makes moves that way
+  private int undoSize;
+  private int undoMoves; // Moves UndoMove() can take back
+  private boolean recordingUndo; // Set while DoMove() runs, so draws and reshuffles record themselves
+  private boolean publishViews; // Set by SetViewPublishing()
+  private volatile TableView view; // Latest published view, read by any thread
+  private long viewSequence;
+  private int[] viewSeats; // Scratch for PublishView()
 
   // ========== HELPER METHODS ==========//
+  /**
+   * Finds the seat of a player.
+   * @param player The player to find
+   * @return The player's index, or MoveJournal.NONE if not in this game
+   */
+  private int SeatOf(Player player) {
+    for (int i = 0; i < players.length; i++) {
+      if (players[i] == player) {
+        return i;
+      }
+    }
+    return MoveJournal.NONE;
+  }
+
   /**
    * Ensures deck is not empty by reshuffling if needed.
    * If deck is empty, calls ReshuffleDeck() to replenish it.
@@ -22,20 +102,141 @@ public class GameSystem {
   private void EnsureDeckNotEmpty() {
     if (deckSize == 0) {
       ReshuffleDeck();
-      System.out.println("Reshuffling complete. Deck is ready.");
     }
   }
 
   /**
-   * Shuffle the deck of cards
+   * Takes the next card off the deck.
+   * Takes the top card if the order is fixed there, otherwise swaps a
+   * random card to the top first.
+   * @return The card, from a deck that must not be empty
    */
-  private void ShuffleDeck() {
-    for (int i = 0; i < deckSize; i++) {
-      int rand = (int) (Math.random() * deckSize);
+  private Card TakeCard() {
+    int pick = -1;
+    if (deckOrdered > 0) {
+      deckOrdered--;
+    } else {
+      pick = random.NextInt(deckSize); // Every card left is equally likely
+      Card temp = deck[pick];
+      deck[pick] = deck[deckSize - 1];
+      deck[deckSize - 1] = temp;
+    }
+    Card card = deck[--deckSize];
+    if (recordingUndo) {
+      PushUndo((pick + 1) << 6 | card.GetOrdinal());
+    }
+    return card;
+  }
+
+  /**
+   * Pushes a word onto the undo stack, creating it on first use and
+   * growing it if it is full.
+   * @param value The word to push
+   */
+  private void PushUndo(int value) {
+    if (undoStack == null) {
+      undoStack = new int[UNDO_FRAME_SIZE * 64];
+    } else if (undoSize == undoStack.length) {
+      undoStack = Arrays.copyOf(undoStack, undoSize * 2);
+    }
+    undoStack[undoSize++] = value;
+  }
+
+  /**
+   * Forgets every recorded move, after the state has been replaced.
+   */
+  private void ClearUndo() {
+    undoSize = 0;
+    undoMoves = 0;
+  }
+
+  /**
+   * Publishes the table as it is now, if view publishing is on.
+   * @param drawn A card just drawn, which the caller adds to the current
+   *              player's hand next and the view counts there already; null if none
+   */
+  private void PublishView(Card drawn) {
+    if (!publishViews) {
+      return;
+    }
+    int current = turnOrder.GetCurrent();
+    for (int i = 0; i < players.length; i++) {
+      int size = players[i] == null ? 0 : players[i].GetHandSize();
+      int points = players[i] == null ? 0 : players[i].GetHandPoints();
+      if (drawn != null && i == current) {
+        size++;
+        points += Cards.Points(drawn.GetOrdinal());
+      }
+      viewSeats[i] = size | points << 8;
+    }
+    int topCard = discardSize == 0 ? -1 : discardPile[discardSize - 1].GetOrdinal();
+    view = new TableView(viewSequence++, current, turnOrder.IsReversed(), topCard, currentSuit, currentRank,
+        deckSize, discardSize, gameTurns, gameOver, GetWinnerIndex(), viewSeats);
+  }
+
+  /**
+   * Returns the number of cards dealt to each player.
+   * @return The rules' hand size: by default 7 cards in a two-player game, 5 with more players
+   */
+  private int GetDealSize() {
+    return rules.GetHandSize(players.length);
+  }
+
+  /**
+   * Records the end of the current player's turn.
+   */
+  private void EndTurn() {
+    gameTurns++;
+    if (metrics != null) {
+      metrics.Turn(turnDraws);
+      TurnEvent event = new TurnEvent();
+      if (event.shouldCommit()) {
+        event.seat = turnOrder.GetCurrent();
+        event.cardsDrawn = turnDraws;
+        event.handSize = players[turnOrder.GetCurrent()].GetHandSize();
+        event.turn = gameTurns;
+        event.gameOver = gameOver;
+        event.commit();
+      }
+    }
+    turnDraws = 0;
+  }
+  /**
+   * Makes a player draw the cards a draw-two costs them.
+   * The draws are not journaled: replaying the SWITCH_TURN event that
+   * carries the effect repeats them from the same random state.
+   * @param player The player who must draw
+   */
+  private void DrawPenalty(Player player) {
+    MoveJournal recording = journal;
+    journal = null;
+    for (int i = 0; i < RuleSet.DRAW_TWO_CARDS && !gameOver; i++) {
+      Card drawn = DrawCard();
+      if (drawn != null) {
+        player.AddCard(drawn);
+      }
+    }
+    journal = recording;
+    if (gameOver && journal != null) {
+      journal.Append(MoveJournal.GAME_END, MoveJournal.NONE, MoveJournal.NONE, MoveJournal.NONE, 0);
+    }
+  }
+
+
+  /**
+   * Shuffle the deck of cards (Fisher-Yates, every order equally likely)
+   * and fix the order they will be drawn in, until the next reshuffle.
+   * Draws do not need this; it is for analysis that reads the deck order,
+   * such as EndgameSolver, and for the engine benchmarks.
+   */
+  void ShuffleDeck() {
+    for (int i = deckSize - 1; i > 0; i--) {
+      int rand = random.NextInt(i + 1); // Pick from the cards not yet placed
       Card temp = deck[i];
       deck[i] = deck[rand];
       deck[rand] = temp;
     }
+    deckOrdered = deckSize;
   }
 
   // ========== PUBLIC METHODS ==========//
@@ -45,100 +246,431 @@ public class GameSystem {
    * Sets up initial game state variables.
    */
   public GameSystem() {
-    players = new Player[2];
-    deck = new Card[52];
-    discardPile = new Card[52];
+    this(new SplittableRandom().nextLong());
+  }
+
+  /**
+   * Initializes a new game system whose shuffles are determined by a seed.
+   * @param seed Seed for the deck shuffles
+   */
+  public GameSystem(long seed) {
+    this(new Xoroshiro128PlusPlus(seed));
+    this.seed = seed;
+    seedUsed = false; // Deal the first game from this seed
+  }
+
+  /**
+   * Initializes a new game system with the given random source.
+   * @param random Random source for the deck shuffles, owned by this game system
+   */
+  public GameSystem(RandomSource random) {
+    this(random, 2, 1);
+  }
+
+  /**
+   * Initializes a game system for more players or decks, with seeded shuffles.
+   * @param seed        Seed for the deck shuffles
+   * @param playerCount Number of players (2-8)
+   * @param deckCount   Number of 52-card decks shuffled together (1-4)
+   */
+  public GameSystem(long seed, int playerCount, int deckCount) {
+    this(new Xoroshiro128PlusPlus(seed), playerCount, deckCount);
+    this.seed = seed;
+    seedUsed = false; // Deal the first game from this seed
+  }
+
+  /**
+   * Initializes a game system for more players or decks.
+   * The deck and discard pile are sized to the cards in play, so a game
+   * with more decks uses more memory only when it is created.
+   * @param random      Random source for the deck shuffles, owned by this game system
+   * @param playerCount Number of players (2-8)
+   * @param deckCount   Number of 52-card decks shuffled together (1-4)
+   */
+  public GameSystem(RandomSource random, int playerCount, int deckCount) {
+    if (playerCount < MIN_PLAYERS || playerCount > MAX_PLAYERS) {
+      throw new IllegalArgumentException("Crazy Eights needs " + MIN_PLAYERS + " to " + MAX_PLAYERS + " players, not " + playerCount);
+    }
+    if (deckCount < 1 || deckCount > MAX_DECKS) {
+      throw new IllegalArgumentException("Crazy Eights is played with 1 to " + MAX_DECKS + " decks, not " + deckCount);
+    }
+    this.random = random;
+    seedUsed = true; // No seed given, so InitializeGame() draws one from the source
+    this.deckCount = deckCount;
+    metrics = EngineMetrics.Global().NewRecorder();
+    players = new Player[playerCount];
+    turnOrder = new TurnOrder(playerCount);
+    openingHands = new long[playerCount];
+    viewSeats = new int[playerCount];
+    effects = rules.GetEffects(playerCount);
+    deck = new Card[deckCount * Cards.DECK_SIZE];
+    discardPile = new Card[deckCount * Cards.DECK_SIZE];
+    snapshotSeen = new long[deckCount];
     deckSize = 0;
     discardSize = 0;
-    currentPlayer = 0;
-    currentSuit = "";
+    currentSuit = -1; // No suit until the first card is turned up
     currentRank = 0;
     gameOver = false;
     gameReplay = false;
+    reshuffleCount = 0;
   }
 
   /**
    * Initializes the game, including deck, players, and initial cards
-   * @param name1 The name of the first player
-   * @param name2 The name of the second player
-   */
-  public void InitializeGame(String name1, String name2) {
-    // Initialize deck with 52 cards
-    String[] suit = { "Spades", "Hearts", "Clubs", "Diamonds" };
-    for (int i = 0; i < suit.length; i++) {
-      for (int j = 1; j <= 13; j++) {
-        if (j == 8) {
-          deck[deckSize] = new WildCard(suit[i], j);
-        } else if (j >= 2 && j <= 10) {
-          deck[deckSize] = new NormalCard(suit[i], j);
-        } else {
-          deck[deckSize] = new ActionCard(suit[i], j);
-        }
-        deckSize++;
+   * @param names The name of each player, one per seat
+   */
+  public void InitializeGame(String... names) {
+    if (names.length != players.length) {
+      throw new IllegalArgumentException("Expected " + players.length + " player names, got " + names.length);
+    }
+    // Deal every game from a fresh seed so it can be replayed on its own
+    if (seedUsed) {
+      SetSeed(random.NextLong());
+    }
+    seedUsed = true;
+
+    // Reset state so the same game system can be reused between games
+    deckSize = 0;
+    deckOrdered = 0;
+    discardSize = 0;
+    turnOrder.Reset(0);
+    gameOver = false;
+    pendingEffect = 0;
+    reshuffleCount = 0;
+    gameTurns = 0;
+    turnDraws = 0;
+    ClearUndo();
+
+    // Initialize deck with the 52 shared cards, once per deck; every draw
+    // picks at random, so the deck is never shuffled
+    for (int d = 0; d < deckCount; d++) {
+      for (int i = 0; i < Cards.DECK_SIZE; i++) {
+        deck[deckSize++] = Cards.Get(i);
       }
     }
-    // Shuffle cards
-    ShuffleDeck();
 
     // Initialize players
-    players[0] = new Player(name1);
-    players[1] = new Player(name2);
+    for (int p = 0; p < players.length; p++) {
+      players[p] = new Player(names[p], deckCount);
+    }
+
+    // Deal cards to players, one at a time round the table
+    for (int i = GetDealSize(); i > 0; i--) {
+      for (int p = 0; p < players.length; p++) {
+        players[p].AddCard(TakeCard());
+      }
+    }
 
-    // Deal 7 cards to players
-    for (int i = 0; i < 7; i++) {
-      players[0].AddCard(DrawCard());
-      players[1].AddCard(DrawCard());
+    for (int p = 0; p < players.length; p++) {
+      openingHands[p] = players[p].GetHandMask();
     }
 
     // Start a game
-    Card start = DrawCard();
-    while (start instanceof WildCard) { // Not start with Wild Card
+    Card start = TakeCard();
+    while (Cards.IsWild(start.GetOrdinal())) { // Not start with Wild Card
       deck[deckSize++] = start; // Put back into the deck
-      start = DrawCard(); // Draw a new card
+      start = TakeCard(); // Draw a new card
     }
     discardPile[discardSize++] = start;
-    currentSuit = start.GetSuit();
+    startCard = start;
+    firstPlayer = turnOrder.GetCurrent();
+    currentSuit = start.GetSuitIndex();
     currentRank = start.GetRank();
+
+    if (journal != null) {
+      journal.GameStart(players.length, deckCount, rules.GetCode(), MoveJournal.SourceCode(random), seed);
+    }
+    if (metrics != null) {
+      metrics.GameStart();
+    }
+    PublishView(null);
   }
 
   /**
-   * Draws a card from the deck.
-   * Ensures deck is not empty before drawing.
-   * @return The drawn card, or null if deck is empty
+   * Draws a random card from the deck.
+   * Ensures deck is not empty before drawing. If the discard pile has no
+   * cards to reshuffle either, the game ends as a stalemate.
+   * @return The drawn card, or null if no cards are left
    */
   public Card DrawCard() {
     EnsureDeckNotEmpty();
     if (deckSize == 0) {
-      return null; // No cards left
+      if (journal != null) {
+        journal.Append(MoveJournal.DRAW, turnOrder.GetCurrent(), MoveJournal.NONE, MoveJournal.NONE, 0);
+      }
+      SetGameOver(true); // No cards left
+      return null;
     }
-    deckSize = deckSize - 1;
-    return deck[deckSize];
+    Card drawn = TakeCard();
+    turnDraws++;
+    if (journal != null) {
+      journal.Append(MoveJournal.DRAW, turnOrder.GetCurrent(), drawn.GetOrdinal(), MoveJournal.NONE, 0);
+    }
+    PublishView(drawn);
+    return drawn;
   }
 
   /**
    * Reshuffles the discard pile into the deck
    * Keeps the top card on the discard pile
-   * Shuffles the rest of the cards in the discard pile and add them to the deck
+   * Draws pick a random card, so the rest of the discard pile becomes the
+   * deck as it is; an empty deck just swaps arrays with the discard pile.
    */
   public void ReshuffleDeck() {
     if (discardSize <= 1) {
       return;
     }
 
+    if (recordingUndo) {
+      PushUndo(deckSize);
+      PushUndo(deckOrdered);
+      PushUndo(RESHUFFLE_ENTRY);
+    }
+
     // Keep the top card
     Card topCard = discardPile[discardSize - 1];
 
     // Move the rest to the deck
-    for (int i = 0; i < discardSize - 1; i++) {
-      deck[deckSize++] = discardPile[i];
+    if (deckSize == 0) {
+      Card[] pile = discardPile;
+      discardPile = deck;
+      deck = pile;
+      deckSize = discardSize - 1;
+    } else {
+      System.arraycopy(discardPile, 0, deck, deckSize, discardSize - 1);
+      deckSize += discardSize - 1;
     }
-
-    // Shuffle deck
-    ShuffleDeck();
+    deckOrdered = 0; // Draw order is random again
 
     // Keep top card on discard pile
+    if (journal != null) {
+      journal.Append(MoveJournal.RESHUFFLE, turnOrder.GetCurrent(), MoveJournal.NONE, MoveJournal.NONE, discardSize - 1);
+    }
+    if (metrics != null) {
+      metrics.Reshuffle();
+      ReshuffleEvent event = new ReshuffleEvent();
+      if (event.shouldCommit()) {
+        event.cards = discardSize - 1;
+        event.reshuffleCount = reshuffleCount + 1;
+        event.commit();
+      }
+    }
     discardPile[0] = topCard;
     discardSize = 1;
+    reshuffleCount++;
+    PublishView(null);
+  }
+
+  /**
+   * Reseeds the random source used for shuffling.
+   * Seeding before InitializeGame makes the whole game replayable from the seed.
+   * @param seed Seed for the deck shuffles
+   */
+  public void SetSeed(long seed) {
+    this.seed = seed;
+    seedUsed = false;
+    random.SetSeed(seed);
+  }
+
+  /**
+   * Returns the seed last given to this game system.
+   * A game system created with its own random source draws a seed from it
+   * for every game, so the seed always reproduces the current deal.
+   * @return The seed, or 0 if no seed was set and no game has been dealt
+   */
+  public long GetSeed() {
+    return seed;
+  }
+
+  /**
+   * Returns the random source used for shuffling.
+   * @return The random source
+   */
+  public RandomSource GetRandomSource() {
+    return random;
+  }
+
+  /**
+   * Records every following game and move to a journal.
+   * Only games dealt with Xoroshiro128PlusPlus or SplittableRandomSource can
+   * be recorded, since JournalReplayer re-deals them from their seed.
+   * @param journal The journal to append to, or null to stop recording
+   * @throws IllegalStateException if the game's random source cannot be replayed
+   */
+  public void SetJournal(MoveJournal journal) {
+    if (journal != null && MoveJournal.SourceCode(random) < 0) {
+      throw new IllegalStateException("Games dealt with " + random.getClass().getSimpleName() + " cannot be journaled");
+    }
+    this.journal = journal;
+  }
+
+  /**
+   * Sets the house rules for the next game dealt.
+   * @param rules The rules to play by (RuleSet.STANDARD for the base game)
+   */
+  public void SetRules(RuleSet rules) {
+    // Leave at least one card that is not wild to start the discard pile
+    int wildCards = Long.bitCount(Cards.WildMask()) * deckCount;
+    if (players.length * rules.GetHandSize(players.length) + wildCards >= deck.length) {
+      throw new IllegalArgumentException("Cannot deal " + rules.GetHandSize(players.length) + " cards to "
+          + players.length + " players from " + deckCount + " deck(s)");
+    }
+    this.rules = rules;
+    effects = rules.GetEffects(players.length);
+  }
+
+  /**
+   * Returns the house rules in play.
+   * @return The rules, RuleSet.STANDARD unless SetRules() was called
+   */
+  public RuleSet GetRules() {
+    return rules;
+  }
+
+  /**
+   * Turns publishing of TableView snapshots on or off.
+   * While on, every deal, draw, play, turn change and end of game publishes
+   * a new view for GetView(). Off by default, since each view is a small
+   * allocation that bot-only games do not need. Call on the game's thread.
+   * @param publish true to publish a view after every change
+   */
+  public void SetViewPublishing(boolean publish) {
+    publishViews = publish;
+    view = null;
+    PublishView(null);
+  }
+
+  /**
+   * Returns the latest published view of the table.
+   * Safe to call from any thread at any time: the view is immutable and
+   * published through a volatile field, so a reader sees one consistent
+   * table without locking the game.
+   * @return The latest view, or null if view publishing is off
+   */
+  public TableView GetView() {
+    return view;
+  }
+
+  /**
+   * Records every following game to a set of metrics.
+   * Game systems record to EngineMetrics.Global() unless told otherwise;
+   * scratch games used by search should record to null.
+   * @param metrics The metrics to record to, or null to stop recording
+   */
+  public void SetMetrics(EngineMetrics metrics) {
+    if (this.metrics != null) {
+      this.metrics.Flush();
+    }
+    this.metrics = metrics == null ? null : metrics.NewRecorder();
+  }
+
+  /**
+   * Adds the metrics this game system has buffered to the shared counters.
+   * Buffers are flushed every few dozen games; call this when a game system
+   * is about to be dropped, or before reading the metrics, so no game is missed.
+   */
+  public void FlushMetrics() {
+    if (metrics != null) {
+      metrics.Flush();
+    }
+  }
+
+  /**
+   * Returns the buffer this game system records metrics into.
+   * Game loops record decision times and invalid selections here too.
+   * @return The recorder, or null if not recording
+   */
+  public EngineMetrics.Recorder GetMetricsRecorder() {
+    return metrics;
+  }
+
+  /**
+   * Returns how many times the discard pile has been reshuffled this game.
+   * @return Number of reshuffles since the game was initialized
+   */
+  public int GetReshuffleCount() {
+    return reshuffleCount;
+  }
+
+  /**
+   * Returns the card turned face up to start the game.
+   * @return The first card on the discard pile, or null before a game is dealt
+   */
+  public Card GetStartCard() {
+    return startCard;
+  }
+
+  /**
+   * Returns the cards a player was dealt this game.
+   * @param playerIndex Index of the player
+   * @return Mask of the card ordinals dealt (see Cards); copies from extra decks share a bit
+   */
+  public long GetOpeningHand(int playerIndex) {
+    return openingHands[playerIndex];
+  }
+
+  /**
+   * Returns the seat of the player who moved first this game.
+   * @return The first player's index
+   */
+  public int GetFirstPlayerIndex() {
+    return firstPlayer;
+  }
+
+  /**
+   * Returns the number of cards left in the deck.
+   * @return Cards left to draw before the discard pile is reshuffled
+   */
+  public int GetDeckSize() {
+    return deckSize;
+  }
+
+  /**
+   * Returns a card in the deck without drawing it.
+   * The order of the deck is hidden from players; this is for analysis
+   * tools such as EndgameSolver that look at the whole position. Cards are
+   * only drawn in this order once ShuffleDeck() has fixed it (see
+   * GetOrderedDeckSize()); otherwise each draw picks a random card.
+   * @param index Position in the deck, 0 for the bottom card and GetDeckSize() - 1 for the top card
+   * @return The card at that position
+   */
+  public Card GetDeckCard(int index) {
+    if (index < 0 || index >= deckSize) {
+      throw new IllegalArgumentException("No card at deck position " + index);
+    }
+    return deck[index];
+  }
+
+  /**
+   * Returns how many cards on top of the deck will be drawn in their current order.
+   * @return Cards from the top of the deck whose draw order is fixed, 0 after a deal or reshuffle
+   */
+  public int GetOrderedDeckSize() {
+    return deckOrdered;
+  }
+
+  /**
+   * Returns the number of cards in the discard pile, including the top card.
+   * @return Cards in the discard pile
+   */
+  public int GetDiscardSize() {
+    return discardSize;
+  }
+
+  /**
+   * Returns the number of decks shuffled together for this game system.
+   * @return Number of 52-card decks (1-4)
+   */
+  public int GetDeckCount() {
+    return deckCount;
+  }
+
+  /**
+   * Returns the number of players at the table.
+   * @return Number of players (2-8)
+   */
+  public int GetPlayerCount() {
+    return players.length;
   }
 
   /**
@@ -154,12 +686,28 @@ public class GameSystem {
    * @return The current player
    */
   public Player GetCurrentPlayer() {
-    return players[currentPlayer]; // Return current player
+    return players[turnOrder.GetCurrent()]; // Return current player
+  }
+
+  /**
+   * Returns the index of the current player.
+   * @return The current player's index (0 for the first player)
+   */
+  public int GetCurrentPlayerIndex() {
+    return turnOrder.GetCurrent();
+  }
+
+  /**
+   * Returns the index of the player who plays after the current one.
+   * @return The next player's index
+   */
+  public int GetNextPlayerIndex() {
+    return turnOrder.PeekNext();
   }
 
   /**
    * Returns the points of the specified player.
-   * @param playerIndex Index of player (0 or 1)
+   * @param playerIndex Index of player (0 for the first player)
    * @return Player's current points, or 0 if invalid index
    */
   public int GetPlayerPoints(int playerIndex) {
@@ -186,9 +734,25 @@ public class GameSystem {
    * @return The current valid suit
    */
   public String GetCurrentSuit() {
+    return Card.SuitName(currentSuit);
+  }
+
+  /**
+   * Returns the index of the current suit in play.
+   * @return The current valid suit index
+   */
+  public int GetCurrentSuitIndex() {
     return currentSuit;
   }
 
+  /**
+   * Returns the current rank in play.
+   * @return The rank of the top card
+   */
+  public int GetCurrentRank() {
+    return currentRank;
+  }
+
   /**
    * Returns whether the game is over.
    * @return true if game is over, false otherwise
@@ -197,12 +761,45 @@ public class GameSystem {
     return gameOver;
   }
 
+  /**
+   * Returns the seat of the player who won.
+   * @return The index of the player with no cards left, or -1 if nobody has won
+   */
+  public int GetWinnerIndex() {
+    for (int i = 0; i < players.length; i++) {
+      if (players[i] != null && players[i].HasWon()) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns whether the game ended without a winner, because the deck and
+   * discard pile ran out or the game was stopped with SetGameOver().
+   * @return true if the game is over and nobody has won
+   */
+  public boolean IsStalemate() {
+    return gameOver && GetWinnerIndex() < 0;
+  }
+
   /**
    * Sets the game over state.
    * @param over New game over state
    */
   public void SetGameOver(boolean over) {
+    boolean ended = over && !gameOver; // Ended without a winner
+    if (ended && journal != null) {
+      journal.Append(MoveJournal.GAME_END, MoveJournal.NONE, MoveJournal.NONE, MoveJournal.NONE, 0);
+    }
     gameOver = over;
+    if (ended) {
+      EndTurn();
+      if (metrics != null) {
+        metrics.GameEnd(gameTurns, true);
+      }
+    }
+    PublishView(null);
   }
 
   /**
@@ -222,10 +819,30 @@ public class GameSystem {
   }
 
   /**
-   * Switches the current player to the other player
+   * Passes the turn to the next player in turn order.
+   * Applies the effect of the card just played, if the rules give it one:
+   * play changes direction, the next player is skipped, or the next player
+   * draws two cards before their turn. The forced draw can end the game as
+   * a stalemate if no cards are left.
    */
   public void SwitchTurn() {
-    currentPlayer = (currentPlayer + 1) % 2;
+    EndTurn();
+    int effect = pendingEffect;
+    pendingEffect = 0;
+    if ((effect & RuleSet.REVERSE) != 0) {
+      turnOrder.Reverse();
+    }
+    int next = turnOrder.Advance();
+    if ((effect & RuleSet.SKIP) != 0) {
+      next = turnOrder.Advance();
+    }
+    if (journal != null) {
+      journal.Append(MoveJournal.SWITCH_TURN, next, MoveJournal.NONE, MoveJournal.NONE, effect);
+    }
+    if ((effect & RuleSet.DRAW_TWO) != 0) {
+      DrawPenalty(players[next]);
+    }
+    PublishView(null);
   }
 
   /**
@@ -234,14 +851,16 @@ public class GameSystem {
    * @return true if player has at least one playable card, false otherwise
    */
   public boolean HasPlayableCards(Player player) {
-    Card[] hand = player.GetHand();
-    int handSize = player.GetHandSize();
-    for (int i = 0; i < handSize; i++) {
-      if (hand[i].CanPlay(currentSuit, currentRank)) {
-        return true;
-      }
-    }
-    return false;
+    return (player.GetHandMask() & Cards.PlayableMask(currentSuit, currentRank)) != 0;
+  }
+
+  /**
+   * Returns the cards in the player's hand that can be played.
+   * @param player The player to check
+   * @return Mask of playable card ordinals (see Cards)
+   */
+  public long GetPlayableCards(Player player) {
+    return player.GetHandMask() & Cards.PlayableMask(currentSuit, currentRank);
   }
 
   /**
@@ -256,8 +875,8 @@ public class GameSystem {
       return false; // Invalid if index is negative and if out of player hand
     }
     // Get the card that player wants to play
-    Card card = player.GetHand()[cardIndex]; // Get specific card at that position
-    return card.CanPlay(currentSuit, currentRank);
+    Card card = player.GetCard(cardIndex); // Get specific card at that position
+    return Cards.CanPlay(card.GetOrdinal(), currentSuit, currentRank);
   }
 
   /**
@@ -268,6 +887,18 @@ public class GameSystem {
    * @param nextSuitIfWild New suit if wild card is played
    */
   public void PlayCard(Player player, int cardIndex, String nextSuitIfWild) {
+    PlayCard(player, cardIndex, Card.SuitIndex(nextSuitIfWild));
+  }
+
+  /**
+   * Plays the selected card from the player's hand.
+   * Updates game state based on played card.
+   * @param player         The player playing the card
+   * @param cardIndex      Index of card to play
+   * @param nextSuitIfWild New suit index if wild card is played
+   *                       (keeps the wild card's own suit if not a valid suit)
+   */
+  public void PlayCard(Player player, int cardIndex, int nextSuitIfWild) {
     if (!IsValidPlay(player, cardIndex)) {
       return; // Invalid play
     }
@@ -275,15 +906,502 @@ public class GameSystem {
     discardPile[discardSize] = playedCard;
     discardSize = discardSize + 1;
 
-    if (playedCard instanceof WildCard) {
+    if (Cards.IsWild(playedCard.GetOrdinal()) && nextSuitIfWild >= 0 && nextSuitIfWild < Card.SUIT_COUNT) {
       currentSuit = nextSuitIfWild;
     } else {
-      currentSuit = playedCard.GetSuit();
+      currentSuit = playedCard.GetSuitIndex();
     }
     currentRank = playedCard.GetRank();
+    pendingEffect = effects[playedCard.GetOrdinal()];
 
+    if (journal != null) {
+      journal.Append(MoveJournal.PLAY, SeatOf(player), playedCard.GetOrdinal(), currentSuit, 0);
+    }
     if (player.HasWon()) {
       gameOver = true;
+      if (journal != null) {
+        journal.Append(MoveJournal.GAME_END, SeatOf(player), MoveJournal.NONE, MoveJournal.NONE, 0);
+      }
+      EndTurn();
+      if (metrics != null) {
+        metrics.GameEnd(gameTurns, false);
+      }
+    }
+    PublishView(null);
+  }
+
+  // ========== SEARCH ==========//
+
+  /**
+   * Packs a move.
+   * @param ordinal Ordinal of the card played
+   * @param suit    Suit index the game continues in
+   * @return The move
+   */
+  public static int PackMove(int ordinal, int suit) {
+    return ordinal * Card.SUIT_COUNT + suit;
+  }
+
+  /**
+   * Returns the card played by a move.
+   * @param move A move other than DRAW_MOVE
+   * @return The card ordinal
+   */
+  public static int MoveCardOf(int move) {
+    return move / Card.SUIT_COUNT;
+  }
+
+  /**
+   * Returns the suit the game continues in after a move.
+   * @param move A move other than DRAW_MOVE
+   * @return The suit index
+   */
+  public static int MoveSuitOf(int move) {
+    return move % Card.SUIT_COUNT;
+  }
+
+  /**
+   * Lists the current player's legal moves, in card order.
+   * A wild card gives one move per suit; any other card keeps its own suit.
+   * Copies of a card from other decks play the same way and give one move.
+   * Writes nothing but the buffer, so search code can call it every node.
+   * @param moves Buffer for the moves, at least MAX_MOVES long
+   * @return Number of moves written: DRAW_MOVE alone if nothing is playable, 0 if the game is over
+   */
+  public int GenerateMoves(int[] moves) {
+    if (gameOver) {
+      return 0;
+    }
+    long playable = GetPlayableCards(players[turnOrder.GetCurrent()]);
+    if (playable == 0) {
+      moves[0] = DRAW_MOVE;
+      return 1;
+    }
+    int count = 0;
+    for (; playable != 0; playable &= playable - 1) {
+      int ordinal = Long.numberOfTrailingZeros(playable);
+      if (Cards.IsWild(ordinal)) {
+        for (int suit = 0; suit < Card.SUIT_COUNT; suit++) {
+          moves[count++] = PackMove(ordinal, suit);
+        }
+      } else {
+        moves[count++] = PackMove(ordinal, ordinal / Cards.RANK_COUNT);
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Makes a move for the current player without passing the turn, like PlayCard().
+   * DRAW_MOVE draws one card into the player's hand; the player then moves
+   * again, or the game is over if nothing was left to draw.
+   * Does nothing if a card move is not legal.
+   * @param move A move from GenerateMoves()
+   */
+  public void PlayMove(int move) {
+    Player player = players[turnOrder.GetCurrent()];
+    if (move == DRAW_MOVE) {
+      player.AddCard(DrawCard()); // A null card ends the game and is ignored
+      return;
+    }
+    PlayCard(player, player.IndexOf(Cards.Get(MoveCardOf(move))), MoveSuitOf(move));
+  }
+
+  /**
+   * Makes a move for the current player, recording what it changes so
+   * UndoMove() can take it back.
+   * A card move plays the card and, unless it wins, passes the turn with the
+   * card's effect (see SwitchTurn()). DRAW_MOVE draws one card and the same
+   * player moves again, or the game is over if nothing was left to draw.
+   * Search code can walk a game tree with DoMove() and UndoMove() in one game
+   * system, without copying it for every node. The record is the previous
+   * suit, rank, turn and direction plus one entry per card drawn and per
+   * reshuffle, on a stack reused from move to move.
+   * Metric counters are not taken back, so search games should not record
+   * metrics (see SetMetrics()).
+   * @param move A move from GenerateMoves(), or DRAW_MOVE
+   * @throws IllegalArgumentException if the move is not legal
+   * @throws IllegalStateException if the game is over or moves are journaled
+   */
+  public void DoMove(int move) {
+    if (gameOver) {
+      throw new IllegalStateException("The game is over");
+    }
+    if (journal != null) {
+      throw new IllegalStateException("Journaled moves cannot be undone");
+    }
+    int seat = turnOrder.GetCurrent();
+    Player player = players[seat];
+    if (move != DRAW_MOVE && (move < 0 || move > DRAW_MOVE || (GetPlayableCards(player) & 1L << MoveCardOf(move)) == 0)) {
+      throw new IllegalArgumentException("Not a legal move: " + move);
+    }
+    int frameStart = undoSize;
+    int direction = (turnOrder.IsReversed() ? 1 : 0) | pendingEffect << 1;
+    int suit = currentSuit;
+    int rank = currentRank;
+    int turns = gameTurns;
+    int draws = turnDraws;
+
+    recordingUndo = true;
+    if (move == DRAW_MOVE) {
+      player.AddCard(DrawCard()); // A null card ends the game and is ignored
+    } else {
+      PlayCard(player, player.IndexOf(Cards.Get(MoveCardOf(move))), MoveSuitOf(move));
+      if (!gameOver) {
+        SwitchTurn(); // Records the draws of a draw-two
+      }
+    }
+    recordingUndo = false;
+
+    PushUndo(frameStart);
+    PushUndo(move);
+    PushUndo(seat);
+    PushUndo(suit);
+    PushUndo(rank);
+    PushUndo(direction);
+    PushUndo(turns);
+    PushUndo(draws);
+    undoMoves++;
+  }
+
+  /**
+   * Takes back the last move made with DoMove().
+   * Every card goes back where it was, including the order of the deck and
+   * the discard pile, in time proportional to the cards the move drew or
+   * reshuffled, and without allocating. The random source is not rewound,
+   * so making a draw again can draw a different card.
+   * Only exact if the game has not been changed other than by DoMove()
+   * since; InitializeGame(), CopyFrom(), Determinize() and ReadSnapshot()
+   * forget every recorded move.
+   * @throws IllegalStateException if there is no move to undo
+   */
+  public void UndoMove() {
+    if (undoMoves == 0) {
+      throw new IllegalStateException("No move to undo");
+    }
+    int frame = undoSize - UNDO_FRAME_SIZE;
+    int frameStart = undoStack[frame];
+    int move = undoStack[frame + 1];
+    int seat = undoStack[frame + 2];
+    // A draw move's cards went to the mover, a draw-two's to the player after
+    Player drawer = players[move == DRAW_MOVE ? seat : turnOrder.GetCurrent()];
+
+    for (int i = frame - 1; i >= frameStart; i--) {
+      int entry = undoStack[i];
+      if (entry == RESHUFFLE_ENTRY) { // Put the reshuffled cards back under the top card
+        int ordered = undoStack[--i];
+        int size = undoStack[--i];
+        int moved = deckSize - size;
+        Card topCard = discardPile[discardSize - 1];
+        System.arraycopy(deck, size, discardPile, 0, moved);
+        discardPile[moved] = topCard;
+        discardSize = moved + 1;
+        deckSize = size;
+        deckOrdered = ordered;
+        reshuffleCount--;
+      } else { // Put the drawn card back and undo the swap that picked it
+        Card drawn = Cards.Get(entry & 63);
+        drawer.RemoveCard(drawn);
+        int pick = (entry >>> 6) - 1;
+        if (pick < 0) {
+          deck[deckSize++] = drawn;
+          deckOrdered++;
+        } else {
+          deck[deckSize++] = deck[pick];
+          deck[pick] = drawn;
+        }
+      }
+    }
+    if (move != DRAW_MOVE) {
+      players[seat].AddCard(discardPile[--discardSize]);
+    }
+
+    int direction = undoStack[frame + 5];
+    turnOrder.SetCurrent(seat);
+    turnOrder.SetReversed((direction & 1) != 0);
+    pendingEffect = direction >>> 1;
+    currentSuit = undoStack[frame + 3];
+    currentRank = undoStack[frame + 4];
+    gameTurns = undoStack[frame + 6];
+    turnDraws = undoStack[frame + 7];
+    gameOver = false; // DoMove() only moves in games that are not over
+    undoSize = frameStart;
+    undoMoves--;
+    PublishView(null);
+  }
+
+  /**
+   * Returns the number of moves UndoMove() can take back.
+   * @return Moves made with DoMove() since the state was last replaced
+   */
+  public int GetUndoCount() {
+    return undoMoves;
+  }
+
+  /**
+   * Starts a game from a chosen deal instead of a random one.
+   * Each player gets the cards of their mask, the top card starts the
+   * discard pile and every other card goes into the deck, to be drawn at
+   * random. Only for games dealt from one deck.
+   * @param hands   Mask of each player's cards (see Cards), one per seat
+   * @param topCard Ordinal of the card turned face up
+   * @param first   Seat of the player who moves first
+   * @throws IllegalArgumentException if the hands and top card overlap or do not fit the table
+   * @throws IllegalStateException if the game uses more than one deck or is journaled
+   */
+  public void DealPosition(long[] hands, int topCard, int first) {
+    if (deckCount != 1) {
+      throw new IllegalStateException("Positions can only be dealt from one deck");
+    }
+    if (journal != null) {
+      throw new IllegalStateException("A dealt position cannot be journaled, since its seed does not reproduce it");
+    }
+    if (hands.length != players.length || topCard < 0 || topCard >= Cards.DECK_SIZE || first < 0 || first >= players.length) {
+      throw new IllegalArgumentException("Position does not fit a " + players.length + "-player table");
+    }
+    long dealt = 1L << topCard;
+    for (long hand : hands) {
+      if ((hand & dealt) != 0 || hand >>> Cards.DECK_SIZE != 0) {
+        throw new IllegalArgumentException("A card is dealt twice");
+      }
+      dealt |= hand;
+    }
+
+    ClearUndo();
+    deckSize = 0;
+    deckOrdered = 0;
+    for (long rest = ~dealt & ((1L << Cards.DECK_SIZE) - 1); rest != 0; rest &= rest - 1) {
+      deck[deckSize++] = Cards.Get(Long.numberOfTrailingZeros(rest));
+    }
+    for (int i = 0; i < players.length; i++) {
+      if (players[i] == null) {
+        players[i] = new Player("Player " + (i + 1), deckCount);
+      }
+      players[i].SetHandMask(hands[i]);
+      openingHands[i] = hands[i];
+    }
+    startCard = Cards.Get(topCard);
+    discardPile[0] = startCard;
+    discardSize = 1;
+    currentSuit = startCard.GetSuitIndex();
+    currentRank = startCard.GetRank();
+    turnOrder.Reset(first);
+    firstPlayer = first;
+    gameOver = false;
+    pendingEffect = 0;
+    reshuffleCount = 0;
+    gameTurns = 0;
+    turnDraws = 0;
+    seedUsed = true;
+    if (metrics != null) {
+      metrics.GameStart();
+    }
+    PublishView(null);
+  }
+
+  /**
+   * Copies the full game state of another game system into this one.
+   * Only card references and hand masks are copied, so search code can
+   * restore a scratch game many times without creating any cards.
+   * The journal, seed and random source of this game system are kept; the
+   * rules are copied.
+   * @param other The game system to copy, with the same number of players and decks
+   */
+  public void CopyFrom(GameSystem other) {
+    if (other.players.length != players.length || other.deckCount != deckCount) {
+      throw new IllegalArgumentException("Cannot copy a " + other.players.length + "-player, " + other.deckCount + "-deck game");
+    }
+    ClearUndo();
+    System.arraycopy(other.deck, 0, deck, 0, other.deckSize);
+    System.arraycopy(other.discardPile, 0, discardPile, 0, other.discardSize);
+    deckSize = other.deckSize;
+    deckOrdered = other.deckOrdered;
+    discardSize = other.discardSize;
+    turnOrder.SetCurrent(other.turnOrder.GetCurrent());
+    turnOrder.SetReversed(other.turnOrder.IsReversed());
+    currentSuit = other.currentSuit;
+    currentRank = other.currentRank;
+    gameOver = other.gameOver;
+    rules = other.rules;
+    effects = other.effects;
+    pendingEffect = other.pendingEffect;
+    reshuffleCount = other.reshuffleCount;
+    startCard = other.startCard;
+    System.arraycopy(other.openingHands, 0, openingHands, 0, openingHands.length);
+    firstPlayer = other.firstPlayer;
+    for (int i = 0; i < players.length; i++) {
+      if (players[i] == null) {
+        players[i] = new Player(other.players[i] == null ? "Player " + (i + 1) : other.players[i].GetName(), deckCount);
+      }
+      if (other.players[i] == null) {
+        players[i].ClearHand();
+      } else {
+        players[i].CopyHand(other.players[i]);
+      }
+    }
+    PublishView(null);
+  }
+
+  /**
+   * Redeals every card the given player cannot see.
+   * The other players' hands and the deck are pooled and dealt back at
+   * random in the same sizes, which gives one guess at the hidden cards that
+   * agrees with everything the player can see. The cards left in the deck
+   * are drawn at random from then on.
+   * @param seat Index of the player whose view is kept
+   */
+  public void Determinize(int seat) {
+    ClearUndo();
+    for (int i = 0; i < players.length; i++) { // Pool the hidden hands on top of the deck
+      if (i != seat) {
+        for (long hand = players[i].GetHandMask(); hand != 0; hand &= hand - 1) {
+          int ordinal = Long.numberOfTrailingZeros(hand);
+          for (int j = players[i].GetCardCount(ordinal); j > 0; j--) {
+            deck[deckSize++] = Cards.Get(ordinal);
+          }
+        }
+      }
+    }
+    deckOrdered = 0;
+    for (int i = 0; i < players.length; i++) {
+      if (i != seat) {
+        int handSize = players[i].GetHandSize();
+        players[i].ClearHand();
+        for (int j = handSize; j > 0; j--) {
+          players[i].AddCard(TakeCard());
+        }
+      }
+    }
+  }
+
+  // ========== SNAPSHOTS ==========//
+
+  /**
+   * Returns the number of bytes WriteSnapshot() will write.
+   * @return Snapshot size in bytes
+   */
+  public int GetSnapshotSize() {
+    int size = SNAPSHOT_HEADER_SIZE + players.length + deckSize + discardSize;
+    for (int i = 0; i < players.length; i++) {
+      size += players[i] == null ? 0 : players[i].GetHandSize();
+    }
+    return size;
+  }
+
+  /**
+   * Writes the full game state at the buffer's position, one byte per card.
+   * Player names, the replay flag, the random source, the rules and the
+   * start of the game (GetStartCard(), GetFirstPlayerIndex(),
+   * GetOpeningHand()) are not included; a snapshot is read back into a game playing the same rules.
+   * @param buffer The buffer to write to, advanced past the snapshot
+   */
+  public void WriteSnapshot(ByteBuffer buffer) {
+    buffer.put((byte) SNAPSHOT_MAGIC);
+    buffer.put((byte) SNAPSHOT_VERSION);
+    buffer.put((byte) players.length);
+    buffer.put((byte) deckCount);
+    buffer.put((byte) (pendingEffect << 2 | (turnOrder.IsReversed() ? 2 : 0) | (gameOver ? 1 : 0)));
+    buffer.put((byte) turnOrder.GetCurrent());
+    buffer.put((byte) currentSuit);
+    buffer.put((byte) currentRank);
+    buffer.put((byte) deckSize);
+    buffer.put((byte) discardSize);
+    buffer.put((byte) deckOrdered);
+    for (int i = 0; i < players.length; i++) {
+      buffer.put((byte) (players[i] == null ? 0 : players[i].GetHandSize()));
+    }
+    for (int i = 0; i < deckSize; i++) {
+      buffer.put((byte) deck[i].GetOrdinal());
+    }
+    for (int i = 0; i < discardSize; i++) {
+      buffer.put((byte) discardPile[i].GetOrdinal());
+    }
+    for (int i = 0; i < players.length; i++) {
+      long hand = players[i] == null ? 0 : players[i].GetHandMask();
+      for (; hand != 0; hand &= hand - 1) {
+        int ordinal = Long.numberOfTrailingZeros(hand);
+        for (int j = players[i].GetCardCount(ordinal); j > 0; j--) {
+          buffer.put((byte) ordinal);
+        }
+      }
+    }
+  }
+
+  /**
+   * Restores the full game state from the buffer's position.
+   * The snapshot is checked before anything is changed, so an invalid
+   * snapshot leaves both the game system and the buffer position untouched.
+   * Players that do not exist yet are created with default names.
+   * @param buffer The buffer to read from, advanced past the snapshot
+   */
+  public void ReadSnapshot(ByteBuffer buffer) {
+    int start = buffer.position();
+    if (buffer.remaining() < SNAPSHOT_HEADER_SIZE
+        || (buffer.get(start) & 0xFF) != SNAPSHOT_MAGIC
+        || (buffer.get(start + 1) & 0xFF) != SNAPSHOT_VERSION
+        || (buffer.get(start + 2) & 0xFF) != players.length
+        || (buffer.get(start + 3) & 0xFF) != deckCount) {
+      throw new IllegalArgumentException("Not a snapshot of a " + players.length + "-player, " + deckCount + "-deck game");
+    }
+    int flags = buffer.get(start + 4) & 0xFF;
+    int current = buffer.get(start + 5) & 0xFF;
+    int suit = buffer.get(start + 6);
+    int rank = buffer.get(start + 7);
+    int cards = (buffer.get(start + 8) & 0xFF) + (buffer.get(start + 9) & 0xFF);
+    for (int i = 0; i < players.length; i++) {
+      cards += buffer.get(start + SNAPSHOT_HEADER_SIZE + i) & 0xFF;
+    }
+    int size = SNAPSHOT_HEADER_SIZE + players.length + cards;
+    if (current >= players.length || suit < -1 || suit >= Card.SUIT_COUNT || rank < 0 || rank > Cards.RANK_COUNT
+        || cards > deck.length || (buffer.get(start + 10) & 0xFF) > (buffer.get(start + 8) & 0xFF)
+        || buffer.remaining() < size) {
+      throw new IllegalArgumentException("Corrupt snapshot");
+    }
+    for (int k = 0; k < deckCount; k++) {
+      snapshotSeen[k] = 0;
+    }
+    for (int i = start + size - cards; i < start + size; i++) {
+      int ordinal = buffer.get(i) & 0xFF;
+      if (ordinal >= Cards.DECK_SIZE) {
+        throw new IllegalArgumentException("Corrupt snapshot");
+      }
+      int k = 0;
+      while (k < deckCount && (snapshotSeen[k] & (1L << ordinal)) != 0) {
+        k++;
+      }
+      if (k == deckCount) { // More copies than there are decks
+        throw new IllegalArgumentException("Corrupt snapshot");
+      }
+      snapshotSeen[k] |= 1L << ordinal;
+    }
+
+    ClearUndo();
+    gameOver = (flags & 1) != 0;
+    turnOrder.SetCurrent(current);
+    turnOrder.SetReversed((flags & 2) != 0);
+    pendingEffect = flags >>> 2 & 7;
+    currentSuit = suit;
+    currentRank = rank;
+    deckSize = buffer.get(start + 8) & 0xFF;
+    discardSize = buffer.get(start + 9) & 0xFF;
+    deckOrdered = buffer.get(start + 10) & 0xFF;
+    buffer.position(start + SNAPSHOT_HEADER_SIZE + players.length);
+    for (int i = 0; i < deckSize; i++) {
+      deck[i] = Cards.Get(buffer.get());
+    }
+    for (int i = 0; i < discardSize; i++) {
+      discardPile[i] = Cards.Get(buffer.get());
+    }
+    for (int i = 0; i < players.length; i++) {
+      if (players[i] == null) {
+        players[i] = new Player("Player " + (i + 1), deckCount);
+      }
+      players[i].ClearHand();
+      int handSize = buffer.get(start + SNAPSHOT_HEADER_SIZE + i) & 0xFF;
+      for (int j = 0; j < handSize; j++) {
+        players[i].AddCard(Cards.Get(buffer.get()));
+      }
     }
+    PublishView(null);
   }
-}
\ No newline at end of file
+}
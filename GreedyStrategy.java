@@ -0,0 +1,50 @@
+/**
+ * Computer player that sheds its most valuable cards first.
+ * Wild cards are held back until nothing else can be played.
+ */
+public class GreedyStrategy implements PlayerStrategy {
+
+  /**
+   * Picks the highest-point playable card, keeping wild cards for last.
+   * @param game   The game in progress
+   * @param player The player making the selection
+   * @return The index of the selected card
+   */
+  public int SelectCard(GameSystem game, Player player) {
+    long playable = game.GetPlayableCards(player);
+    long normal = playable & ~Cards.WildMask(); // Only play a wild card as a last resort
+    if (normal == 0) {
+      return player.IndexOf(Cards.Get(Long.numberOfTrailingZeros(playable)));
+    }
+    int best = -1;
+    int bestPoints = -1;
+    for (long remaining = normal; remaining != 0; remaining &= remaining - 1) {
+      int ordinal = Long.numberOfTrailingZeros(remaining);
+      if (Cards.Points(ordinal) > bestPoints) {
+        best = ordinal;
+        bestPoints = Cards.Points(ordinal);
+      }
+    }
+    return player.IndexOf(Cards.Get(best));
+  }
+
+  /**
+   * Picks the suit holding the most points in the rest of the hand.
+   * @param game   The game in progress
+   * @param player The player making the selection
+   * @return The chosen suit index
+   */
+  public int SelectSuit(GameSystem game, Player player) {
+    long hand = player.GetHandMask() & ~Cards.WildMask(); // Wild cards can follow any suit
+    int best = 0;
+    int bestPoints = -1;
+    for (int s = 0; s < Card.SUIT_COUNT; s++) {
+      int points = Cards.HandPoints(hand & Cards.SuitMask(s));
+      if (points > bestPoints) {
+        best = s;
+        bestPoints = points;
+      }
+    }
+    return best;
+  }
+}
@@ -0,0 +1,313 @@
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Rebuilds games recorded in a MoveJournal.
+ * Each game is re-dealt from its recorded seed, with the kind of random
+ * source it was recorded with, and every recorded event is
+ * applied to a GameSystem and checked against what the engine does, so a
+ * replayed game is exactly the game that was played. Nothing is displayed.
+ */
+public class JournalReplayer implements AutoCloseable {
+  private FileChannel channel;
+  private MappedByteBuffer[] chunks;
+  private long eventCount;
+  private long[] gameStarts; // Slot of each GAME_START event
+  private int gameCount;
+  private GameSystem game;
+
+  /**
+   * Opens a journal file for replay and indexes the games in it.
+   * @param path The journal file
+   * @throws IOException if the file cannot be read or is not a journal
+   */
+  public JournalReplayer(Path path) throws IOException {
+    channel = FileChannel.open(path, StandardOpenOption.READ);
+    MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, MoveJournal.HEADER_SIZE);
+    header.order(ByteOrder.LITTLE_ENDIAN);
+    if (header.getLong(0) != MoveJournal.MAGIC) {
+      channel.close();
+      throw new IOException(path + " is not a move journal");
+    }
+    eventCount = header.getLong(8);
+
+    long bytes = eventCount * MoveJournal.EVENT_SIZE;
+    chunks = new MappedByteBuffer[(int) ((bytes + MoveJournal.CHUNK_SIZE - 1) / MoveJournal.CHUNK_SIZE)];
+    for (int i = 0; i < chunks.length; i++) {
+      long start = i * MoveJournal.CHUNK_SIZE;
+      chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, MoveJournal.HEADER_SIZE + start,
+          Math.min(MoveJournal.CHUNK_SIZE, bytes - start));
+      chunks[i].order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    gameStarts = new long[16];
+    for (long slot = 0; slot < eventCount; slot++) {
+      if (MoveJournal.TypeOf(ReadEvent(slot)) == MoveJournal.GAME_START) {
+        if (gameCount == gameStarts.length) {
+          long[] grown = new long[gameStarts.length * 2];
+          System.arraycopy(gameStarts, 0, grown, 0, gameCount);
+          gameStarts = grown;
+        }
+        gameStarts[gameCount++] = slot;
+        slot++; // Skip the seed slot
+      }
+    }
+    game = new GameSystem(0L);
+    game.SetMetrics(null); // Replayed games were counted when they were played
+  }
+
+  /**
+   * Reads one raw 8-byte slot.
+   * @param slot Slot number from the start of the journal
+   * @return The slot contents
+   */
+  public long ReadEvent(long slot) {
+    long offset = slot * MoveJournal.EVENT_SIZE;
+    return chunks[(int) (offset / MoveJournal.CHUNK_SIZE)].getLong((int) (offset % MoveJournal.CHUNK_SIZE));
+  }
+
+  /**
+   * Returns the number of slots in the journal, including seed slots.
+   * @return Slots in the journal
+   */
+  public long GetEventCount() {
+    return eventCount;
+  }
+
+  /**
+   * Returns the number of games recorded.
+   * @return Games in the journal
+   */
+  public int GetGameCount() {
+    return gameCount;
+  }
+
+  /**
+   * Returns the seed a recorded game was dealt from.
+   * @param gameIndex Index of the game in the journal
+   * @return The game's seed
+   */
+  public long GetSeed(int gameIndex) {
+    return ReadEvent(gameStarts[gameIndex] + 1);
+  }
+
+  /**
+   * Returns the number of players in a recorded game.
+   * @param gameIndex Index of the game in the journal
+   * @return The game's number of players
+   */
+  public int GetPlayerCount(int gameIndex) {
+    return MoveJournal.PlayersOf(ReadEvent(gameStarts[gameIndex]));
+  }
+
+  /**
+   * Returns the number of decks a recorded game was dealt from.
+   * @param gameIndex Index of the game in the journal
+   * @return The game's number of decks
+   */
+  public int GetDeckCount(int gameIndex) {
+    return MoveJournal.DecksOf(ReadEvent(gameStarts[gameIndex]));
+  }
+
+  /**
+   * Returns the house rules a recorded game was played by.
+   * @param gameIndex Index of the game in the journal
+   * @return The game's rules (without a match target)
+   */
+  public RuleSet GetRules(int gameIndex) {
+    return RuleSet.FromCode(MoveJournal.RulesOf(ReadEvent(gameStarts[gameIndex])));
+  }
+
+  /**
+   * Returns the kind of random source a recorded game was dealt with.
+   * @param gameIndex Index of the game in the journal
+   * @return MoveJournal.XOROSHIRO_SOURCE or MoveJournal.SPLITTABLE_SOURCE
+   */
+  public int GetSourceCode(int gameIndex) {
+    return MoveJournal.SourceOf(ReadEvent(gameStarts[gameIndex]));
+  }
+
+  /**
+   * Returns the number of moves (events after the deal) in a recorded game.
+   * @param gameIndex Index of the game in the journal
+   * @return Events recorded for the game
+   */
+  public int GetMoveCount(int gameIndex) {
+    long end = gameIndex + 1 < gameCount ? gameStarts[gameIndex + 1] : eventCount;
+    return (int) (end - gameStarts[gameIndex] - 2);
+  }
+
+  /**
+   * Returns one move of a recorded game.
+   * @param gameIndex Index of the game in the journal
+   * @param move      Index of the move within the game
+   * @return The packed event (see MoveJournal)
+   */
+  public long GetMove(int gameIndex, int move) {
+    return ReadEvent(gameStarts[gameIndex] + 2 + move);
+  }
+
+  /**
+   * Replays a whole recorded game.
+   * @param gameIndex Index of the game in the journal
+   * @return The game system in the game's final state (reused by later calls)
+   */
+  public GameSystem Replay(int gameIndex) {
+    return SeekTo(gameIndex, GetMoveCount(gameIndex));
+  }
+
+  /**
+   * Replays a recorded game up to a given move.
+   * @param gameIndex Index of the game in the journal
+   * @param moves     Number of moves to apply after the deal
+   * @return The game system after those moves (reused by later calls)
+   */
+  public GameSystem SeekTo(int gameIndex, int moves) {
+    int players = GetPlayerCount(gameIndex);
+    int decks = GetDeckCount(gameIndex);
+    int source = GetSourceCode(gameIndex);
+    if (game.GetPlayerCount() != players || game.GetDeckCount() != decks
+        || MoveJournal.SourceCode(game.GetRandomSource()) != source) {
+      game = new GameSystem(MoveJournal.NewSource(source), players, decks);
+      game.SetMetrics(null);
+    }
+    game.SetRules(GetRules(gameIndex));
+    String[] names = new String[players];
+    for (int i = 0; i < players; i++) {
+      names[i] = "Player " + (i + 1);
+    }
+    game.SetSeed(GetSeed(gameIndex));
+    game.InitializeGame(names);
+    for (int i = 0; i < moves; i++) {
+      Apply(GetMove(gameIndex, i), gameStarts[gameIndex] + 2 + i);
+    }
+    return game;
+  }
+
+  /**
+   * Applies one recorded event to the replay game and checks it.
+   * @param event The packed event
+   * @param slot  Slot of the event, for error messages
+   */
+  private void Apply(long event, long slot) {
+    int seat = MoveJournal.SeatOf(event);
+    int card = MoveJournal.CardOf(event);
+    boolean matches;
+    switch (MoveJournal.TypeOf(event)) {
+      case MoveJournal.PLAY: {
+        Player player = game.GetPlayers()[seat];
+        int index = player.IndexOf(Cards.Get(card));
+        matches = index >= 0 && game.IsValidPlay(player, index);
+        if (matches) {
+          game.PlayCard(player, index, MoveJournal.SuitOf(event));
+          matches = game.GetCurrentSuitIndex() == MoveJournal.SuitOf(event);
+        }
+        break;
+      }
+      case MoveJournal.DRAW: {
+        Card drawn = game.DrawCard();
+        matches = drawn == null ? card == MoveJournal.NONE : drawn.GetOrdinal() == card;
+        if (drawn != null) {
+          game.GetPlayers()[seat].AddCard(drawn);
+        }
+        break;
+      }
+      case MoveJournal.RESHUFFLE:
+        game.ReshuffleDeck();
+        matches = true;
+        break;
+      case MoveJournal.SWITCH_TURN:
+        game.SwitchTurn(); // Repeats any draw-two penalty
+        matches = game.GetCurrentPlayerIndex() == seat;
+        break;
+      case MoveJournal.GAME_END:
+        if (seat == MoveJournal.NONE) {
+          game.SetGameOver(true);
+        }
+        matches = game.IsGameOver();
+        break;
+      default:
+        matches = false;
+    }
+    if (!matches) {
+      throw new IllegalStateException("Journal does not match the engine at slot " + slot);
+    }
+  }
+
+  /**
+   * Closes the journal file.
+   * @throws IOException if the file cannot be closed
+   */
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  /**
+   * Describes one recorded event.
+   * @param event The packed event
+   * @return A readable description (eg: "Player 2 played 7 of Hearts")
+   */
+  public static String Describe(long event) {
+    String player = "Player " + (MoveJournal.SeatOf(event) + 1);
+    int card = MoveJournal.CardOf(event);
+    switch (MoveJournal.TypeOf(event)) {
+      case MoveJournal.PLAY:
+        return player + " played " + Cards.Name(card) + ", suit is " + Card.SuitName(MoveJournal.SuitOf(event));
+      case MoveJournal.DRAW:
+        return card == MoveJournal.NONE ? player + " found no cards to draw" : player + " drew " + Cards.Name(card);
+      case MoveJournal.RESHUFFLE:
+        return "Reshuffled " + MoveJournal.ArgumentOf(event) + " cards into the deck";
+      case MoveJournal.SWITCH_TURN: {
+        int effect = MoveJournal.ArgumentOf(event);
+        String turn = player + "'s turn";
+        if ((effect & RuleSet.REVERSE) != 0) {
+          turn = "Play reversed, " + turn;
+        }
+        if ((effect & RuleSet.SKIP) != 0) {
+          turn = "Skipped, " + turn;
+        }
+        if ((effect & RuleSet.DRAW_TWO) != 0) {
+          turn += " after drawing " + RuleSet.DRAW_TWO_CARDS;
+        }
+        return turn;
+      }
+      case MoveJournal.GAME_END:
+        return MoveJournal.SeatOf(event) == MoveJournal.NONE ? "Game over, no winner" : player + " wins";
+      default:
+        return "Unknown event " + Long.toHexString(event);
+    }
+  }
+
+  /**
+   * Prints the games in a journal, or the moves of one game.
+   * Usage: java JournalReplayer journal-file [game] [moves]
+   * @param args Journal file, optional game index and number of moves to replay
+   * @throws IOException if the journal cannot be read
+   */
+  public static void main(String[] args) throws IOException {
+    try (JournalReplayer replayer = new JournalReplayer(Paths.get(args[0]))) {
+      if (args.length == 1) {
+        System.out.println(replayer.GetGameCount() + " games, " + replayer.GetEventCount() + " events");
+        return;
+      }
+      int gameIndex = Integer.parseInt(args[1]);
+      int moves = args.length > 2 ? Integer.parseInt(args[2]) : replayer.GetMoveCount(gameIndex);
+      System.out.println("Game " + gameIndex + ", seed " + replayer.GetSeed(gameIndex) + ", "
+          + replayer.GetPlayerCount(gameIndex) + " players, " + replayer.GetDeckCount(gameIndex) + " deck(s)");
+      for (int i = 0; i < moves; i++) {
+        System.out.println((i + 1) + ". " + Describe(replayer.GetMove(gameIndex, i)));
+      }
+      GameSystem game = replayer.SeekTo(gameIndex, moves);
+      System.out.println("Top card: " + game.GetTopCard().ToString() + ", current suit: " + game.GetCurrentSuit());
+      for (int i = 0; i < game.GetPlayers().length; i++) {
+        Player player = game.GetPlayers()[i];
+        System.out.println(player.GetName() + ": " + player.GetHandSize() + " cards, " + player.GetHandPoints() + " points");
+      }
+    }
+  }
+}
@@ -0,0 +1,341 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.LongFunction;
+
+/**
+ * Rates any number of computer players against each other.
+ * The league plays rounds until a wall-clock budget runs out or the ratings
+ * settle. Every round is a round robin: one match for each pair of
+ * strategies, with the matches spread across all cores. A match plays each
+ * deal twice with the seats swapped, so neither side gets the luck of the
+ * cards.
+ *
+ * Ratings are on the Elo scale, anchored at an average of 1500. After each
+ * round they are refit to everything played so far (a Bradley-Terry maximum
+ * likelihood fit, warm-started from the previous ratings, so each refit
+ * takes a few passes). Unlike per-game Elo updates the result does not
+ * depend on the order games finish in: for a given seed the ratings after
+ * each round are the same no matter how many threads play the matches.
+ */
+public class LeagueRunner {
+  public static final int DEFAULT_MATCH_GAMES = 200; // Games per match, half with each seating
+  public static final double DEFAULT_TOLERANCE = 1.0; // Largest rating change, in Elo, of a settled round
+
+  private static final double BASE_RATING = 1500;
+  private static final double ELO_SCALE = 400 / Math.log(10); // Elo points per unit of log strength
+  private static final int MAX_FIT_PASSES = 100;
+  private static final double FIT_TOLERANCE = 0.01; // Elo
+  // Two deterministic strategies can pass cards back and forth forever;
+  // finished games last well under 1000 turns, so longer ones are stalemates
+  private static final int MAX_TURNS = 10000;
+
+  private List<String> names = new ArrayList<String>();
+  private List<LongFunction<PlayerStrategy>> factories = new ArrayList<LongFunction<PlayerStrategy>>();
+  private int threads;
+  private int matchGames;
+  private double tolerance;
+
+  // Results so far, indexed by strategy then opponent. Points are counted in
+  // halves (2 for a win, 1 for a stalemate) so every total is an integer.
+  private long[][] halfPoints;
+  private long[][] games;
+  private double[] strength; // Bradley-Terry strength, exp(rating / ELO_SCALE) before anchoring
+  private int rounds;
+  private double lastChange;
+
+  /**
+   * Creates an empty league.
+   * @param threads Number of worker threads
+   */
+  public LeagueRunner(int threads) {
+    this.threads = threads;
+    matchGames = DEFAULT_MATCH_GAMES;
+    tolerance = DEFAULT_TOLERANCE;
+  }
+
+  // ========== HELPER METHODS ==========//
+  /**
+   * Plays one match on the calling thread.
+   * Strategies are created for the match, so they never share state
+   * between threads.
+   * @param a         Index of the first strategy
+   * @param b         Index of the second strategy
+   * @param matchSeed Seed for the match's strategies and deals
+   * @return Half points won by the first strategy
+   */
+  private long PlayMatch(int a, int b, long matchSeed) {
+    GameSystem game = new GameSystem(matchSeed);
+    PlayerStrategy first = factories.get(a).apply(TournamentRunner.MixSeed(matchSeed, 0));
+    PlayerStrategy second = factories.get(b).apply(TournamentRunner.MixSeed(matchSeed, 1));
+    GameRunner ab = new GameRunner(game, first, second);
+    GameRunner ba = new GameRunner(game, second, first);
+    ab.SetTurnLimit(MAX_TURNS);
+    ba.SetTurnLimit(MAX_TURNS);
+    long points = 0;
+    for (int deal = 0; deal < matchGames / 2; deal++) {
+      long dealSeed = TournamentRunner.MixSeed(matchSeed, deal + 2);
+      int winner = ab.PlayGame(dealSeed);
+      points += winner < 0 ? 1 : winner == 0 ? 2 : 0;
+      winner = ba.PlayGame(dealSeed); // Same cards, seats swapped
+      points += winner < 0 ? 1 : winner == 1 ? 2 : 0;
+    }
+    game.FlushMetrics();
+    return points;
+  }
+
+  /**
+   * Refits the strengths to every result so far, starting from the current ones.
+   * Uses the minorization-maximization update for the Bradley-Terry model.
+   * Each pair also counts one drawn game, which keeps a strategy that has
+   * never scored from being rated at minus infinity.
+   */
+  private void FitRatings() {
+    int count = names.size();
+    double[] next = new double[count];
+    for (int pass = 0; pass < MAX_FIT_PASSES; pass++) {
+      double logSum = 0;
+      for (int i = 0; i < count; i++) {
+        double score = 0;
+        double weight = 0;
+        for (int j = 0; j < count; j++) {
+          if (j != i) {
+            score += (halfPoints[i][j] + 1) / 2.0; // Plus the prior draw
+            weight += (games[i][j] + 1) / (strength[i] + strength[j]);
+          }
+        }
+        next[i] = score / weight;
+        logSum += Math.log(next[i]);
+      }
+      double scale = Math.exp(-logSum / count); // Keep the average rating at the base
+      double change = 0;
+      for (int i = 0; i < count; i++) {
+        next[i] *= scale;
+        change = Math.max(change, Math.abs(Math.log(next[i] / strength[i])) * ELO_SCALE);
+        strength[i] = next[i];
+      }
+      if (change < FIT_TOLERANCE) {
+        return;
+      }
+    }
+  }
+
+  // ========== PUBLIC METHODS ==========//
+
+  /**
+   * Adds a strategy to the league.
+   * Strategies must be registered before the league is run.
+   * @param name    Name shown in the standings
+   * @param factory Creates the strategy from a seed, once per match
+   */
+  public void Register(String name, LongFunction<PlayerStrategy> factory) {
+    if (halfPoints != null) {
+      throw new IllegalStateException("Cannot register " + name + " after the league has started");
+    }
+    names.add(name);
+    factories.add(factory);
+  }
+
+  /**
+   * Sets the number of games in each match.
+   * @param gamesPerMatch Games per match, rounded down to an even number (at least 2)
+   */
+  public void SetMatchGames(int gamesPerMatch) {
+    if (gamesPerMatch < 2) {
+      throw new IllegalArgumentException("A match needs at least 2 games, not " + gamesPerMatch);
+    }
+    matchGames = gamesPerMatch & ~1;
+  }
+
+  /**
+   * Sets when the ratings count as settled.
+   * @param elo Largest change in any rating over a round, 0 to always use the whole budget
+   */
+  public void SetTolerance(double elo) {
+    tolerance = elo;
+  }
+
+  /**
+   * Plays rounds until the budget runs out or the ratings settle.
+   * A round that has started is always finished, so the league can run a
+   * little over its budget. Calling Run() again continues the same league.
+   * @param budgetMillis Wall-clock time to spend
+   * @param seed         League seed; round r uses seeds derived from it and r
+   * @return Number of rounds played by this call
+   */
+  public int Run(long budgetMillis, long seed) {
+    int count = names.size();
+    if (count < 2) {
+      throw new IllegalStateException("A league needs at least two strategies");
+    }
+    if (halfPoints == null) {
+      halfPoints = new long[count][count];
+      games = new long[count][count];
+      strength = new double[count];
+      Arrays.fill(strength, 1.0);
+    }
+
+    long deadline = System.nanoTime() + budgetMillis * 1000000L;
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    int played = 0;
+    try {
+      do {
+        long roundSeed = TournamentRunner.MixSeed(seed, rounds);
+        List<Callable<Long>> matches = new ArrayList<Callable<Long>>();
+        for (int a = 0, pair = 0; a < count; a++) {
+          for (int b = a + 1; b < count; b++, pair++) {
+            int first = a;
+            int second = b;
+            long matchSeed = TournamentRunner.MixSeed(roundSeed, pair);
+            matches.add(() -> PlayMatch(first, second, matchSeed));
+          }
+        }
+
+        List<Future<Long>> results = pool.invokeAll(matches);
+        for (int a = 0, pair = 0; a < count; a++) {
+          for (int b = a + 1; b < count; b++, pair++) {
+            long points = results.get(pair).get();
+            halfPoints[a][b] += points;
+            halfPoints[b][a] += 2L * matchGames - points;
+            games[a][b] += matchGames;
+            games[b][a] += matchGames;
+          }
+        }
+
+        double[] before = strength.clone();
+        FitRatings();
+        lastChange = 0;
+        for (int i = 0; i < count; i++) {
+          lastChange = Math.max(lastChange, Math.abs(Math.log(strength[i] / before[i])) * ELO_SCALE);
+        }
+        rounds++;
+        played++;
+      } while (lastChange >= tolerance && System.nanoTime() < deadline);
+      return played;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("League interrupted", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("League match failed", e.getCause());
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Returns the number of registered strategies.
+   * @return Strategies in the league
+   */
+  public int GetStrategyCount() {
+    return names.size();
+  }
+
+  /**
+   * Returns a strategy's name.
+   * @param index Index of the strategy, in order of registration
+   * @return The name it was registered with
+   */
+  public String GetName(int index) {
+    return names.get(index);
+  }
+
+  /**
+   * Returns a strategy's rating.
+   * @param index Index of the strategy, in order of registration
+   * @return Elo rating, with the league averaging 1500
+   */
+  public double GetRating(int index) {
+    return strength == null ? BASE_RATING : BASE_RATING + Math.log(strength[index]) * ELO_SCALE;
+  }
+
+  /**
+   * Returns the number of games a strategy has played.
+   * @param index Index of the strategy, in order of registration
+   * @return Games played against every opponent
+   */
+  public long GetGames(int index) {
+    long total = 0;
+    for (int j = 0; games != null && j < games.length; j++) {
+      total += games[index][j];
+    }
+    return total;
+  }
+
+  /**
+   * Returns a strategy's score against one opponent.
+   * @param index    Index of the strategy
+   * @param opponent Index of the opponent
+   * @return Fraction of the points won, counting a stalemate as half, or 0.5 before they have met
+   */
+  public double GetScore(int index, int opponent) {
+    if (games == null || games[index][opponent] == 0) {
+      return 0.5;
+    }
+    return halfPoints[index][opponent] / (2.0 * games[index][opponent]);
+  }
+
+  /**
+   * Returns the number of rounds played.
+   * @return Rounds played since the league was created
+   */
+  public int GetRounds() {
+    return rounds;
+  }
+
+  /**
+   * Returns how much the ratings moved in the last round.
+   * @return Largest change in any rating, in Elo
+   */
+  public double GetLastChange() {
+    return lastChange;
+  }
+
+  /**
+   * Rates the built-in computer players and prints the standings.
+   * Usage: java LeagueRunner [seconds] [seed] [threads] [games-per-match]
+   * @param args Optional time budget, seed, thread count and match length
+   */
+  public static void main(String[] args) {
+    EngineMetrics.Register();
+    double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 30;
+    long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+    int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+    LeagueRunner league = new LeagueRunner(threads);
+    if (args.length > 3) {
+      league.SetMatchGames(Integer.parseInt(args[3]));
+    }
+    league.Register("Random", s -> new RandomStrategy(s));
+    league.Register("Greedy", s -> new GreedyStrategy());
+    league.Register("MCTS-32", s -> new MonteCarloStrategy(s, MonteCarloStrategy.DEFAULT_BUDGET_MILLIS, 32));
+    league.Register("MCTS-128", s -> new MonteCarloStrategy(s, MonteCarloStrategy.DEFAULT_BUDGET_MILLIS, 128));
+
+    long start = System.nanoTime();
+    league.Run((long) (seconds * 1000), seed);
+    double elapsed = (System.nanoTime() - start) / 1e9;
+
+    int count = league.GetStrategyCount();
+    Integer[] order = new Integer[count];
+    long totalGames = 0;
+    for (int i = 0; i < count; i++) {
+      order[i] = i;
+      totalGames += league.GetGames(i);
+    }
+    Arrays.sort(order, (x, y) -> Double.compare(league.GetRating(y), league.GetRating(x)));
+
+    System.out.printf("Seed         : %d (%d threads)%n", seed, threads);
+    System.out.printf("Rounds       : %d (last moved ratings by %.2f Elo)%n", league.GetRounds(), league.GetLastChange());
+    System.out.printf("Games played : %d%n", totalGames / 2);
+    System.out.printf("Elapsed      : %.3f s%n", elapsed);
+    System.out.printf("Games/sec    : %.0f%n", totalGames / 2 / elapsed);
+    System.out.println();
+    System.out.printf("%-10s %7s %10s%n", "Strategy", "Elo", "Games");
+    for (int i : order) {
+      System.out.printf("%-10s %7.1f %10d%n", league.GetName(i), league.GetRating(i), league.GetGames(i));
+    }
+  }
+}
@@ -0,0 +1,317 @@
+import java.util.Arrays;
+
+/**
+ * Computer player that searches with information-set Monte Carlo tree search.
+ * Every iteration guesses the cards this player cannot see (the opponent's
+ * hand and the deck order), walks a tree of moves shared by all guesses, and
+ * finishes the game with a fast random playout. The search stops when its
+ * time budget runs out, so the player answers in a fixed time.
+ */
+public class MonteCarloStrategy implements PlayerStrategy {
+  public static final long DEFAULT_BUDGET_MILLIS = 50; // Leaves room under a 100 ms response
+
+  private static final double EXPLORATION = 0.7; // UCB exploration constant
+  private static final int CHECK_INTERVAL = 32; // Iterations between clock reads
+  private static final int MAX_PLAYOUT_TURNS = 500; // Scored as a stalemate beyond this
+
+  private RandomSource random;
+  private long budgetNanos;
+  private int maxIterations;
+  private GameSystem root; // The position being searched
+  private GameSystem state; // Scratch copy of the position for each iteration
+  private int chosenSuit;
+  private int lastIterations;
+
+  // Search tree, one entry per node in each array, reused between searches
+  private int[] nodeMove;
+  private int[] nodeSeat; // Player who made the node's move
+  private int[] nodeChild; // First child, or -1
+  private int[] nodeSibling; // Next child of the same parent, or -1
+  private int[] nodeVisits;
+  private int[] nodeAvailable; // Iterations in which the node's move was legal
+  private double[] nodeReward;
+  private int nodeCount;
+  private int[] path; // Nodes visited by the current iteration
+
+  private int[] moves = new int[GameSystem.MAX_MOVES];
+  private int[] moveMarks = new int[GameSystem.MOVE_COUNT]; // Legal moves of the current step carry the current mark
+  private int mark;
+
+  /**
+   * Creates a search player with the default time budget.
+   * @param seed Seed for the player's guesses and playouts
+   */
+  public MonteCarloStrategy(long seed) {
+    this(seed, DEFAULT_BUDGET_MILLIS);
+  }
+
+  /**
+   * Creates a search player with the given time budget per decision.
+   * @param seed         Seed for the player's guesses and playouts
+   * @param budgetMillis Milliseconds to search before choosing a card
+   */
+  public MonteCarloStrategy(long seed, long budgetMillis) {
+    this(seed, budgetMillis, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Creates a search player limited by time and by iterations.
+   * With a generous time budget the iteration limit makes the player's
+   * choices depend only on the seed, which keeps simulations reproducible.
+   * @param seed          Seed for the player's guesses and playouts
+   * @param budgetMillis  Milliseconds to search before choosing a card
+   * @param maxIterations Most iterations to run per decision
+   */
+  public MonteCarloStrategy(long seed, long budgetMillis, int maxIterations) {
+    random = new Xoroshiro128PlusPlus(seed);
+    budgetNanos = budgetMillis * 1000000L;
+    this.maxIterations = maxIterations;
+    root = new GameSystem(0L);
+    state = new GameSystem(random.NextLong());
+    root.SetMetrics(null); // Searched games are not real games
+    state.SetMetrics(null);
+    chosenSuit = -1;
+    Grow(4096);
+  }
+
+  // ========== HELPER METHODS ==========//
+  /**
+   * Resizes the search tree arrays.
+   * @param capacity New number of nodes the tree can hold
+   */
+  private void Grow(int capacity) {
+    nodeMove = nodeMove == null ? new int[capacity] : Arrays.copyOf(nodeMove, capacity);
+    nodeSeat = nodeSeat == null ? new int[capacity] : Arrays.copyOf(nodeSeat, capacity);
+    nodeChild = nodeChild == null ? new int[capacity] : Arrays.copyOf(nodeChild, capacity);
+    nodeSibling = nodeSibling == null ? new int[capacity] : Arrays.copyOf(nodeSibling, capacity);
+    nodeVisits = nodeVisits == null ? new int[capacity] : Arrays.copyOf(nodeVisits, capacity);
+    nodeAvailable = nodeAvailable == null ? new int[capacity] : Arrays.copyOf(nodeAvailable, capacity);
+    nodeReward = nodeReward == null ? new double[capacity] : Arrays.copyOf(nodeReward, capacity);
+    path = path == null ? new int[capacity] : Arrays.copyOf(path, capacity); // A path never repeats a node
+  }
+
+  /**
+   * Adds a node to the tree.
+   * @param parent Parent node, or -1 for the root
+   * @param move   Move that leads to the node
+   * @param seat   Player making the move
+   * @return The new node
+   */
+  private int AddNode(int parent, int move, int seat) {
+    if (nodeCount == nodeMove.length) {
+      Grow(nodeCount * 2);
+    }
+    int node = nodeCount++;
+    nodeMove[node] = move;
+    nodeSeat[node] = seat;
+    nodeChild[node] = -1;
+    nodeSibling[node] = -1;
+    nodeVisits[node] = 0;
+    nodeAvailable[node] = 0;
+    nodeReward[node] = 0;
+    if (parent >= 0) {
+      nodeSibling[node] = nodeChild[parent];
+      nodeChild[parent] = node;
+    }
+    return node;
+  }
+
+  /**
+   * Plays a move for the current player and passes the turn.
+   * @param game The game to play in
+   * @param move The move (see GameSystem.PackMove())
+   */
+  private static void ApplyMove(GameSystem game, int move) {
+    game.PlayMove(move);
+    if (!game.IsGameOver()) {
+      game.SwitchTurn();
+    }
+  }
+
+  /**
+   * Draws for the current player until they can play, as the turn loop does.
+   * @param game The game to draw in
+   * @return false if the cards ran out, which ends the game in a stalemate
+   */
+  private static boolean DrawUntilPlayable(GameSystem game) {
+    Player player = game.GetCurrentPlayer();
+    while (!game.HasPlayableCards(player)) {
+      Card drawn = game.DrawCard();
+      if (drawn == null) { // DrawCard has ended the game
+        return false;
+      }
+      player.AddCard(drawn);
+    }
+    return true;
+  }
+
+  /**
+   * Picks the suit with the most cards in a hand, ignoring wild cards.
+   * @param hand Mask of the cards held
+   * @return The suit index
+   */
+  private static int LongestSuit(long hand) {
+    hand &= ~Cards.WildMask();
+    int best = 0;
+    for (int suit = 1; suit < Card.SUIT_COUNT; suit++) {
+      if (Long.bitCount(hand & Cards.SuitMask(suit)) > Long.bitCount(hand & Cards.SuitMask(best))) {
+        best = suit;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Finishes the scratch game with random playable cards.
+   * Wild cards name the player's longest suit.
+   */
+  private void Playout() {
+    for (int turns = 0; !state.IsGameOver(); turns++) {
+      if (turns == MAX_PLAYOUT_TURNS) {
+        state.SetGameOver(true);
+        return;
+      }
+      if (!DrawUntilPlayable(state)) {
+        return;
+      }
+      Player player = state.GetCurrentPlayer();
+      long playable = state.GetPlayableCards(player);
+      for (int pick = random.NextInt(Long.bitCount(playable)); pick > 0; pick--) {
+        playable &= playable - 1; // Skip to the chosen playable card
+      }
+      int ordinal = Long.numberOfTrailingZeros(playable);
+      int suit = Cards.IsWild(ordinal) ? LongestSuit(player.GetHandMask() & ~(1L << ordinal)) : ordinal / Cards.RANK_COUNT;
+      ApplyMove(state, GameSystem.PackMove(ordinal, suit));
+    }
+  }
+
+  /**
+   * Runs one search iteration: guess the hidden cards, select and expand
+   * a path through the tree, play the game out and score the path.
+   * @param seat Index of the searching player
+   */
+  private void Iterate(int seat) {
+    state.CopyFrom(root);
+    state.Determinize(seat);
+    int node = 0;
+    int depth = 0;
+    path[depth++] = node;
+
+    while (!state.IsGameOver() && DrawUntilPlayable(state)) {
+      int count = state.GenerateMoves(moves);
+      mark++;
+      for (int i = 0; i < count; i++) {
+        moveMarks[moves[i]] = mark;
+      }
+
+      // Choose among children whose move is legal in this guess
+      int best = -1;
+      double bestScore = Double.NEGATIVE_INFINITY;
+      for (int child = nodeChild[node]; child >= 0; child = nodeSibling[child]) {
+        if (moveMarks[nodeMove[child]] == mark) {
+          moveMarks[nodeMove[child]] = 0; // Tried already
+          nodeAvailable[child]++;
+          double score = nodeReward[child] / nodeVisits[child]
+              + EXPLORATION * Math.sqrt(Math.log(nodeAvailable[child]) / nodeVisits[child]);
+          if (score > bestScore) {
+            best = child;
+            bestScore = score;
+          }
+        }
+      }
+
+      // Expand one untried move if there is one
+      int untried = 0;
+      for (int i = 0; i < count; i++) {
+        if (moveMarks[moves[i]] == mark) {
+          moves[untried++] = moves[i];
+        }
+      }
+      if (untried > 0) {
+        int move = moves[random.NextInt(untried)];
+        node = AddNode(node, move, state.GetCurrentPlayerIndex());
+        nodeAvailable[node] = 1;
+        path[depth++] = node;
+        ApplyMove(state, move);
+        break;
+      }
+      node = best;
+      path[depth++] = node;
+      ApplyMove(state, nodeMove[node]);
+    }
+
+    Playout();
+    int winner = state.GetWinnerIndex();
+    for (int i = 1; i < depth; i++) {
+      int visited = path[i];
+      nodeVisits[visited]++;
+      nodeReward[visited] += winner < 0 ? 0.5 : winner == nodeSeat[visited] ? 1 : 0;
+    }
+  }
+
+  // ========== PUBLIC METHODS ==========//
+
+  /**
+   * Searches for the best card to play until the time budget runs out.
+   * The suit to name, if the card is wild, is kept for SelectSuit().
+   * @param game   The game in progress
+   * @param player The player making the selection
+   * @return The index of the selected card
+   */
+  public int SelectCard(GameSystem game, Player player) {
+    int seat = game.GetCurrentPlayerIndex();
+    lastIterations = 0;
+    int count = game.GenerateMoves(moves);
+    int move = moves[0];
+
+    if (count > 1) {
+      if (root.GetPlayerCount() != game.GetPlayerCount() || root.GetDeckCount() != game.GetDeckCount()) {
+        root = new GameSystem(0L, game.GetPlayerCount(), game.GetDeckCount());
+        state = new GameSystem(random.NextLong(), game.GetPlayerCount(), game.GetDeckCount());
+        root.SetMetrics(null);
+        state.SetMetrics(null);
+      }
+      root.CopyFrom(game);
+      nodeCount = 0;
+      AddNode(-1, -1, -1);
+      long deadline = System.nanoTime() + budgetNanos;
+      do {
+        for (int i = 0; i < CHECK_INTERVAL && lastIterations < maxIterations; i++) {
+          Iterate(seat);
+          lastIterations++;
+        }
+      } while (lastIterations < maxIterations && System.nanoTime() < deadline);
+
+      int mostVisits = -1;
+      for (int child = nodeChild[0]; child >= 0; child = nodeSibling[child]) {
+        if (nodeVisits[child] > mostVisits) {
+          move = nodeMove[child];
+          mostVisits = nodeVisits[child];
+        }
+      }
+    }
+
+    chosenSuit = GameSystem.MoveSuitOf(move);
+    return player.IndexOf(Cards.Get(GameSystem.MoveCardOf(move)));
+  }
+
+  /**
+   * Names the suit found by the last search, or the longest suit in hand.
+   * @param game   The game in progress
+   * @param player The player making the selection
+   * @return The chosen suit index
+   */
+  public int SelectSuit(GameSystem game, Player player) {
+    int suit = chosenSuit;
+    chosenSuit = -1;
+    return suit >= 0 ? suit : LongestSuit(player.GetHandMask());
+  }
+
+  /**
+   * Returns the number of iterations the last search ran.
+   * @return Iterations in the last call to SelectCard(), 0 if it had one choice
+   */
+  public int GetLastIterations() {
+    return lastIterations;
+  }
+}
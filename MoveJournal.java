@@ -0,0 +1,268 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Append-only, memory-mapped log of every state change in a game.
+ * Attach one to a GameSystem with SetJournal() and every game it plays is
+ * recorded; JournalReplayer rebuilds any recorded game from the file.
+ *
+ * The file starts with a 16-byte header (magic, event count) followed by
+ * fixed-width 8-byte events, little-endian:
+ * byte 0 type, byte 1 seat, byte 2 card ordinal, byte 3 suit, bytes 4-7 argument.
+ * A GAME_START event is always followed by one slot holding the game's seed.
+ */
+public class MoveJournal implements AutoCloseable {
+  // Event types
+  public static final int GAME_START = 1; // argument: players | decks << 8 | rules << 16 | source << 24; next slot: seed
+  public static final int PLAY = 2;       // seat played card, suit is the next suit
+  public static final int DRAW = 3;       // seat drew card (NONE if nothing was left)
+  public static final int RESHUFFLE = 4;  // argument: cards moved from discard pile to deck
+  public static final int SWITCH_TURN = 5; // seat is the next player; argument: effect applied (see RuleSet)
+  public static final int GAME_END = 6;   // seat is the winner (NONE for a stalemate)
+
+  public static final int NONE = 0xFF; // Seat, card or suit not set
+
+  // Random sources a game can be dealt from and replayed with
+  public static final int XOROSHIRO_SOURCE = 0;
+  public static final int SPLITTABLE_SOURCE = 1;
+  public static final int EVENT_SIZE = 8;
+  public static final int HEADER_SIZE = 16;
+  public static final long MAGIC = 0x314C4E524A384543L; // "CE8JRNL1" little-endian
+
+  static final long CHUNK_SIZE = 16L << 20; // File is mapped 16 MB at a time
+
+  private FileChannel channel;
+  private MappedByteBuffer header;
+  private MappedByteBuffer chunk;
+  private long chunkStart;
+  private long eventCount;
+
+  /**
+   * Opens a journal file, creating it if needed and appending to it otherwise.
+   * @param path The journal file
+   * @throws IOException if the file cannot be opened or is not a journal
+   */
+  public MoveJournal(Path path) throws IOException {
+    channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    boolean existing = channel.size() > 0;
+    header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+    header.order(ByteOrder.LITTLE_ENDIAN);
+    if (existing) {
+      if (header.getLong(0) != MAGIC) {
+        channel.close();
+        throw new IOException(path + " is not a move journal");
+      }
+      eventCount = header.getLong(8);
+    } else {
+      header.putLong(0, MAGIC);
+      header.putLong(8, 0);
+    }
+    MapChunk(HEADER_SIZE + eventCount * EVENT_SIZE);
+  }
+
+  /**
+   * Maps the chunk of the file that contains the given offset.
+   * @param offset File offset of the next event
+   */
+  private void MapChunk(long offset) throws IOException {
+    chunkStart = offset - (offset - HEADER_SIZE) % CHUNK_SIZE;
+    chunk = channel.map(FileChannel.MapMode.READ_WRITE, chunkStart, CHUNK_SIZE);
+    chunk.order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * Writes one raw 8-byte slot and bumps the event count.
+   * @param slot The slot contents
+   */
+  private void Put(long slot) {
+    long offset = HEADER_SIZE + eventCount * EVENT_SIZE;
+    if (offset - chunkStart >= CHUNK_SIZE) {
+      try {
+        MapChunk(offset);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+    chunk.putLong((int) (offset - chunkStart), slot);
+    eventCount++;
+    header.putLong(8, eventCount);
+  }
+
+  /**
+   * Packs an event into its 8-byte form.
+   * @param type     Event type
+   * @param seat     Player index, or NONE
+   * @param card     Card ordinal, or NONE
+   * @param suit     Suit index, or NONE
+   * @param argument Event-specific argument
+   * @return The packed event
+   */
+  public static long Pack(int type, int seat, int card, int suit, int argument) {
+    return (type & 0xFF) | (seat & 0xFFL) << 8 | (card & 0xFFL) << 16 | (suit & 0xFFL) << 24 | (long) argument << 32;
+  }
+
+  /**
+   * Returns the type of a packed event.
+   * @param event The packed event
+   * @return The event's type
+   */
+  public static int TypeOf(long event) {
+    return (int) (event & 0xFF);
+  }
+
+  /**
+   * Returns the seat of a packed event.
+   * @param event The packed event
+   * @return The event's seat, or NONE
+   */
+  public static int SeatOf(long event) {
+    return (int) (event >>> 8 & 0xFF);
+  }
+
+  /**
+   * Returns the card ordinal of a packed event.
+   * @param event The packed event
+   * @return The event's card ordinal, or NONE
+   */
+  public static int CardOf(long event) {
+    return (int) (event >>> 16 & 0xFF);
+  }
+
+  /**
+   * Returns the suit of a packed event.
+   * @param event The packed event
+   * @return The event's suit, or NONE
+   */
+  public static int SuitOf(long event) {
+    return (int) (event >>> 24 & 0xFF);
+  }
+
+  /**
+   * Returns the number of players of a packed GAME_START event.
+   * @param event The packed event
+   * @return Number of players
+   */
+  public static int PlayersOf(long event) {
+    return ArgumentOf(event) & 0xFF;
+  }
+
+  /**
+   * Returns the number of decks of a packed GAME_START event.
+   * @param event The packed event
+   * @return Number of decks (journals written before multi-deck games count as 1)
+   */
+  public static int DecksOf(long event) {
+    return Math.max(1, ArgumentOf(event) >>> 8 & 0xFF);
+  }
+
+  /**
+   * Returns the rules of a packed GAME_START event.
+   * @param event The packed event
+   * @return RuleSet.GetCode() of the game's rules (0 for the standard game)
+   */
+  public static int RulesOf(long event) {
+    return ArgumentOf(event) >>> 16 & 0xFF;
+  }
+
+  /**
+   * Returns the random source of a packed GAME_START event.
+   * @param event The packed event
+   * @return XOROSHIRO_SOURCE or SPLITTABLE_SOURCE
+   */
+  public static int SourceOf(long event) {
+    return ArgumentOf(event) >>> 24;
+  }
+
+  /**
+   * Returns the journal code of a random source.
+   * @param random The random source
+   * @return XOROSHIRO_SOURCE or SPLITTABLE_SOURCE, or -1 if its games cannot be replayed
+   */
+  public static int SourceCode(RandomSource random) {
+    if (random.getClass() == Xoroshiro128PlusPlus.class) {
+      return XOROSHIRO_SOURCE;
+    }
+    return random.getClass() == SplittableRandomSource.class ? SPLITTABLE_SOURCE : -1;
+  }
+
+  /**
+   * Creates a random source of the kind a game was recorded with.
+   * @param source XOROSHIRO_SOURCE or SPLITTABLE_SOURCE
+   * @return A new random source, to be seeded with the game's seed
+   */
+  public static RandomSource NewSource(int source) {
+    switch (source) {
+      case XOROSHIRO_SOURCE:
+        return new Xoroshiro128PlusPlus(0L);
+      case SPLITTABLE_SOURCE:
+        return new SplittableRandomSource(0L);
+      default:
+        throw new IllegalArgumentException("Unknown random source " + source);
+    }
+  }
+
+  /**
+   * Returns the argument of a packed event.
+   * @param event The packed event
+   * @return The event's argument
+   */
+  public static int ArgumentOf(long event) {
+    return (int) (event >>> 32);
+  }
+
+  /**
+   * Records the start of a game.
+   * @param players Number of players
+   * @param decks   Number of decks shuffled together
+   * @param rules   RuleSet.GetCode() of the game's rules
+   * @param source  SourceCode() of the random source the game was dealt with
+   * @param seed    Seed the game was dealt from
+   */
+  public void GameStart(int players, int decks, int rules, int source, long seed) {
+    Put(Pack(GAME_START, NONE, NONE, NONE, players | decks << 8 | rules << 16 | source << 24));
+    Put(seed);
+  }
+
+  /**
+   * Records an event.
+   * @param type     Event type
+   * @param seat     Player index, or NONE
+   * @param card     Card ordinal, or NONE
+   * @param suit     Suit index, or NONE
+   * @param argument Event-specific argument
+   */
+  public void Append(int type, int seat, int card, int suit, int argument) {
+    Put(Pack(type, seat, card, suit, argument));
+  }
+
+  /**
+   * Returns the number of 8-byte slots written, including seed slots.
+   * @return Slots in the journal
+   */
+  public long GetEventCount() {
+    return eventCount;
+  }
+
+  /**
+   * Forces written events out to the storage device.
+   */
+  public void Flush() {
+    chunk.force();
+    header.force();
+  }
+
+  /**
+   * Flushes the journal and trims the file to the events written.
+   * @throws IOException if the file cannot be written
+   */
+  public void close() throws IOException {
+    Flush();
+    channel.truncate(HEADER_SIZE + eventCount * EVENT_SIZE);
+    channel.close();
+  }
+}
@@ -10,6 +10,10 @@ public class NormalCard extends Card {
         super(suit, rank);
     }
 
+    public NormalCard(int suit, int rank) {
+        super(suit, rank);
+    }
+
     // Override
     /**
      * Gets the point value of the normal card.
@@ -22,11 +26,11 @@ public class NormalCard extends Card {
     // Override
     /**
      * Checks if normal card can be played.
-     * @param currentSuit Current suit in play
+     * @param currentSuit Current suit index in play
      * @param currentRank Current rank in play
      * @return true if card matches current suit or rank
      */
-    public boolean CanPlay(String currentSuit, int currentRank) { // Returns true if the card matches the current suit or rank
-        return GetSuit().equals(currentSuit) || GetRank() == currentRank;
+    public boolean CanPlay(int currentSuit, int currentRank) { // Returns true if the card matches the current suit or rank
+        return GetSuitIndex() == currentSuit || GetRank() == currentRank;
     }
 }
\ No newline at end of file
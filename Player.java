@@ -1,31 +1,128 @@
 /**
  * Represents a player in the Crazy Eights game.
  * Manages the player's hand of cards and game actions.
+ * The hand is a 52-bit mask of card ordinals (see Cards), so adding,
+ * removing and checking a card are single bit operations.
+ * Games dealt from several decks can hold more than one copy of a card;
+ * each extra copy goes in its own mask layer, one layer per extra deck.
+ * Indexed access walks the hand in ordinal order (by suit, then rank),
+ * with copies of the same card next to each other.
  */
 public class Player {
-    final int MAX_HAND_SIZE = 52; // Maximum number of cards a player can have
     private String name;
-    private Card[] hand;
-    private int handSize;
+    private long hand; // Cards held at least once
+    private long[] copies; // copies[k] holds the cards held at least k + 2 times, null for one deck
 
     /**
      * Initializes a new player with the given name.
      * @param name The player's name
      */
     public Player(String name) {
+        this(name, 1);
+    }
+
+    /**
+     * Initializes a new player for a game dealt from several decks.
+     * @param name      The player's name
+     * @param deckCount Number of decks in the game, which is the most copies of a card the hand can hold
+     */
+    public Player(String name, int deckCount) {
+        if (deckCount < 1) {
+            throw new IllegalArgumentException("A game needs at least one deck");
+        }
         this.name = name;
-        hand = new Card[MAX_HAND_SIZE];
-        handSize = 0;
+        hand = 0;
+        copies = deckCount > 1 ? new long[deckCount - 1] : null;
+    }
+
+    // ========== HELPER METHODS ==========//
+    /**
+     * Finds the ordinal of the card at the given hand index.
+     * @param index The index of the card, which must be within the hand
+     * @return The card ordinal
+     */
+    private int OrdinalAt(int index) {
+        long remaining = hand;
+        if (copies == null) {
+            for (int i = 0; i < index; i++) {
+                remaining &= remaining - 1; // Clear the lowest card
+            }
+            return Long.numberOfTrailingZeros(remaining);
+        }
+        while (true) {
+            int ordinal = Long.numberOfTrailingZeros(remaining);
+            index -= GetCardCount(ordinal);
+            if (index < 0) {
+                return ordinal;
+            }
+            remaining &= remaining - 1;
+        }
     }
 
+    /**
+     * Removes one copy of a card.
+     * @param ordinal The card ordinal, which must be in the hand
+     */
+    private void RemoveOrdinal(int ordinal) {
+        long bit = 1L << ordinal;
+        if (copies != null) {
+            for (int k = copies.length - 1; k >= 0; k--) {
+                if ((copies[k] & bit) != 0) {
+                    copies[k] &= ~bit;
+                    return;
+                }
+            }
+        }
+        hand &= ~bit;
+    }
+
+    // ========== PUBLIC METHODS ==========//
+
     /**
      * Adds a card to the player's hand.
      * @param card The card to add
+     * @throws IllegalStateException if the hand already holds a copy of the card from every deck
      */
     public void AddCard(Card card) {
-        if (handSize < hand.length) {
-            hand[handSize++] = card;
+        if (card == null) {
+            return;
+        }
+        long bit = 1L << card.GetOrdinal();
+        if ((hand & bit) == 0) {
+            hand |= bit;
+            return;
         }
+        if (copies != null) {
+            for (int k = 0; k < copies.length; k++) {
+                if ((copies[k] & bit) == 0) {
+                    copies[k] |= bit;
+                    return;
+                }
+            }
+        }
+        throw new IllegalStateException(name + " already holds every copy of " + card.ToString());
+    }
+
+    /**
+     * Removes one copy of a card from the player's hand.
+     * @param card The card to remove
+     * @return true if the card was in the hand
+     */
+    public boolean RemoveCard(Card card) {
+        if ((hand & (1L << card.GetOrdinal())) == 0) {
+            return false;
+        }
+        RemoveOrdinal(card.GetOrdinal());
+        return true;
+    }
+
+    /**
+     * Checks if the player holds a card.
+     * @param card The card to check
+     * @return true if at least one copy of the card is in the hand
+     */
+    public boolean HasCard(Card card) {
+        return (hand & (1L << card.GetOrdinal())) != 0;
     }
 
     /**
@@ -34,18 +131,12 @@ public class Player {
      * @return The played card, or null if index is invalid
      */
     public Card PlayCard(int index) { // Play a card from player's hand
-        if (index < 0 || index >= handSize) { // Invalid index or index out of range
+        if (index < 0 || index >= GetHandSize()) { // Invalid index or index out of range
             return null;
         }
-        Card played = hand[index];
-
-        for (int i = index; i < handSize - 1; i++) {
-            hand[i] = hand[i + 1]; // Shifting cards to fill the gap
-        }
-        hand[handSize - 1] = null; // Removing the previous card
-        handSize--;
-        return played;
-
+        int ordinal = OrdinalAt(index);
+        RemoveOrdinal(ordinal); // Removing the card
+        return Cards.Get(ordinal);
     }
 
     /**
@@ -53,27 +144,130 @@ public class Player {
      * @return true if player has no cards, false otherwise
      */
     public boolean HasWon() {
-        return handSize == 0;
+        return hand == 0;
+    }
+
+    /**
+     * Gets the card at the given index without copying the hand.
+     * @param index The index of the card
+     * @return The card, or null if index is invalid
+     */
+    public Card GetCard(int index) {
+        if (index < 0 || index >= GetHandSize()) { // Invalid index or index out of range
+            return null;
+        }
+        return Cards.Get(OrdinalAt(index));
+    }
+
+    /**
+     * Finds the index of a card in the player's hand.
+     * @param card The card to look for
+     * @return The index of the first copy of the card, or -1 if it is not in the hand
+     */
+    public int IndexOf(Card card) {
+        long bit = 1L << card.GetOrdinal();
+        if ((hand & bit) == 0) {
+            return -1;
+        }
+        int index = Long.bitCount(hand & (bit - 1)); // Number of cards before it
+        if (copies != null) {
+            for (int k = 0; k < copies.length; k++) {
+                index += Long.bitCount(copies[k] & (bit - 1));
+            }
+        }
+        return index;
     }
 
     /**
      * Creates a copy of the player's hand.
+     * Prefer GetCard() or GetHandMask() in code that runs every turn.
      * @return A new array containing the player's hand
      */
     public Card[] GetHand() {
-        Card[] currHand = new Card[handSize]; // Create new array to store the current hand
-        for (int i = 0; i < handSize; i++) {
-            currHand[i] = hand[i]; // Copy cards from original hand to the new array
+        Card[] currHand = new Card[GetHandSize()]; // Create new array to store the current hand
+        long remaining = hand;
+        for (int i = 0; remaining != 0; remaining &= remaining - 1) {
+            int ordinal = Long.numberOfTrailingZeros(remaining);
+            for (int j = GetCardCount(ordinal); j > 0; j--) {
+                currHand[i++] = Cards.Get(ordinal);
+            }
         }
         return currHand;
     }
 
+    /**
+     * Replaces the player's hand with a set of cards, one copy of each.
+     * @param mask Mask with bit n set for each card ordinal n to hold
+     */
+    public void SetHandMask(long mask) {
+        hand = mask;
+        if (copies != null) {
+            for (int k = 0; k < copies.length; k++) {
+                copies[k] = 0;
+            }
+        }
+    }
+
+    /**
+     * Replaces the player's hand with a copy of another player's hand.
+     * @param other A player from a game with the same number of decks
+     */
+    public void CopyHand(Player other) {
+        if ((copies == null ? 0 : copies.length) != (other.copies == null ? 0 : other.copies.length)) {
+            throw new IllegalArgumentException("Cannot copy a hand dealt from a different number of decks");
+        }
+        hand = other.hand;
+        if (copies != null) {
+            System.arraycopy(other.copies, 0, copies, 0, copies.length);
+        }
+    }
+
+    /**
+     * Removes every card from the player's hand.
+     */
+    public void ClearHand() {
+        SetHandMask(0);
+    }
+
+    /**
+     * Gets the player's hand as a set of cards.
+     * @return Mask with bit n set if at least one card with ordinal n is in the hand
+     */
+    public long GetHandMask() {
+        return hand;
+    }
+
+    /**
+     * Counts the copies of a card in the player's hand.
+     * @param ordinal The card ordinal
+     * @return Number of copies held, 0 if none
+     */
+    public int GetCardCount(int ordinal) {
+        long bit = 1L << ordinal;
+        if ((hand & bit) == 0) {
+            return 0;
+        }
+        int count = 1;
+        if (copies != null) {
+            for (int k = 0; k < copies.length && (copies[k] & bit) != 0; k++) {
+                count++;
+            }
+        }
+        return count;
+    }
+
     /**
      * Gets the number of cards in player's hand.
      * @return Number of cards in hand
      */
     public int GetHandSize() {
-        return handSize;
+        int size = Long.bitCount(hand);
+        if (copies != null) {
+            for (int k = 0; k < copies.length; k++) {
+                size += Long.bitCount(copies[k]);
+            }
+        }
+        return size;
     }
 
     /**
@@ -89,10 +283,12 @@ public class Player {
      * @return Total points value
      */
     public int GetHandPoints() {
-        int points = 0;
-        for (int i = 0; i < handSize; i++) {
-            points += hand[i].GetPoints();
+        int points = Cards.HandPoints(hand);
+        if (copies != null) {
+            for (int k = 0; k < copies.length; k++) {
+                points += Cards.HandPoints(copies[k]);
+            }
         }
         return points;
     }
-}
\ No newline at end of file
+}
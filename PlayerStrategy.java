@@ -0,0 +1,24 @@
+/**
+ * Decision-making interface for computer-controlled players.
+ * Makes the same choices CrazyEightsMain gets from the Displayer prompts,
+ * so games can be played without any console input.
+ */
+public interface PlayerStrategy {
+  /**
+   * Chooses a card to play from the player's hand.
+   * Only called when the player has at least one playable card.
+   * @param game   The game in progress
+   * @param player The player making the selection
+   * @return The index of the selected card in the player's hand
+   */
+  int SelectCard(GameSystem game, Player player);
+
+  /**
+   * Chooses the new suit after selecting a wild card.
+   * The wild card is still in the player's hand when this is called.
+   * @param game   The game in progress
+   * @param player The player making the selection
+   * @return The chosen suit index (Card.SPADES, Card.HEARTS, Card.CLUBS or Card.DIAMONDS)
+   */
+  int SelectSuit(GameSystem game, Player player);
+}
@@ -0,0 +1,25 @@
+/**
+ * Source of random numbers for shuffling and computer players.
+ * Each game or player owns its own source, so nothing is shared between
+ * threads and a game seeded the same way always plays out the same way.
+ */
+public interface RandomSource {
+  /**
+   * Restarts the sequence from a seed.
+   * @param seed The seed
+   */
+  void SetSeed(long seed);
+
+  /**
+   * Returns the next 64 random bits.
+   * @return A uniformly distributed long
+   */
+  long NextLong();
+
+  /**
+   * Returns a uniformly distributed int between 0 (inclusive) and bound (exclusive).
+   * @param bound The upper bound, which must be positive
+   * @return A random int in [0, bound)
+   */
+  int NextInt(int bound);
+}
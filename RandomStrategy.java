@@ -0,0 +1,40 @@
+/**
+ * Computer player that plays a random playable card.
+ * Useful as a baseline opponent for simulations.
+ */
+public class RandomStrategy implements PlayerStrategy {
+  private RandomSource random;
+
+  /**
+   * Creates a random player with the given seed.
+   * @param seed Seed for the player's random choices
+   */
+  public RandomStrategy(long seed) {
+    random = new Xoroshiro128PlusPlus(seed);
+  }
+
+  /**
+   * Picks uniformly among the playable cards in hand.
+   * @param game   The game in progress
+   * @param player The player making the selection
+   * @return The index of the selected card
+   */
+  public int SelectCard(GameSystem game, Player player) {
+    long playable = game.GetPlayableCards(player);
+    int pick = random.NextInt(Long.bitCount(playable));
+    for (int i = 0; i < pick; i++) {
+      playable &= playable - 1; // Skip to the chosen playable card
+    }
+    return player.IndexOf(Cards.Get(Long.numberOfTrailingZeros(playable)));
+  }
+
+  /**
+   * Picks a random suit.
+   * @param game   The game in progress
+   * @param player The player making the selection
+   * @return The chosen suit index
+   */
+  public int SelectSuit(GameSystem game, Player player) {
+    return random.NextInt(Card.SUIT_COUNT);
+  }
+}
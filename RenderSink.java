@@ -0,0 +1,20 @@
+/**
+ * Destination for the text Displayer renders.
+ * Displayer builds a whole turn in its own buffer and hands it over in one
+ * call, so a sink sees a few large writes instead of one per line.
+ */
+public interface RenderSink {
+  /**
+   * Sink that discards everything, for games played without a console.
+   */
+  RenderSink NULL = (text, length) -> {
+  };
+
+  /**
+   * Writes rendered text and pushes it to its destination.
+   * The array is reused by the caller once this returns.
+   * @param text   Buffer holding the text
+   * @param length Number of characters to write from the start of the buffer
+   */
+  void Write(char[] text, int length);
+}
@@ -0,0 +1,19 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event committed by GameSystem.ReshuffleDeck().
+ */
+@Name("crazyeights.Reshuffle")
+@Label("Reshuffle")
+@Category("Crazy Eights")
+@Description("Discard pile shuffled back into the deck")
+public class ReshuffleEvent extends jdk.jfr.Event {
+  @Label("Cards Moved")
+  int cards;
+
+  @Label("Reshuffles In Game")
+  int reshuffleCount;
+}
@@ -0,0 +1,519 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Columnar, memory-mapped store of finished games.
+ * Each field is its own file in the store's directory, so a query reads
+ * only the columns it needs, in order, straight from the page cache. The
+ * store survives the run that wrote it: later questions are answered by
+ * scanning the columns instead of playing the games again.
+ *
+ * Columns, one row per game, little-endian:
+ * seed (8 bytes), winner seat (1, 0xFF for a stalemate), points left in
+ * the losing hands (2), turns (4), reshuffles (2, saturating), start card
+ * ordinal (1), and one opening-hand mask per seat (8 each).
+ * results.meta holds the magic, the number of committed rows and the
+ * number of players. Rows are written before they are committed, so an
+ * interrupted run leaves the store as it was at the last commit.
+ *
+ * Queries build a selection, a bitmap with one bit per row, and aggregate
+ * over it. Selections from different columns combine with And().
+ */
+public class ResultsStore implements AutoCloseable {
+  public static final long MAGIC = 0x3153544C53455243L; // "CRESLTS1" little-endian
+  public static final int NO_WINNER = 0xFF;
+  static final int CHUNK_BITS = 20; // Columns are mapped 1M rows at a time
+  private static final long CHUNK_ROWS = 1L << CHUNK_BITS;
+  private static final int META_SIZE = 24;
+
+  /**
+   * One fixed-width column, mapped a chunk of rows at a time.
+   */
+  static class Column {
+    private final FileChannel channel;
+    private final int width;
+    private MappedByteBuffer[] chunks = new MappedByteBuffer[0];
+
+    Column(Path file, int width) throws IOException {
+      channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      this.width = width;
+    }
+
+    /**
+     * Maps every chunk needed to hold the given number of rows.
+     * @param rows Rows the column must hold
+     */
+    void Ensure(long rows) throws IOException {
+      int needed = (int) ((rows + CHUNK_ROWS - 1) >>> CHUNK_BITS);
+      if (needed <= chunks.length) {
+        return;
+      }
+      MappedByteBuffer[] grown = Arrays.copyOf(chunks, needed);
+      for (int i = chunks.length; i < needed; i++) {
+        grown[i] = channel.map(FileChannel.MapMode.READ_WRITE, i * CHUNK_ROWS * width, CHUNK_ROWS * width);
+        grown[i].order(ByteOrder.LITTLE_ENDIAN);
+      }
+      chunks = grown;
+    }
+
+    MappedByteBuffer Chunk(long row) {
+      return chunks[(int) (row >>> CHUNK_BITS)];
+    }
+
+    int Offset(long row) {
+      return (int) (row & (CHUNK_ROWS - 1)) * width;
+    }
+
+    void Close(long rows) throws IOException {
+      for (MappedByteBuffer chunk : chunks) {
+        chunk.force();
+      }
+      channel.truncate(rows * width);
+      channel.close();
+    }
+  }
+
+  private FileChannel metaChannel;
+  private MappedByteBuffer meta;
+  private int playerCount;
+  private long rowCount; // Committed rows
+  private long reserved; // Rows handed out by Reserve()
+  private Column seeds;
+  private Column winners;
+  private Column loserPoints;
+  private Column turns;
+  private Column reshuffles;
+  private Column startCards;
+  private Column[] hands; // One per seat
+
+  /**
+   * Opens a store, creating it if the directory has none.
+   * @param directory   Directory holding the column files
+   * @param playerCount Players per game (an existing store must match)
+   * @throws IOException if the store cannot be opened or holds a different table size
+   */
+  public ResultsStore(Path directory, int playerCount) throws IOException {
+    if (playerCount < GameSystem.MIN_PLAYERS || playerCount > GameSystem.MAX_PLAYERS) {
+      throw new IllegalArgumentException("Crazy Eights needs " + GameSystem.MIN_PLAYERS + " to " + GameSystem.MAX_PLAYERS + " players, not " + playerCount);
+    }
+    Files.createDirectories(directory);
+    metaChannel = FileChannel.open(directory.resolve("results.meta"),
+        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    boolean existing = metaChannel.size() > 0;
+    meta = metaChannel.map(FileChannel.MapMode.READ_WRITE, 0, META_SIZE);
+    meta.order(ByteOrder.LITTLE_ENDIAN);
+    if (existing) {
+      if (meta.getLong(0) != MAGIC || meta.getInt(16) != playerCount) {
+        metaChannel.close();
+        throw new IOException(directory + " is not a results store for " + playerCount + "-player games");
+      }
+      rowCount = meta.getLong(8);
+    } else {
+      meta.putLong(0, MAGIC);
+      meta.putLong(8, 0);
+      meta.putInt(16, playerCount);
+    }
+    this.playerCount = playerCount;
+    reserved = rowCount;
+
+    seeds = new Column(directory.resolve("seed.col"), 8);
+    winners = new Column(directory.resolve("winner.col"), 1);
+    loserPoints = new Column(directory.resolve("loser_points.col"), 2);
+    turns = new Column(directory.resolve("turns.col"), 4);
+    reshuffles = new Column(directory.resolve("reshuffles.col"), 2);
+    startCards = new Column(directory.resolve("start_card.col"), 1);
+    hands = new Column[playerCount];
+    for (int i = 0; i < playerCount; i++) {
+      hands[i] = new Column(directory.resolve("hand" + i + ".col"), 8);
+    }
+    EnsureColumns(rowCount);
+  }
+
+  // ========== HELPER METHODS ==========//
+  /**
+   * Maps every column far enough to hold the given number of rows.
+   * @param rows Rows each column must hold
+   */
+  private void EnsureColumns(long rows) throws IOException {
+    seeds.Ensure(rows);
+    winners.Ensure(rows);
+    loserPoints.Ensure(rows);
+    turns.Ensure(rows);
+    reshuffles.Ensure(rows);
+    startCards.Ensure(rows);
+    for (Column hand : hands) {
+      hand.Ensure(rows);
+    }
+  }
+
+  /**
+   * Creates an empty selection sized for the committed rows.
+   * @return A bitmap with one clear bit per row
+   */
+  private long[] NewSelection() {
+    return new long[(int) ((rowCount + 63) >>> 6)];
+  }
+
+  // ========== PUBLIC METHODS ==========//
+
+  /**
+   * Hands out rows for games that are still to be played.
+   * Reserved rows can be filled with Put() from any number of threads, as
+   * long as no two threads write the same row and the rows were reserved
+   * before the threads started. They count once Commit() is called.
+   * @param rows Number of rows to reserve
+   * @return The first reserved row
+   */
+  public synchronized long Reserve(long rows) {
+    long first = reserved;
+    try {
+      EnsureColumns(first + rows);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    reserved += rows;
+    return first;
+  }
+
+  /**
+   * Writes a finished game into a reserved row.
+   * @param row       The row, from Reserve()
+   * @param game      The finished game, before the next one is dealt
+   * @param turnCount Number of turns played
+   */
+  public void Put(long row, GameSystem game, int turnCount) {
+    int winner = game.GetWinnerIndex();
+    int points = 0;
+    for (int i = 0; winner >= 0 && i < playerCount; i++) {
+      if (i != winner) {
+        points += game.GetPlayerPoints(i);
+      }
+    }
+    seeds.Chunk(row).putLong(seeds.Offset(row), game.GetSeed());
+    winners.Chunk(row).put(winners.Offset(row), (byte) (winner < 0 ? NO_WINNER : winner));
+    loserPoints.Chunk(row).putShort(loserPoints.Offset(row), (short) points);
+    turns.Chunk(row).putInt(turns.Offset(row), turnCount);
+    reshuffles.Chunk(row).putShort(reshuffles.Offset(row), (short) Math.min(game.GetReshuffleCount(), Short.MAX_VALUE));
+    startCards.Chunk(row).put(startCards.Offset(row), (byte) game.GetStartCard().GetOrdinal());
+    for (int i = 0; i < playerCount; i++) {
+      hands[i].Chunk(row).putLong(hands[i].Offset(row), game.GetOpeningHand(i));
+    }
+  }
+
+  /**
+   * Makes every reserved row part of the store.
+   */
+  public synchronized void Commit() {
+    rowCount = reserved;
+    meta.putLong(8, rowCount);
+  }
+
+  /**
+   * Appends one finished game and commits it.
+   * @param game      The finished game, before the next one is dealt
+   * @param turnCount Number of turns played
+   */
+  public void Add(GameSystem game, int turnCount) {
+    Put(Reserve(1), game, turnCount);
+    Commit();
+  }
+
+  /**
+   * Returns the number of committed games.
+   * @return Rows in the store
+   */
+  public long GetRowCount() {
+    return rowCount;
+  }
+
+  /**
+   * Returns the number of players in each stored game.
+   * @return Players per game
+   */
+  public int GetPlayerCount() {
+    return playerCount;
+  }
+
+  /**
+   * Returns the seed a stored game was dealt from, to replay it.
+   * @param row The row
+   * @return The game's seed
+   */
+  public long GetSeed(long row) {
+    return seeds.Chunk(row).getLong(seeds.Offset(row));
+  }
+
+  /**
+   * Returns the winner of a stored game.
+   * @param row The row
+   * @return The winning seat, or -1 for a stalemate
+   */
+  public int GetWinner(long row) {
+    int winner = winners.Chunk(row).get(winners.Offset(row)) & 0xFF;
+    return winner == NO_WINNER ? -1 : winner;
+  }
+
+  /**
+   * Returns the points left in the losing hands of a stored game.
+   * @param row The row
+   * @return Sum of the losers' GetHandPoints(), 0 for a stalemate
+   */
+  public int GetLoserPoints(long row) {
+    return loserPoints.Chunk(row).getShort(loserPoints.Offset(row));
+  }
+
+  /**
+   * Returns the length of a stored game.
+   * @param row The row
+   * @return Turns played
+   */
+  public int GetTurns(long row) {
+    return turns.Chunk(row).getInt(turns.Offset(row));
+  }
+
+  /**
+   * Returns the number of reshuffles in a stored game.
+   * @param row The row
+   * @return Reshuffles, capped at Short.MAX_VALUE
+   */
+  public int GetReshuffles(long row) {
+    return reshuffles.Chunk(row).getShort(reshuffles.Offset(row));
+  }
+
+  /**
+   * Returns the card turned face up to start a stored game.
+   * @param row The row
+   * @return The start card's ordinal
+   */
+  public int GetStartCard(long row) {
+    return startCards.Chunk(row).get(startCards.Offset(row));
+  }
+
+  /**
+   * Returns the cards a seat was dealt in a stored game.
+   * @param row  The row
+   * @param seat The seat
+   * @return Mask of the card ordinals dealt
+   */
+  public long GetOpeningHand(long row, int seat) {
+    return hands[seat].Chunk(row).getLong(hands[seat].Offset(row));
+  }
+
+  // ========== QUERIES ==========//
+
+  /**
+   * Selects every committed game.
+   * @return A selection of all rows
+   */
+  public long[] SelectAll() {
+    long[] selection = NewSelection();
+    Arrays.fill(selection, -1L);
+    if ((rowCount & 63) != 0) {
+      selection[selection.length - 1] = (1L << rowCount) - 1; // Shift uses the low 6 bits
+    }
+    return selection;
+  }
+
+  /**
+   * Selects the games in which a seat was dealt at least some of the given cards.
+   * For example SelectHolding(0, Cards.WildMask(), 2) selects the games in
+   * which the first seat was dealt two or more 8s.
+   * @param seat    The seat
+   * @param cards   Mask of card ordinals to look for
+   * @param atLeast Fewest of those cards the hand must hold
+   * @return A selection of the matching rows
+   */
+  public long[] SelectHolding(int seat, long cards, int atLeast) {
+    long[] selection = NewSelection();
+    Column column = hands[seat];
+    for (long start = 0; start < rowCount; start += CHUNK_ROWS) {
+      MappedByteBuffer chunk = column.Chunk(start);
+      int rows = (int) Math.min(CHUNK_ROWS, rowCount - start);
+      for (int i = 0; i < rows; i++) {
+        if (Long.bitCount(chunk.getLong(i << 3) & cards) >= atLeast) {
+          long row = start + i;
+          selection[(int) (row >>> 6)] |= 1L << row;
+        }
+      }
+    }
+    return selection;
+  }
+
+  /**
+   * Selects the games that started on one of the given cards.
+   * @param cards Mask of card ordinals (eg: Cards.SuitMask(suit))
+   * @return A selection of the matching rows
+   */
+  public long[] SelectStartCard(long cards) {
+    long[] selection = NewSelection();
+    for (long start = 0; start < rowCount; start += CHUNK_ROWS) {
+      MappedByteBuffer chunk = startCards.Chunk(start);
+      int rows = (int) Math.min(CHUNK_ROWS, rowCount - start);
+      for (int i = 0; i < rows; i++) {
+        if ((cards >>> chunk.get(i) & 1) != 0) {
+          long row = start + i;
+          selection[(int) (row >>> 6)] |= 1L << row;
+        }
+      }
+    }
+    return selection;
+  }
+
+  /**
+   * Narrows a selection to the rows also in another.
+   * @param selection The selection to narrow (changed)
+   * @param other     A selection from the same store
+   * @return The narrowed selection
+   */
+  public static long[] And(long[] selection, long[] other) {
+    for (int i = 0; i < selection.length; i++) {
+      selection[i] &= other[i];
+    }
+    return selection;
+  }
+
+  /**
+   * Counts the rows in a selection.
+   * @param selection The selection
+   * @return Number of selected games
+   */
+  public static long Count(long[] selection) {
+    long count = 0;
+    for (long word : selection) {
+      count += Long.bitCount(word);
+    }
+    return count;
+  }
+
+  /**
+   * Returns how often a seat won the selected games.
+   * @param selection The selection
+   * @param seat      The seat
+   * @return Fraction of the selected games the seat won, 0 if none are selected
+   */
+  public double WinRate(long[] selection, int seat) {
+    long selected = Count(selection);
+    if (selected == 0) {
+      return 0;
+    }
+    long won = 0;
+    for (int w = 0; w < selection.length; w++) {
+      long bits = selection[w];
+      if (bits == 0) {
+        continue;
+      }
+      long first = (long) w << 6; // A word's 64 rows always share a chunk
+      MappedByteBuffer chunk = winners.Chunk(first);
+      int offset = winners.Offset(first);
+      for (; bits != 0; bits &= bits - 1) {
+        if ((chunk.get(offset + Long.numberOfTrailingZeros(bits)) & 0xFF) == seat) {
+          won++;
+        }
+      }
+    }
+    return (double) won / selected;
+  }
+
+  /**
+   * Adds up a short or int column over a selection.
+   * @param selection The selection
+   * @param column    A column of 2- or 4-byte values
+   * @return Sum of the selected values
+   */
+  private static long Sum(long[] selection, Column column) {
+    long sum = 0;
+    for (int w = 0; w < selection.length; w++) {
+      long bits = selection[w];
+      if (bits == 0) {
+        continue;
+      }
+      long first = (long) w << 6;
+      MappedByteBuffer chunk = column.Chunk(first);
+      int offset = column.Offset(first);
+      if (column.width == 2) {
+        for (; bits != 0; bits &= bits - 1) {
+          sum += chunk.getShort(offset + (Long.numberOfTrailingZeros(bits) << 1));
+        }
+      } else {
+        for (; bits != 0; bits &= bits - 1) {
+          sum += chunk.getInt(offset + (Long.numberOfTrailingZeros(bits) << 2));
+        }
+      }
+    }
+    return sum;
+  }
+
+  /**
+   * Returns the average length of the selected games.
+   * @param selection The selection
+   * @return Mean turns, 0 if none are selected
+   */
+  public double MeanTurns(long[] selection) {
+    long selected = Count(selection);
+    return selected == 0 ? 0 : (double) Sum(selection, turns) / selected;
+  }
+
+  /**
+   * Returns the average points left in the losing hands of the selected games.
+   * @param selection The selection
+   * @return Mean of GetLoserPoints(), counting stalemates as 0, or 0 if none are selected
+   */
+  public double MeanLoserPoints(long[] selection) {
+    long selected = Count(selection);
+    return selected == 0 ? 0 : (double) Sum(selection, loserPoints) / selected;
+  }
+
+  /**
+   * Flushes every column and trims the files to the committed rows.
+   * Rows reserved but not committed are dropped, so closing after a failed
+   * run leaves the store as it was at the last commit.
+   * @throws IOException if a file cannot be written
+   */
+  public void close() throws IOException {
+    seeds.Close(rowCount);
+    winners.Close(rowCount);
+    loserPoints.Close(rowCount);
+    turns.Close(rowCount);
+    reshuffles.Close(rowCount);
+    startCards.Close(rowCount);
+    for (Column hand : hands) {
+      hand.Close(rowCount);
+    }
+    meta.force();
+    metaChannel.close();
+  }
+
+  /**
+   * Answers a few standard questions about a stored tournament.
+   * Usage: java ResultsStore directory [players]
+   * @param args Store directory and optional number of players
+   * @throws IOException if the store cannot be opened
+   */
+  public static void main(String[] args) throws IOException {
+    int players = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+    try (ResultsStore store = new ResultsStore(Paths.get(args[0]), players)) {
+      long start = System.nanoTime();
+      long[] all = store.SelectAll();
+      System.out.printf("Games        : %d%n", store.GetRowCount());
+      System.out.printf("Seat 1 wins  : %.2f%%, %.2f turns, %.2f loser points%n",
+          100 * store.WinRate(all, 0), store.MeanTurns(all), store.MeanLoserPoints(all));
+      for (int eights = 0; eights <= 4; eights++) {
+        long[] holding = store.SelectHolding(0, Cards.WildMask(), eights);
+        long[] exactly = store.SelectHolding(0, Cards.WildMask(), eights + 1);
+        for (int i = 0; i < holding.length; i++) {
+          holding[i] &= ~exactly[i];
+        }
+        System.out.printf("  dealt %d 8s : %.2f%% wins over %d games%n", eights, 100 * store.WinRate(holding, 0), Count(holding));
+      }
+      System.out.printf("Queries      : %.3f s%n", (System.nanoTime() - start) / 1e9);
+    }
+  }
+}
@@ -0,0 +1,144 @@
+/**
+ * House rules for a game, compiled into lookup tables.
+ * Each variant gives a rank an effect on the turn order. The effects are
+ * precomputed per card ordinal, so playing a card finds its effect with
+ * one array read and the standard game pays nothing for the variants.
+ * Rule sets are immutable and can be shared by any number of games.
+ *
+ * With two players a reverse would change nothing, so it skips the other
+ * player instead, as in most house rules.
+ */
+public final class RuleSet {
+  // Variants
+  public static final int ACE_REVERSES = 1;
+  public static final int QUEEN_SKIPS = 2;
+  public static final int TWO_DRAWS_TWO = 4;
+  private static final int ALL_VARIANTS = ACE_REVERSES | QUEEN_SKIPS | TWO_DRAWS_TWO;
+
+  // Effects of playing a card, applied by GameSystem.SwitchTurn()
+  public static final int REVERSE = 1; // Play changes direction
+  public static final int SKIP = 2; // The next player misses their turn
+  public static final int DRAW_TWO = 4; // The next player draws DRAW_TWO_CARDS before their turn
+  public static final int DRAW_TWO_CARDS = 2;
+
+  public static final int MAX_HAND_SIZE = 31;
+  public static final RuleSet STANDARD = new RuleSet(0, 0, 0);
+
+  private final int variants;
+  private final int handSize; // 0 for the standard deal
+  private final int matchTarget; // 0 for single games
+  private final byte[] effects = new byte[Cards.DECK_SIZE]; // Indexed by card ordinal
+  private final byte[] twoPlayerEffects = new byte[Cards.DECK_SIZE]; // Reverse turned into skip
+
+  /**
+   * Creates a rule set.
+   * @param variants    Any of ACE_REVERSES, QUEEN_SKIPS and TWO_DRAWS_TWO, or 0 for none
+   * @param handSize    Cards dealt to each player (1-31), or 0 for 7 with two players and 5 with more
+   * @param matchTarget Points a player needs to win a match (see GameRunner.PlayMatch()), or 0 to play single games
+   */
+  public RuleSet(int variants, int handSize, int matchTarget) {
+    if ((variants & ~ALL_VARIANTS) != 0) {
+      throw new IllegalArgumentException("Unknown rule variants " + Integer.toHexString(variants));
+    }
+    if (handSize < 0 || handSize > MAX_HAND_SIZE) {
+      throw new IllegalArgumentException("Hand size must be 1 to " + MAX_HAND_SIZE + " cards, or 0 for the standard deal");
+    }
+    if (matchTarget < 0) {
+      throw new IllegalArgumentException("Match target cannot be negative");
+    }
+    this.variants = variants;
+    this.handSize = handSize;
+    this.matchTarget = matchTarget;
+
+    for (int ordinal = 0; ordinal < Cards.DECK_SIZE; ordinal++) {
+      int rank = ordinal % Cards.RANK_COUNT + 1;
+      int effect = 0;
+      if (rank == 1 && (variants & ACE_REVERSES) != 0) {
+        effect |= REVERSE;
+      }
+      if (rank == 12 && (variants & QUEEN_SKIPS) != 0) {
+        effect |= SKIP;
+      }
+      if (rank == 2 && (variants & TWO_DRAWS_TWO) != 0) {
+        effect |= DRAW_TWO;
+      }
+      effects[ordinal] = (byte) effect;
+      twoPlayerEffects[ordinal] = (byte) ((effect & REVERSE) != 0 ? (effect & ~REVERSE) | SKIP : effect);
+    }
+  }
+
+  /**
+   * Rebuilds a rule set from GetCode().
+   * The match target is not part of the code.
+   * @param code A code from GetCode()
+   * @return The rule set, STANDARD if the code is 0
+   */
+  public static RuleSet FromCode(int code) {
+    return code == 0 ? STANDARD : new RuleSet(code & ALL_VARIANTS, code >>> 3 & MAX_HAND_SIZE, 0);
+  }
+
+  /**
+   * Returns the effect table for a table size.
+   * Package-private so GameSystem can keep it and read it on every play.
+   * @param playerCount Number of players
+   * @return Effects indexed by card ordinal (not to be changed)
+   */
+  byte[] GetEffects(int playerCount) {
+    return playerCount == 2 ? twoPlayerEffects : effects;
+  }
+
+  /**
+   * Returns the effect of playing a card.
+   * @param ordinal     The card ordinal
+   * @param playerCount Number of players
+   * @return REVERSE, SKIP and DRAW_TWO bits, 0 for none
+   */
+  public int GetEffect(int ordinal, int playerCount) {
+    return GetEffects(playerCount)[ordinal];
+  }
+
+  /**
+   * Returns the number of cards dealt to each player.
+   * @param playerCount Number of players
+   * @return The hand size
+   */
+  public int GetHandSize(int playerCount) {
+    if (handSize != 0) {
+      return handSize;
+    }
+    return playerCount == 2 ? 7 : 5;
+  }
+
+  /**
+   * Returns the variants in play.
+   * @return ACE_REVERSES, QUEEN_SKIPS and TWO_DRAWS_TWO bits
+   */
+  public int GetVariants() {
+    return variants;
+  }
+
+  /**
+   * Returns the points a player needs to win a match.
+   * @return The target, or 0 if games are played on their own
+   */
+  public int GetMatchTarget() {
+    return matchTarget;
+  }
+
+  /**
+   * Packs the rules that change how a single game plays into one number,
+   * for recording in a MoveJournal.
+   * @return Variants in bits 0-2, hand size in bits 3-7
+   */
+  public int GetCode() {
+    return variants | handSize << 3;
+  }
+
+  /**
+   * Returns whether any card has an effect.
+   * @return true if every card plays as in the standard game
+   */
+  public boolean HasEffects() {
+    return variants != 0;
+  }
+}
@@ -0,0 +1,275 @@
+/**
+ * One game hosted by GameServer.
+ * Runs the CrazyEightsMain turn loop as a state machine: the game is
+ * advanced until a connected player has to choose a card, and resumes when
+ * their PLAY command arrives. Each table owns its GameSystem, so tables share
+ * nothing but the server thread.
+ */
+public class ServerTable {
+  private static final String SUIT_LETTERS = "SHCD"; // Indexed by suit index
+  private static final String[] RANK_CODES = { "", "A", "2", "3", "4", "5", "6", "7", "8", "9", "10", "J", "Q", "K" };
+
+  private GameServer.Connection[] seats; // null for a computer player
+  private PlayerStrategy computer;
+  private GameSystem game;
+  private long lastActivity;
+  private boolean finished;
+
+  /**
+   * Creates a table. Start() deals the first game.
+   * @param seat1    First player's connection, or null for a computer player
+   * @param seat2    Second player's connection, or null for a computer player
+   * @param seed     Seed for the table's shuffles
+   * @param computer Strategy for computer players, or null if both seats are connected
+   */
+  public ServerTable(GameServer.Connection seat1, GameServer.Connection seat2, long seed, PlayerStrategy computer) {
+    seats = new GameServer.Connection[] { seat1, seat2 };
+    this.computer = computer;
+    game = new GameSystem(seed);
+    game.SetViewPublishing(true); // Lets other threads watch the table through GetView()
+  }
+
+  // ========== HELPER METHODS ==========//
+  /**
+   * Returns the protocol code of a card (eg: "10H", "QS").
+   * @param card The card
+   * @return The card's code
+   */
+  static String CardCode(Card card) {
+    return RANK_CODES[card.GetRank()] + SUIT_LETTERS.charAt(card.GetSuitIndex());
+  }
+
+  /**
+   * Returns the protocol letter of a suit.
+   * @param suit The suit index
+   * @return S, H, C or D
+   */
+  static char SuitLetter(int suit) {
+    return SUIT_LETTERS.charAt(suit);
+  }
+
+  /**
+   * Parses a protocol suit letter.
+   * @param letter The letter (S, H, C or D, any case)
+   * @return The suit index, or -1 if not a suit
+   */
+  static int ParseSuit(String letter) {
+    return letter.length() == 1 ? SUIT_LETTERS.indexOf(Character.toUpperCase(letter.charAt(0))) : -1;
+  }
+
+  /**
+   * Returns the name shown for a seat.
+   * @param seat The seat index
+   * @return The player's name
+   */
+  private String NameOf(int seat) {
+    return seats[seat] == null ? "Computer" : seats[seat].name;
+  }
+
+  /**
+   * Sends a line to every connected player.
+   * @param line The line to send
+   */
+  private void Broadcast(String line) {
+    for (int i = 0; i < seats.length; i++) {
+      if (seats[i] != null) {
+        seats[i].Send(line);
+      }
+    }
+  }
+
+  /**
+   * Shows a connected player their hand and the table, then asks for a card.
+   * @param seat The player's seat
+   */
+  private void PromptTurn(int seat) {
+    GameServer.Connection connection = seats[seat];
+    Card top = game.GetTopCard();
+    connection.Send("TOP " + CardCode(top) + " " + SuitLetter(game.GetCurrentSuitIndex()));
+    StringBuilder hand = new StringBuilder("HAND");
+    Player player = game.GetPlayers()[seat];
+    for (int i = 0; i < player.GetHandSize(); i++) {
+      hand.append(' ').append(CardCode(player.GetCard(i)));
+    }
+    connection.Send(hand.toString());
+    connection.Send("TURN");
+  }
+
+  /**
+   * Plays a card that has already been checked, and tells everyone.
+   * @param seat  The player's seat
+   * @param index Index of the card in the player's hand
+   * @param suit  New suit if the card is wild
+   */
+  private void Play(int seat, int index, int suit) {
+    Player player = game.GetPlayers()[seat];
+    Card card = player.GetCard(index);
+    game.PlayCard(player, index, suit);
+    Broadcast("PLAYED " + (seat + 1) + " " + CardCode(card) + " " + SuitLetter(game.GetCurrentSuitIndex()));
+    if (!game.IsGameOver()) {
+      game.SwitchTurn();
+    }
+  }
+
+  /**
+   * Runs the turn loop until a connected player has to choose, or the game ends.
+   */
+  private void Advance() {
+    while (!game.IsGameOver()) {
+      int seat = game.GetCurrentPlayerIndex();
+      Player player = game.GetCurrentPlayer();
+      if (!game.HasPlayableCards(player)) {
+        int reshuffles = game.GetReshuffleCount();
+        Card drawn = game.DrawCard();
+        if (game.GetReshuffleCount() != reshuffles) {
+          Broadcast("RESHUFFLE");
+        }
+        if (drawn == null) { // Deck and discard pile are both exhausted, so the game is a stalemate
+          break;
+        }
+        player.AddCard(drawn);
+        if (seats[seat] != null) {
+          seats[seat].Send("DRAW " + CardCode(drawn));
+        }
+        if (seats[1 - seat] != null) {
+          seats[1 - seat].Send("OPPONENT DRAW");
+        }
+      } else if (seats[seat] == null) {
+        long start = System.nanoTime();
+        int index = computer.SelectCard(game, player);
+        if (!game.IsValidPlay(player, index)) {
+          throw new IllegalStateException("Computer player selected an invalid card");
+        }
+        int suit = Cards.IsWild(player.GetCard(index).GetOrdinal()) ? computer.SelectSuit(game, player) : -1;
+        if (game.GetMetricsRecorder() != null) {
+          game.GetMetricsRecorder().Decision(seat, System.nanoTime() - start);
+        }
+        Play(seat, index, suit);
+      } else {
+        PromptTurn(seat);
+        return;
+      }
+    }
+    Finish();
+  }
+
+  /**
+   * Reports the result and sends both players back to the lobby.
+   */
+  private void Finish() {
+    Player[] players = game.GetPlayers();
+    for (int i = 0; i < seats.length; i++) {
+      if (seats[i] != null) {
+        String result = game.IsStalemate() ? "STALEMATE" : game.GetWinnerIndex() == i ? "WIN" : "LOSE";
+        seats[i].Send("GAMEOVER " + result + " " + players[i].GetHandPoints() + " " + players[1 - i].GetHandPoints());
+        seats[i].table = null;
+      }
+    }
+    game.FlushMetrics(); // The table is dropped after its one game
+    finished = true;
+  }
+
+  // ========== PUBLIC METHODS ==========//
+
+  /**
+   * Deals the game and plays until the first decision by a connected player.
+   */
+  public void Start() {
+    game.InitializeGame(NameOf(0), NameOf(1));
+    lastActivity = System.nanoTime();
+    for (int i = 0; i < seats.length; i++) {
+      if (seats[i] != null) {
+        seats[i].table = this;
+        seats[i].seat = i;
+        seats[i].Send("START " + (i + 1) + " " + NameOf(1 - i));
+      }
+    }
+    Advance();
+  }
+
+  /**
+   * Handles a PLAY command from a connected player.
+   * @param connection The player's connection
+   * @param index      Index of the chosen card in the player's hand
+   * @param suit       Chosen suit index for a wild card, or -1
+   */
+  public void OnPlay(GameServer.Connection connection, int index, int suit) {
+    lastActivity = System.nanoTime();
+    int seat = connection.seat;
+    Player player = game.GetPlayers()[seat];
+    if (game.IsGameOver() || game.GetCurrentPlayerIndex() != seat) {
+      connection.Send("ERROR Not your turn");
+      return;
+    }
+    if (!game.IsValidPlay(player, index) || (Cards.IsWild(player.GetCard(index).GetOrdinal()) && suit < 0)) {
+      if (game.GetMetricsRecorder() != null) {
+        game.GetMetricsRecorder().InvalidSelection();
+      }
+      connection.Send("INVALID");
+      connection.Send("TURN");
+      return;
+    }
+    Play(seat, index, suit);
+    Advance();
+  }
+
+  /**
+   * Ends the game because a player left, sending the other one back to the lobby.
+   * @param leaver The connection that left
+   * @param reason Reason given to the remaining player
+   */
+  public void Abandon(GameServer.Connection leaver, String reason) {
+    for (int i = 0; i < seats.length; i++) {
+      if (seats[i] != null) {
+        seats[i].table = null;
+        if (seats[i] != leaver) {
+          seats[i].Send("BYE " + reason);
+        }
+      }
+    }
+    game.FlushMetrics();
+    finished = true;
+  }
+
+  /**
+   * Returns the connection in a seat.
+   * @param seat The seat index
+   * @return The connection, or null for a computer player
+   */
+  public GameServer.Connection GetSeat(int seat) {
+    return seats[seat];
+  }
+
+  /**
+   * Returns when a player last acted at this table.
+   * @return System.nanoTime() of the last move
+   */
+  public long GetLastActivity() {
+    return lastActivity;
+  }
+
+  /**
+   * Returns whether the table's game is over or was abandoned.
+   * @return true if the table can be discarded
+   */
+  public boolean IsFinished() {
+    return finished;
+  }
+
+  /**
+   * Returns the latest view of the table's game.
+   * Unlike the rest of the table, safe to call from any thread.
+   * @return The latest published view
+   */
+  public TableView GetView() {
+    return game.GetView();
+  }
+
+  /**
+   * Returns the table's game.
+   * @return The game system
+   */
+  public GameSystem GetGame() {
+    return game;
+  }
+}
@@ -0,0 +1,42 @@
+import java.util.SplittableRandom;
+
+/**
+ * Random source backed by java.util.SplittableRandom.
+ * Not thread-safe; give each thread its own instance.
+ */
+public class SplittableRandomSource implements RandomSource {
+  private SplittableRandom random;
+
+  /**
+   * Creates a random source from a seed.
+   * @param seed The seed
+   */
+  public SplittableRandomSource(long seed) {
+    random = new SplittableRandom(seed);
+  }
+
+  /**
+   * Restarts the sequence from a seed.
+   * @param seed The seed
+   */
+  public void SetSeed(long seed) {
+    random = new SplittableRandom(seed);
+  }
+
+  /**
+   * Returns the next 64 random bits.
+   * @return A uniformly distributed long
+   */
+  public long NextLong() {
+    return random.nextLong();
+  }
+
+  /**
+   * Returns a uniformly distributed int between 0 (inclusive) and bound (exclusive).
+   * @param bound The upper bound, which must be positive
+   * @return A random int in [0, bound)
+   */
+  public int NextInt(int bound) {
+    return random.nextInt(bound);
+  }
+}
@@ -0,0 +1,43 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * Render sink that writes to an output stream: the console, a file or a socket.
+ * Each write is encoded and flushed at once, so the stream is flushed once
+ * per rendered turn rather than once per line.
+ */
+public class StreamSink implements RenderSink {
+  private Writer writer;
+
+  /**
+   * Creates a sink that writes to the console.
+   */
+  public StreamSink() {
+    this(System.out);
+  }
+
+  /**
+   * Creates a sink that writes to a stream in the platform encoding.
+   * @param out The stream to write to
+   */
+  public StreamSink(OutputStream out) {
+    writer = new OutputStreamWriter(out);
+  }
+
+  /**
+   * Writes rendered text and flushes the stream.
+   * @param text   Buffer holding the text
+   * @param length Number of characters to write from the start of the buffer
+   */
+  public void Write(char[] text, int length) {
+    try {
+      writer.write(text, 0, length);
+      writer.flush();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,187 @@
+/**
+ * Immutable picture of a table at one moment, for threads that watch a game
+ * without playing in it.
+ * GameSystem and Player are only safe to read on the thread that plays the
+ * game. When view publishing is on (see GameSystem.SetViewPublishing()),
+ * the game thread builds a new TableView after every change and publishes it
+ * through one volatile field, so any number of spectator or dashboard
+ * threads can call GameSystem.GetView() and read a consistent table with no
+ * locks. Every field is final and set before publication, and the
+ * per-seat counts live in an array no one else can reach.
+ *
+ * A view holds what the table shows: the top card, suit and rank, whose
+ * turn it is, pile sizes and hand sizes. Hand points are included for
+ * dashboards; they are hidden information to the players at the table.
+ */
+public final class TableView {
+  private final long sequence;
+  private final int playerCount;
+  private final int currentPlayer;
+  private final boolean reversed;
+  private final int topCard; // Ordinal, -1 before the first deal
+  private final int currentSuit;
+  private final int currentRank;
+  private final int deckSize;
+  private final int discardSize;
+  private final int turn;
+  private final boolean gameOver;
+  private final int winner;
+  private final int[] seats; // Hand size | hand points << 8, one per seat
+
+  /**
+   * Captures a table. Called by GameSystem on the game thread.
+   * @param sequence      Number of views the game system has published before this one
+   * @param currentPlayer Seat whose turn it is
+   * @param reversed      true if play goes counter-clockwise
+   * @param topCard       Ordinal of the top card of the discard pile, or -1
+   * @param currentSuit   Suit index to follow
+   * @param currentRank   Rank to follow
+   * @param deckSize      Cards left to draw
+   * @param discardSize   Cards on the discard pile
+   * @param turn          Turns finished this game
+   * @param gameOver      true if the game is over
+   * @param winner        Seat of the winner, or -1
+   * @param seats         Hand size | hand points << 8 for each seat, not kept
+   */
+  TableView(long sequence, int currentPlayer, boolean reversed, int topCard, int currentSuit, int currentRank,
+      int deckSize, int discardSize, int turn, boolean gameOver, int winner, int[] seats) {
+    this.sequence = sequence;
+    this.playerCount = seats.length;
+    this.currentPlayer = currentPlayer;
+    this.reversed = reversed;
+    this.topCard = topCard;
+    this.currentSuit = currentSuit;
+    this.currentRank = currentRank;
+    this.deckSize = deckSize;
+    this.discardSize = discardSize;
+    this.turn = turn;
+    this.gameOver = gameOver;
+    this.winner = winner;
+    this.seats = seats.clone();
+  }
+
+  // ========== PUBLIC METHODS ==========//
+
+  /**
+   * Returns the position of this view among those its game system has
+   * published, so a watcher can tell cheaply whether anything changed.
+   * @return Views published before this one
+   */
+  public long GetSequence() {
+    return sequence;
+  }
+
+  /**
+   * Returns the number of seats at the table.
+   * @return Player count
+   */
+  public int GetPlayerCount() {
+    return playerCount;
+  }
+
+  /**
+   * Returns whose turn it is.
+   * @return Index of the current player
+   */
+  public int GetCurrentPlayerIndex() {
+    return currentPlayer;
+  }
+
+  /**
+   * Returns whether play goes counter-clockwise.
+   * @return true if the direction has been reversed
+   */
+  public boolean IsReversed() {
+    return reversed;
+  }
+
+  /**
+   * Returns the top card of the discard pile.
+   * @return The top card, or null before the first deal
+   */
+  public Card GetTopCard() {
+    return topCard < 0 ? null : Cards.Get(topCard);
+  }
+
+  /**
+   * Returns the current suit.
+   * @return Current suit name
+   */
+  public String GetCurrentSuit() {
+    return Card.SuitName(currentSuit);
+  }
+
+  /**
+   * Returns the current suit.
+   * @return Current suit index
+   */
+  public int GetCurrentSuitIndex() {
+    return currentSuit;
+  }
+
+  /**
+   * Returns the current rank.
+   * @return Current rank (1-13)
+   */
+  public int GetCurrentRank() {
+    return currentRank;
+  }
+
+  /**
+   * Returns the number of cards left to draw before a reshuffle.
+   * @return Deck size
+   */
+  public int GetDeckSize() {
+    return deckSize;
+  }
+
+  /**
+   * Returns the number of cards on the discard pile.
+   * @return Discard pile size
+   */
+  public int GetDiscardSize() {
+    return discardSize;
+  }
+
+  /**
+   * Returns the number of turns finished in the game.
+   * @return Turns so far
+   */
+  public int GetTurn() {
+    return turn;
+  }
+
+  /**
+   * Returns whether the game is over.
+   * @return true if game is over, false otherwise
+   */
+  public boolean IsGameOver() {
+    return gameOver;
+  }
+
+  /**
+   * Returns the seat of the player who won.
+   * @return The index of the winner, or -1 if nobody has won
+   */
+  public int GetWinnerIndex() {
+    return winner;
+  }
+
+  /**
+   * Returns the number of cards a player holds.
+   * @param playerIndex Index of player (0 for the first player)
+   * @return Cards in the player's hand
+   */
+  public int GetHandSize(int playerIndex) {
+    return seats[playerIndex] & 0xFF;
+  }
+
+  /**
+   * Returns the points in a player's hand.
+   * @param playerIndex Index of player (0 for the first player)
+   * @return Total points of the player's cards
+   */
+  public int GetHandPoints(int playerIndex) {
+    return seats[playerIndex] >>> 8;
+  }
+}
@@ -0,0 +1,176 @@
+import java.util.Arrays;
+
+/**
+ * Totals from a batch of computer-player games.
+ * Every statistic is kept as an integer sum, so merging shard results
+ * gives the same totals no matter how the shards were split across threads.
+ * Distributions and per-seat results are kept in a GameStats.
+ */
+public class TournamentResult {
+  private long games;
+  private long stalemates;
+  private long turns;
+  private long turnsSquared;
+  private int minTurns;
+  private int maxTurns;
+  private long loserPoints;
+  private long[] wins;
+  private GameStats stats = new GameStats();
+
+  /**
+   * Creates an empty result. Win counts start with two seats and grow
+   * when a game with more players is added.
+   */
+  public TournamentResult() {
+    wins = new long[2];
+    minTurns = Integer.MAX_VALUE;
+    maxTurns = 0;
+  }
+
+  /**
+   * Records one finished game.
+   * @param winner      Index of the winning player, or -1 for a stalemate
+   * @param turnCount   Number of turns in the game
+   * @param loserPoints Points left in the losers' hands (ignored for stalemates)
+   */
+  public void AddGame(int winner, int turnCount, int loserPoints) {
+    games++;
+    turns += turnCount;
+    turnsSquared += (long) turnCount * turnCount;
+    minTurns = Math.min(minTurns, turnCount);
+    maxTurns = Math.max(maxTurns, turnCount);
+    if (winner < 0) {
+      stalemates++;
+    } else {
+      if (winner >= wins.length) {
+        wins = Arrays.copyOf(wins, winner + 1);
+      }
+      wins[winner]++;
+      this.loserPoints += loserPoints;
+    }
+  }
+
+  /**
+   * Records one finished game, including its distributions.
+   * @param game      The finished game, before the next one is dealt
+   * @param turnCount Number of turns in the game
+   */
+  public void AddGame(GameSystem game, int turnCount) {
+    int winner = game.GetWinnerIndex();
+    int loserPoints = 0;
+    for (int i = 0; winner >= 0 && i < game.GetPlayerCount(); i++) {
+      if (i != winner) {
+        loserPoints += game.GetPlayerPoints(i);
+      }
+    }
+    AddGame(winner, turnCount, loserPoints);
+    stats.Add(game, turnCount);
+  }
+
+  /**
+   * Adds another result's totals into this one.
+   * @param other The result to merge in
+   */
+  public void Merge(TournamentResult other) {
+    games += other.games;
+    stalemates += other.stalemates;
+    turns += other.turns;
+    turnsSquared += other.turnsSquared;
+    minTurns = Math.min(minTurns, other.minTurns);
+    maxTurns = Math.max(maxTurns, other.maxTurns);
+    loserPoints += other.loserPoints;
+    if (other.wins.length > wins.length) {
+      wins = Arrays.copyOf(wins, other.wins.length);
+    }
+    for (int i = 0; i < other.wins.length; i++) {
+      wins[i] += other.wins[i];
+    }
+    stats.Merge(other.stats);
+  }
+
+  /**
+   * Returns the distributions of the games added with AddGame(GameSystem, int).
+   * @return The game statistics
+   */
+  public GameStats GetStats() {
+    return stats;
+  }
+
+  /**
+   * Returns the number of games played.
+   * @return Games played
+   */
+  public long GetGames() {
+    return games;
+  }
+
+  /**
+   * Returns the number of games that ended with no cards left to draw.
+   * @return Stalemated games
+   */
+  public long GetStalemates() {
+    return stalemates;
+  }
+
+  /**
+   * Returns the number of games won by the given player.
+   * @param playerIndex Index of player (0 for the first player)
+   * @return Games won by that player
+   */
+  public long GetWins(int playerIndex) {
+    return playerIndex < wins.length ? wins[playerIndex] : 0;
+  }
+
+  /**
+   * Returns the total number of turns played.
+   * @return Turns played
+   */
+  public long GetTurns() {
+    return turns;
+  }
+
+  /**
+   * Returns the shortest game length.
+   * @return Fewest turns in a game, or 0 if no games were played
+   */
+  public int GetMinTurns() {
+    return games == 0 ? 0 : minTurns;
+  }
+
+  /**
+   * Returns the longest game length.
+   * @return Most turns in a game
+   */
+  public int GetMaxTurns() {
+    return maxTurns;
+  }
+
+  /**
+   * Returns the average game length.
+   * @return Mean turns per game
+   */
+  public double GetAverageTurns() {
+    return games == 0 ? 0 : (double) turns / games;
+  }
+
+  /**
+   * Returns the standard deviation of game length.
+   * @return Standard deviation of turns per game
+   */
+  public double GetTurnsStdDev() {
+    if (games == 0) {
+      return 0;
+    }
+    double mean = (double) turns / games;
+    return Math.sqrt(Math.max(0, (double) turnsSquared / games - mean * mean));
+  }
+
+  /**
+   * Returns the average points left in the losers' hands.
+   * @return Mean loser points over games with a winner
+   */
+  public double GetAverageLoserPoints() {
+    long decided = games - stalemates;
+    return decided == 0 ? 0 : (double) loserPoints / decided;
+  }
+}
@@ -0,0 +1,167 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.LongFunction;
+
+/**
+ * Plays a large number of computer-player games across all cores.
+ * Games are split into fixed-size shards. Each shard gets its own game system,
+ * strategies and seed derived from the tournament seed, so the merged result
+ * is the same for a given seed no matter how many threads run the shards.
+ */
+public class TournamentRunner {
+  public static final int SHARD_SIZE = 10000; // Games per shard
+
+  private LongFunction<PlayerStrategy> strategy1;
+  private LongFunction<PlayerStrategy> strategy2;
+  private int threads;
+  private ResultsStore store; // null when games are not kept
+
+  /**
+   * Creates a tournament between two kinds of computer players.
+   * @param strategy1 Creates the first player's strategy from a seed
+   * @param strategy2 Creates the second player's strategy from a seed
+   * @param threads   Number of worker threads
+   */
+  public TournamentRunner(LongFunction<PlayerStrategy> strategy1, LongFunction<PlayerStrategy> strategy2, int threads) {
+    this.strategy1 = strategy1;
+    this.strategy2 = strategy2;
+    this.threads = threads;
+  }
+
+  /**
+   * Derives an independent seed from a base seed and a stream number.
+   * Uses the SplitMix64 finalizer so nearby inputs give unrelated seeds.
+   * @param seed   The base seed
+   * @param stream The stream number (eg: a shard index)
+   * @return The derived seed
+   */
+  public static long MixSeed(long seed, long stream) {
+    long z = seed + (stream + 1) * 0x9E3779B97F4A7C15L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  /**
+   * Plays one shard of games on the calling thread.
+   * Each game is seeded from its position in the tournament, so any single
+   * game's deal can be replayed from MixSeed(seed, game number).
+   * @param seed      Tournament seed
+   * @param shardSeed Seed for this shard's strategies
+   * @param firstGame Tournament-wide number of the shard's first game
+   * @param games     Number of games in the shard
+   * @param firstRow  Store row of the tournament's first game
+   * @return The shard's totals
+   */
+  private TournamentResult PlayShard(long seed, long shardSeed, long firstGame, int games, long firstRow) {
+    GameRunner runner = new GameRunner(MixSeed(shardSeed, 0),
+        strategy1.apply(MixSeed(shardSeed, 1)), strategy2.apply(MixSeed(shardSeed, 2)));
+    GameSystem game = runner.GetGame();
+    TournamentResult result = new TournamentResult();
+    for (int i = 0; i < games; i++) {
+      runner.PlayGame(MixSeed(seed, firstGame + i));
+      result.AddGame(game, runner.GetLastGameTurns());
+      if (store != null) {
+        store.Put(firstRow + firstGame + i, game, runner.GetLastGameTurns());
+      }
+    }
+    game.FlushMetrics();
+    return result;
+  }
+
+  /**
+   * Keeps every game of later runs in a results store, one row per game in
+   * game-number order.
+   * @param store The store to write to, or null to keep only the totals
+   */
+  public void SetResultsStore(ResultsStore store) {
+    this.store = store;
+  }
+
+  /**
+   * Plays a tournament and merges the shard results.
+   * @param games Total number of games to play
+   * @param seed  Tournament seed
+   * @return The merged totals
+   */
+  public TournamentResult Run(long games, long seed) {
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    long firstRow = store == null ? 0 : store.Reserve(games); // Rows follow game numbers, whichever thread plays them
+    try {
+      List<Callable<TournamentResult>> shards = new ArrayList<Callable<TournamentResult>>();
+      for (long start = 0, shard = 0; start < games; start += SHARD_SIZE, shard++) {
+        long shardSeed = MixSeed(~seed, shard); // Kept apart from the per-game seeds
+        long firstGame = start;
+        int shardGames = (int) Math.min(SHARD_SIZE, games - start);
+        shards.add(() -> PlayShard(seed, shardSeed, firstGame, shardGames, firstRow));
+      }
+
+      TournamentResult total = new TournamentResult();
+      for (Future<TournamentResult> shard : pool.invokeAll(shards)) {
+        total.Merge(shard.get());
+      }
+      if (store != null) {
+        store.Commit();
+      }
+      return total;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Tournament interrupted", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Tournament shard failed", e.getCause());
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Runs a Greedy vs Random tournament and reports the results.
+   * Usage: java TournamentRunner [games] [seed] [threads] [results-dir]
+   * @param args Optional number of games, seed, thread count and directory to keep the games in
+   * @throws IOException if the results store cannot be written
+   */
+  public static void main(String[] args) throws IOException {
+    EngineMetrics.Register();
+    long games = args.length > 0 ? Long.parseLong(args[0]) : 1000000;
+    long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+    int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+    TournamentRunner tournament = new TournamentRunner(s -> new GreedyStrategy(), s -> new RandomStrategy(s), threads);
+    try (ResultsStore store = args.length > 3 ? new ResultsStore(Paths.get(args[3]), 2) : null) {
+      tournament.SetResultsStore(store);
+
+      long start = System.nanoTime();
+      TournamentResult result = tournament.Run(games, seed);
+      double seconds = (System.nanoTime() - start) / 1e9;
+
+      System.out.printf("Seed         : %d (%d threads)%n", seed, threads);
+      System.out.printf("Games played : %d (%d stalemates)%n", result.GetGames(), result.GetStalemates());
+      System.out.printf("Wins         : Greedy %d, Random %d%n", result.GetWins(0), result.GetWins(1));
+      System.out.printf("Loser points : %.3f average%n", result.GetAverageLoserPoints());
+      System.out.printf("Game length  : %.3f turns average, %.3f std dev, %d-%d range%n",
+          result.GetAverageTurns(), result.GetTurnsStdDev(), result.GetMinTurns(), result.GetMaxTurns());
+      GameStats stats = result.GetStats();
+      System.out.printf("Turns        : %d median, %d at the 99th percentile, %d longest%n",
+          stats.GetTurns().GetPercentile(0.5), stats.GetTurns().GetPercentile(0.99), stats.GetTurns().GetMax());
+      System.out.printf("Loser hands  : %d median, %d at the 99th percentile%n",
+          stats.GetLoserPoints().GetPercentile(0.5), stats.GetLoserPoints().GetPercentile(0.99));
+      System.out.printf("Reshuffles   : %.3f average, %d most%n", stats.GetReshuffles().GetMean(), stats.GetReshuffles().GetMax());
+      System.out.printf("First player : %.2f%% wins%n", 100 * stats.GetWinRate(0));
+      for (int suit = 0; suit < Card.SUIT_COUNT; suit++) {
+        System.out.printf("  on %-8s : %.2f%% wins over %d games%n", Card.SuitName(suit),
+            100 * stats.GetStartSuitWinRate(suit, 0), stats.GetStartSuitGames(suit));
+      }
+      System.out.printf("Elapsed      : %.3f s%n", seconds);
+      System.out.printf("Games/sec    : %.0f%n", result.GetGames() / seconds);
+      if (store != null) {
+        System.out.printf("Results      : %d games kept in %s%n", store.GetRowCount(), args[3]);
+      }
+    }
+  }
+}
@@ -0,0 +1,31 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event committed by GameSystem at the end of every turn.
+ * Turns are frequent, so no stack trace is recorded with them.
+ */
+@Name("crazyeights.Turn")
+@Label("Turn")
+@Category("Crazy Eights")
+@Description("A player's turn, including the cards they had to draw")
+@StackTrace(false)
+public class TurnEvent extends jdk.jfr.Event {
+  @Label("Seat")
+  int seat;
+
+  @Label("Cards Drawn")
+  int cardsDrawn;
+
+  @Label("Hand Size")
+  int handSize;
+
+  @Label("Turn In Game")
+  int turn;
+
+  @Label("Game Over")
+  boolean gameOver;
+}
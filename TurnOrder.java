@@ -0,0 +1,105 @@
+/**
+ * Decides whose turn it is at a table of two or more players.
+ * Turns go round the table in seat order, clockwise until Reverse() is
+ * called. GameSystem asks it for the next seat instead of counting seats
+ * itself, so the number of players is only known here.
+ */
+public class TurnOrder {
+  private int playerCount;
+  private int current;
+  private int direction; // 1 for clockwise, -1 for counter-clockwise
+
+  /**
+   * Creates a turn order starting with the first seat, clockwise.
+   * @param playerCount Number of players at the table
+   */
+  public TurnOrder(int playerCount) {
+    if (playerCount < 1) {
+      throw new IllegalArgumentException("A table needs at least one player");
+    }
+    this.playerCount = playerCount;
+    Reset(0);
+  }
+
+  // ========== PUBLIC METHODS ==========//
+
+  /**
+   * Starts a new game with the given seat, clockwise.
+   * @param first Seat of the first player
+   */
+  public void Reset(int first) {
+    SetCurrent(first);
+    direction = 1;
+  }
+
+  /**
+   * Returns the seat that plays after the current one, without moving.
+   * @return Index of the next player
+   */
+  public int PeekNext() {
+    int next = current + direction;
+    if (next == playerCount) {
+      return 0;
+    }
+    return next < 0 ? playerCount - 1 : next;
+  }
+
+  /**
+   * Passes the turn to the next seat.
+   * @return Index of the new current player
+   */
+  public int Advance() {
+    current = PeekNext();
+    return current;
+  }
+
+  /**
+   * Changes the direction of play.
+   */
+  public void Reverse() {
+    direction = -direction;
+  }
+
+  /**
+   * Returns whose turn it is.
+   * @return Index of the current player
+   */
+  public int GetCurrent() {
+    return current;
+  }
+
+  /**
+   * Sets whose turn it is.
+   * @param seat Index of the player
+   */
+  public void SetCurrent(int seat) {
+    if (seat < 0 || seat >= playerCount) {
+      throw new IllegalArgumentException("No seat " + seat + " at a " + playerCount + "-player table");
+    }
+    current = seat;
+  }
+
+  /**
+   * Returns whether play has been reversed.
+   * @return true if turns go counter-clockwise
+   */
+  public boolean IsReversed() {
+    return direction < 0;
+  }
+
+  /**
+   * Sets the direction of play.
+   * @param reversed true for counter-clockwise, false for clockwise
+   */
+  public void SetReversed(boolean reversed) {
+    direction = reversed ? -1 : 1;
+  }
+
+  /**
+   * Returns the number of players at the table.
+   * @return Number of seats
+   */
+  public int GetPlayerCount() {
+    return playerCount;
+  }
+}
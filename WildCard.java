@@ -10,6 +10,10 @@ public class WildCard extends Card {
     super(suit, rank);
   }
 
+  public WildCard(int suit, int rank) {
+    super(suit, rank);
+  }
+
   // Override
   /**
    * Gets the point value of the wild card.
@@ -25,11 +29,11 @@ public class WildCard extends Card {
   // Override
   /**
    * Checks if wild card can be played.
-   * @param currentSuit Current suit in play
+   * @param currentSuit Current suit index in play
    * @param currentRank Current rank in play
    * @return true (wild card can always be played)
    */
-  public boolean CanPlay(String currentSuit, int currentRank) {
+  public boolean CanPlay(int currentSuit, int currentRank) {
     return true; // Wild card can always be played
   }
 }
\ No newline at end of file
@@ -0,0 +1,73 @@
+/**
+ * Fast xoroshiro128++ random number generator.
+ * Not thread-safe; give each thread its own instance.
+ */
+public class Xoroshiro128PlusPlus implements RandomSource {
+  private long s0;
+  private long s1;
+
+  /**
+   * Creates a generator from a seed.
+   * @param seed The seed
+   */
+  public Xoroshiro128PlusPlus(long seed) {
+    SetSeed(seed);
+  }
+
+  /**
+   * Restarts the sequence from a seed.
+   * The two state words are filled from the seed with SplitMix64, as the
+   * xoroshiro authors recommend, so similar seeds give unrelated sequences.
+   * @param seed The seed
+   */
+  public void SetSeed(long seed) {
+    s0 = SplitMix64(seed);
+    s1 = SplitMix64(seed + 0x9E3779B97F4A7C15L);
+    if ((s0 | s1) == 0) { // The all-zero state would only ever produce zeros
+      s1 = 1;
+    }
+  }
+
+  /**
+   * Scrambles a seed with the SplitMix64 finalizer.
+   */
+  private static long SplitMix64(long seed) {
+    long z = seed + 0x9E3779B97F4A7C15L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  /**
+   * Returns the next 64 random bits.
+   * @return A uniformly distributed long
+   */
+  public long NextLong() {
+    long a = s0;
+    long b = s1;
+    long result = Long.rotateLeft(a + b, 17) + a;
+    b ^= a;
+    s0 = Long.rotateLeft(a, 49) ^ b ^ (b << 21);
+    s1 = Long.rotateLeft(b, 28);
+    return result;
+  }
+
+  /**
+   * Returns a uniformly distributed int between 0 (inclusive) and bound (exclusive).
+   * Uses Lemire's multiply-and-reject method, which has no modulo bias.
+   * @param bound The upper bound, which must be positive
+   * @return A random int in [0, bound)
+   */
+  public int NextInt(int bound) {
+    long m = (NextLong() >>> 32) * bound;
+    long low = m & 0xFFFFFFFFL;
+    if (low < bound) {
+      long threshold = (0x100000000L - bound) % bound;
+      while (low < threshold) {
+        m = (NextLong() >>> 32) * bound;
+        low = m & 0xFFFFFFFFL;
+      }
+    }
+    return (int) (m >>> 32);
+  }
+}
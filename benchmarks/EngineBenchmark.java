@@ -0,0 +1,599 @@
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Micro-benchmarks for the Crazy Eights engine hot paths.
+ * Follows the JMH scheme of warmup and measurement iterations and reports
+ * the average time per operation and the bytes allocated per operation.
+ * Usage: java EngineBenchmark [name filter]
+ */
+public class EngineBenchmark {
+  private static final int WARMUP_ITERATIONS = 5;
+  private static final int MEASUREMENT_ITERATIONS = 5;
+  private static final long ITERATION_NANOS = 500000000L; // 500 ms per iteration
+
+  private static final com.sun.management.ThreadMXBean THREADS =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  private static volatile long sink; // Keeps benchmark results alive so the JIT cannot drop them
+  private static long timerOverhead; // Cost of the timing calls around one batch
+  private static long allocOverhead; // Bytes reported by the allocation calls themselves
+
+  /**
+   * One benchmarked operation, run in batches.
+   * Reset() prepares state before each batch and is not timed.
+   */
+  abstract static class Case {
+    final String name;
+
+    Case(String name) {
+      this.name = name;
+    }
+
+    void Reset() {
+    }
+
+    /**
+     * Runs a batch of operations.
+     * @return Number of operations performed
+     */
+    abstract int Run();
+  }
+
+  // ========== HELPER METHODS ==========//
+
+  /**
+   * Draws the whole deck into the first player's hand.
+   * @param game The game to prepare
+   * @return The player holding the cards
+   */
+  private static Player DrawWholeDeck(GameSystem game) {
+    game.InitializeGame("Player 1", "Player 2");
+    Player player = game.GetPlayers()[0];
+    Card card;
+    while ((card = game.DrawCard()) != null) {
+      player.AddCard(card);
+    }
+    return player;
+  }
+
+  /**
+   * Plays the first valid card in the player's hand.
+   * @return true if a card was played
+   */
+  private static boolean PlayFirstValid(GameSystem game, Player player) {
+    for (int i = 0; i < player.GetHandSize(); i++) {
+      if (game.IsValidPlay(player, i)) {
+        game.PlayCard(player, i, "Hearts");
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Runs one timed iteration of a case.
+   * @return {nanoseconds, bytes allocated, operations}
+   */
+  private static long[] Iterate(Case c) {
+    long tid = Thread.currentThread().getId();
+    long nanos = 0;
+    long bytes = 0;
+    long ops = 0;
+    long deadline = System.nanoTime() + ITERATION_NANOS;
+    while (System.nanoTime() < deadline) {
+      c.Reset();
+      long a0 = THREADS.getThreadAllocatedBytes(tid);
+      long t0 = System.nanoTime();
+      int done = c.Run();
+      long t1 = System.nanoTime();
+      long a1 = THREADS.getThreadAllocatedBytes(tid);
+      nanos += Math.max(0, t1 - t0 - timerOverhead);
+      bytes += Math.max(0, a1 - a0 - allocOverhead);
+      ops += done;
+    }
+    return new long[] { nanos, bytes, ops };
+  }
+
+  /**
+   * Measures the fixed cost of timing an empty batch.
+   */
+  private static void Calibrate() {
+    Case empty = new Case("empty") {
+      int Run() {
+        return 1;
+      }
+    };
+    for (int i = 0; i < 3; i++) {
+      long[] r = Iterate(empty);
+      timerOverhead = r[0] / r[2];
+      allocOverhead = r[1] / r[2];
+    }
+  }
+
+  /**
+   * Warms up and measures a case, then prints one result row.
+   * @param c The case to run
+   */
+  private static void Measure(Case c) {
+    for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+      Iterate(c);
+    }
+    double[] nsPerOp = new double[MEASUREMENT_ITERATIONS];
+    long nanos = 0;
+    long bytes = 0;
+    long ops = 0;
+    for (int i = 0; i < MEASUREMENT_ITERATIONS; i++) {
+      long[] r = Iterate(c);
+      nsPerOp[i] = (double) r[0] / r[2];
+      nanos += r[0];
+      bytes += r[1];
+      ops += r[2];
+    }
+    double mean = (double) nanos / ops;
+    double variance = 0;
+    for (int i = 0; i < nsPerOp.length; i++) {
+      variance += (nsPerOp[i] - mean) * (nsPerOp[i] - mean);
+    }
+    double error = Math.sqrt(variance / (nsPerOp.length - 1));
+    double allocRate = nanos == 0 ? 0 : bytes * 1000.0 / nanos; // bytes/ns to MB/s
+    System.out.printf("%-40s %12.1f %10.1f %12.1f %12.1f%n", c.name, mean, error, (double) bytes / ops, allocRate);
+  }
+
+  // ========== BENCHMARK CASES ==========//
+
+  /**
+   * Builds the list of benchmark cases.
+   * @return The benchmark cases
+   */
+  static List<Case> Cases() {
+    List<Case> cases = new ArrayList<Case>();
+
+    cases.add(new Case("GameSystem.InitializeGame") {
+      final GameSystem game = new GameSystem();
+
+      int Run() {
+        game.InitializeGame("Player 1", "Player 2");
+        sink += game.GetCurrentPlayerIndex();
+        return 1;
+      }
+    });
+
+    cases.add(new Case("GameSystem.ShuffleDeck") {
+      final GameSystem game = new GameSystem();
+      {
+        game.InitializeGame("Player 1", "Player 2");
+      }
+
+      int Run() {
+        game.ShuffleDeck();
+        return 1;
+      }
+    });
+
+    cases.add(new Case("GameSystem.DrawCard") {
+      final GameSystem game = new GameSystem();
+
+      void Reset() {
+        game.InitializeGame("Player 1", "Player 2");
+      }
+
+      int Run() {
+        long sum = 0;
+        for (int i = 0; i < 30; i++) { // 37 cards remain after dealing, so no reshuffle
+          sum += game.DrawCard().GetRank();
+        }
+        sink += sum;
+        return 30;
+      }
+    });
+
+    cases.add(new Case("GameSystem.ReshuffleDeck") {
+      final GameSystem game = new GameSystem();
+
+      void Reset() {
+        Player player = DrawWholeDeck(game);
+        while (PlayFirstValid(game, player)) {
+          // Pile up the discard pile
+        }
+      }
+
+      int Run() {
+        game.ReshuffleDeck();
+        return 1;
+      }
+    });
+
+    cases.add(new Case("GameSystem.HasPlayableCards") {
+      final GameSystem game = new GameSystem();
+      final Player player;
+      {
+        game.InitializeGame("Player 1", "Player 2");
+        player = game.GetPlayers()[0];
+      }
+
+      int Run() {
+        long count = 0;
+        for (int i = 0; i < 1000; i++) {
+          if (game.HasPlayableCards(player)) {
+            count++;
+          }
+        }
+        sink += count;
+        return 1000;
+      }
+    });
+
+    cases.add(new Case("GameSystem.IsValidPlay") {
+      final GameSystem game = new GameSystem();
+      final Player player;
+      {
+        game.InitializeGame("Player 1", "Player 2");
+        player = game.GetPlayers()[0];
+      }
+
+      int Run() {
+        long count = 0;
+        for (int i = 0; i < 1000; i++) {
+          if (game.IsValidPlay(player, i % 7)) {
+            count++;
+          }
+        }
+        sink += count;
+        return 1000;
+      }
+    });
+
+    cases.add(new Case("GameSystem.GenerateMoves") {
+      final GameSystem game = new GameSystem(11L);
+      final int[] moves = new int[GameSystem.MAX_MOVES];
+      {
+        game.InitializeGame("Player 1", "Player 2");
+      }
+
+      int Run() {
+        long sum = 0;
+        for (int i = 0; i < 1000; i++) {
+          sum += game.GenerateMoves(moves);
+        }
+        sink += sum;
+        return 1000;
+      }
+    });
+
+    cases.add(new Case("GameSystem.PlayCard (first valid card)") {
+      final GameSystem game = new GameSystem();
+      Player player;
+
+      void Reset() {
+        player = DrawWholeDeck(game);
+      }
+
+      int Run() {
+        int played = 0;
+        while (played < 20 && PlayFirstValid(game, player)) {
+          played++;
+        }
+        return Math.max(played, 1);
+      }
+    });
+
+    cases.add(new Case("GameSystem.WriteSnapshot") {
+      final GameSystem game = new GameSystem();
+      final ByteBuffer buffer = ByteBuffer.allocateDirect(80); // Room for a snapshot of a one-deck game
+      {
+        game.InitializeGame("Player 1", "Player 2");
+      }
+
+      int Run() {
+        buffer.clear();
+        game.WriteSnapshot(buffer);
+        return 1;
+      }
+    });
+
+    cases.add(new Case("GameSystem.ReadSnapshot") {
+      final GameSystem game = new GameSystem();
+      final ByteBuffer buffer = ByteBuffer.allocateDirect(80); // Room for a snapshot of a one-deck game
+      {
+        game.InitializeGame("Player 1", "Player 2");
+        game.WriteSnapshot(buffer);
+      }
+
+      int Run() {
+        buffer.rewind();
+        game.ReadSnapshot(buffer);
+        return 1;
+      }
+    });
+
+    cases.add(new Case("GameSystem.CopyFrom + Determinize") {
+      final GameSystem game = new GameSystem();
+      final GameSystem copy = new GameSystem();
+      {
+        game.InitializeGame("Player 1", "Player 2");
+      }
+
+      int Run() {
+        copy.CopyFrom(game);
+        copy.Determinize(0);
+        sink += copy.GetPlayers()[1].GetHandMask();
+        return 1;
+      }
+    });
+
+    cases.add(new Case("GameSystem.CopyFrom (one search node)") {
+      final GameSystem game = new GameSystem(11L);
+      final GameSystem copy = new GameSystem();
+      {
+        game.InitializeGame("Player 1", "Player 2");
+      }
+
+      int Run() {
+        copy.CopyFrom(game);
+        sink += copy.GetDeckSize();
+        return 1;
+      }
+    });
+
+    cases.add(new Case("GameSystem.DoMove + UndoMove") {
+      final GameSystem game = new GameSystem(11L);
+      final int[] moves = new int[GameSystem.MAX_MOVES];
+      int count;
+      {
+        game.SetMetrics(null);
+        game.InitializeGame("Player 1", "Player 2");
+        count = game.GenerateMoves(moves);
+      }
+
+      int Run() {
+        for (int i = 0; i < count; i++) {
+          game.DoMove(moves[i]);
+          game.UndoMove();
+        }
+        sink += game.GetCurrentSuitIndex();
+        return count;
+      }
+    });
+
+    cases.add(new Case("EndgameSolver.Solve (late game, empty TT)") {
+      final EndgameSolver solver = new EndgameSolver(12);
+      final GameSystem game = new GameSystem(7L);
+      {
+        RandomStrategy strategy = new RandomStrategy(7L);
+        do { // Play random games until the deck is nearly empty
+          game.InitializeGame("Player 1", "Player 2");
+          while (!game.IsGameOver() && game.GetDeckSize() > 4) {
+            Player player = game.GetCurrentPlayer();
+            Card drawn = null;
+            while (!game.HasPlayableCards(player) && (drawn = game.DrawCard()) != null) {
+              player.AddCard(drawn);
+            }
+            if (game.HasPlayableCards(player)) {
+              int index = strategy.SelectCard(game, player);
+              game.PlayCard(player, index, strategy.SelectSuit(game, player));
+            } else {
+              game.SetGameOver(true);
+            }
+            if (!game.IsGameOver()) {
+              game.SwitchTurn();
+            }
+          }
+        } while (game.IsGameOver());
+      }
+
+      void Reset() {
+        solver.Clear();
+      }
+
+      int Run() {
+        solver.Solve(game, Long.MAX_VALUE);
+        sink += solver.GetValue();
+        return 1;
+      }
+    });
+
+    cases.add(new Case("Displayer turn (null sink)") {
+      final GameSystem game = new GameSystem();
+      final Displayer displayer = new Displayer(RenderSink.NULL);
+      {
+        game.InitializeGame("Player 1", "Player 2");
+      }
+
+      int Run() {
+        Player[] players = game.GetPlayers();
+        for (int i = 0; i < 100; i++) {
+          displayer.DisplayScores(players[0], players[1]);
+          displayer.DisplayGameState(game.GetTopCard(), game.GetCurrentSuit());
+          displayer.DisplayPlayerHand(players[0]);
+          displayer.Flush();
+        }
+        return 100;
+      }
+    });
+
+    cases.add(new Case("Displayer turn (stream sink)") {
+      final GameSystem game = new GameSystem();
+      final Displayer displayer = new Displayer(new StreamSink(new OutputStream() {
+        public void write(int b) {
+        }
+
+        public void write(byte[] b, int off, int len) {
+          sink += len;
+        }
+      }));
+      {
+        game.InitializeGame("Player 1", "Player 2");
+      }
+
+      int Run() {
+        Player[] players = game.GetPlayers();
+        for (int i = 0; i < 100; i++) {
+          displayer.DisplayScores(players[0], players[1]);
+          displayer.DisplayGameState(game.GetTopCard(), game.GetCurrentSuit());
+          displayer.DisplayPlayerHand(players[0]);
+          displayer.Flush();
+        }
+        return 100;
+      }
+    });
+
+    cases.add(new Case("Player.GetHand") {
+      final GameSystem game = new GameSystem();
+      final Player player;
+      {
+        game.InitializeGame("Player 1", "Player 2");
+        player = game.GetPlayers()[0];
+      }
+
+      int Run() {
+        long sum = 0;
+        for (int i = 0; i < 1000; i++) {
+          sum += player.GetHand().length;
+        }
+        sink += sum;
+        return 1000;
+      }
+    });
+
+    cases.add(new Case("Player.GetCard") {
+      final GameSystem game = new GameSystem();
+      final Player player;
+      {
+        game.InitializeGame("Player 1", "Player 2");
+        player = game.GetPlayers()[0];
+      }
+
+      int Run() {
+        long sum = 0;
+        for (int i = 0; i < 1000; i++) {
+          sum += player.GetCard(i % 7).GetRank();
+        }
+        sink += sum;
+        return 1000;
+      }
+    });
+
+    cases.add(new Case("Player.GetHandPoints") {
+      final GameSystem game = new GameSystem();
+      final Player player;
+      {
+        game.InitializeGame("Player 1", "Player 2");
+        player = game.GetPlayers()[0];
+      }
+
+      int Run() {
+        long sum = 0;
+        for (int i = 0; i < 1000; i++) {
+          sum += player.GetHandPoints();
+        }
+        sink += sum;
+        return 1000;
+      }
+    });
+
+    cases.add(new Case("Player.PlayCard (index 0 of 20)") {
+      final GameSystem game = new GameSystem();
+      final Card[] cards = new Card[20];
+      Player player;
+      {
+        game.InitializeGame("Player 1", "Player 2");
+        for (int i = 0; i < cards.length; i++) {
+          cards[i] = game.DrawCard();
+        }
+      }
+
+      void Reset() {
+        player = new Player("Player");
+        for (int i = 0; i < cards.length; i++) {
+          player.AddCard(cards[i]);
+        }
+      }
+
+      int Run() {
+        long sum = 0;
+        for (int i = 0; i < cards.length; i++) {
+          sum += player.PlayCard(0).GetRank();
+        }
+        sink += sum;
+        return cards.length;
+      }
+    });
+
+    cases.add(new Case("GameRunner.PlayGame (Greedy vs Random)") {
+      final GameRunner runner = new GameRunner(new GreedyStrategy(), new RandomStrategy(42));
+
+      int Run() {
+        sink += runner.PlayGame();
+        return 1;
+      }
+    });
+
+    cases.add(new Case("GameRunner.PlayGame (Greedy vs Random, no metrics)") {
+      final GameRunner runner = new GameRunner(new GreedyStrategy(), new RandomStrategy(42));
+      {
+        runner.GetGame().SetMetrics(null);
+      }
+
+      int Run() {
+        sink += runner.PlayGame();
+        return 1;
+      }
+    });
+
+    cases.add(new Case("GameRunner.PlayGame (Greedy vs Random, views published)") {
+      final GameRunner runner = new GameRunner(new GreedyStrategy(), new RandomStrategy(42));
+      {
+        runner.GetGame().SetMetrics(null);
+        runner.GetGame().SetViewPublishing(true);
+      }
+
+      int Run() {
+        sink += runner.PlayGame();
+        return 1;
+      }
+    });
+
+    cases.add(new Case("GameRunner.PlayGame (Greedy vs Random, house rules)") {
+      final GameRunner runner = new GameRunner(new GreedyStrategy(), new RandomStrategy(42));
+      {
+        runner.GetGame().SetRules(new RuleSet(RuleSet.ACE_REVERSES | RuleSet.QUEEN_SKIPS | RuleSet.TWO_DRAWS_TWO, 0, 0));
+      }
+
+      int Run() {
+        sink += runner.PlayGame();
+        return 1;
+      }
+    });
+
+    cases.add(new Case("GameRunner.PlayGame (6 players, 2 decks, Greedy)") {
+      final GameRunner runner = new GameRunner(new GameSystem(42L, 6, 2), new GreedyStrategy(), new GreedyStrategy(),
+          new GreedyStrategy(), new GreedyStrategy(), new GreedyStrategy(), new GreedyStrategy());
+
+      int Run() {
+        sink += runner.PlayGame();
+        return 1;
+      }
+    });
+
+    return cases;
+  }
+
+  /**
+   * Runs every benchmark case whose name contains the filter.
+   * @param args Optional name filter
+   */
+  public static void main(String[] args) {
+    String filter = args.length > 0 ? args[0] : "";
+    Calibrate();
+    System.out.printf("%-40s %12s %10s %12s %12s%n", "Benchmark", "ns/op", "error", "B/op", "alloc MB/s");
+    for (Case c : Cases()) {
+      if (c.name.contains(filter)) {
+        Measure(c);
+      }
+    }
+  }
+}
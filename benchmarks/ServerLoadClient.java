@@ -0,0 +1,129 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+
+/**
+ * Load generator for GameServer.
+ * Opens many connections, each playing SOLO games against the server's
+ * computer player by sending the first playable card, and reports how many
+ * tables are open and how many games finish per second.
+ * Usage: java ServerLoadClient [host] [port] [connections] [seconds]
+ */
+public class ServerLoadClient {
+  /**
+   * State of one simulated player.
+   */
+  static class Client {
+    final SocketChannel channel;
+    final ByteBuffer in = ByteBuffer.allocate(512);
+    final ByteBuffer out = ByteBuffer.allocate(64);
+    String top = "";
+    char suit;
+    String[] hand = new String[0];
+
+    Client(SocketChannel channel) {
+      this.channel = channel;
+    }
+
+    /**
+     * Sends a line, assuming the socket accepts it at once.
+     */
+    void Send(String line) throws IOException {
+      out.clear();
+      for (int i = 0; i < line.length(); i++) {
+        out.put((byte) line.charAt(i));
+      }
+      out.put((byte) '\n');
+      out.flip();
+      while (out.hasRemaining()) {
+        channel.write(out);
+      }
+    }
+  }
+
+  /**
+   * Picks the first card of the hand that can be played.
+   * @return The card's number (from 1), and " H" if it is an 8
+   */
+  private static String Choose(Client client) {
+    String topRank = client.top.substring(0, client.top.length() - 1);
+    for (int i = 0; i < client.hand.length; i++) {
+      String card = client.hand[i];
+      String rank = card.substring(0, card.length() - 1);
+      if (rank.equals("8")) {
+        return (i + 1) + " H";
+      }
+      if (rank.equals(topRank) || card.charAt(card.length() - 1) == client.suit) {
+        return String.valueOf(i + 1);
+      }
+    }
+    return "1"; // The server only asks when a card can be played
+  }
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    String host = args.length > 0 ? args[0] : "localhost";
+    int port = args.length > 1 ? Integer.parseInt(args[1]) : GameServer.DEFAULT_PORT;
+    int connections = args.length > 2 ? Integer.parseInt(args[2]) : 10000;
+    long seconds = args.length > 3 ? Long.parseLong(args[3]) : 30;
+
+    Selector selector = Selector.open();
+    for (int i = 0; i < connections; i++) {
+      SocketChannel channel = SocketChannel.open(new InetSocketAddress(host, port));
+      channel.configureBlocking(false);
+      Client client = new Client(channel);
+      channel.register(selector, SelectionKey.OP_READ, client);
+      client.Send("SOLO load" + i);
+    }
+    System.out.println(connections + " tables open");
+
+    long games = 0;
+    long start = System.nanoTime();
+    long end = start + seconds * 1000000000L;
+    while (System.nanoTime() < end) {
+      selector.select(100);
+      Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+      while (keys.hasNext()) {
+        SelectionKey key = keys.next();
+        keys.remove();
+        Client client = (Client) key.attachment();
+        if (client.channel.read(client.in) < 0) {
+          throw new IOException("Server closed a connection");
+        }
+        int lineStart = 0;
+        for (int i = 0; i < client.in.position(); i++) {
+          if (client.in.get(i) != '\n') {
+            continue;
+          }
+          byte[] bytes = new byte[i - lineStart];
+          for (int j = 0; j < bytes.length; j++) {
+            bytes[j] = client.in.get(lineStart + j);
+          }
+          lineStart = i + 1;
+          String line = new String(bytes, "US-ASCII");
+          if (line.startsWith("TOP ")) {
+            String[] parts = line.split(" ");
+            client.top = parts[1];
+            client.suit = parts[2].charAt(0);
+          } else if (line.startsWith("HAND")) {
+            client.hand = line.substring(4).trim().split(" ");
+          } else if (line.equals("TURN")) {
+            client.Send("PLAY " + Choose(client));
+          } else if (line.startsWith("GAMEOVER")) {
+            games++;
+            client.Send("SOLO");
+          } else if (line.startsWith("BYE") || line.startsWith("ERROR") || line.equals("INVALID")) {
+            throw new IOException("Unexpected reply: " + line);
+          }
+        }
+        client.in.limit(client.in.position()).position(lineStart);
+        client.in.compact();
+      }
+    }
+    double elapsed = (System.nanoTime() - start) / 1e9;
+    System.out.printf("Games finished: %d (%.0f games/sec across %d tables)%n", games, games / elapsed, connections);
+  }
+}
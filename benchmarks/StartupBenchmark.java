@@ -0,0 +1,84 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures how long a fresh JVM takes to make its first move.
+ * Launches each configuration as a new process many times and reports the
+ * median time from starting the process to reading its first line of
+ * output, and to the process exiting. BotLauncher prints its first move as
+ * its first line; the GameRunner baseline prints nothing until its game is
+ * over, so its first-move time is really its time to the end of the game.
+ * Usage: java StartupBenchmark classes-dir launcher-jar cds-archive [runs]
+ */
+public class StartupBenchmark {
+  private static final int WARMUP_RUNS = 3; // Fill the page cache before timing
+
+  /**
+   * Runs a command once.
+   * @return Nanoseconds to the first line of output and to exit
+   */
+  private static long[] Time(List<String> command) throws IOException, InterruptedException {
+    long start = System.nanoTime();
+    Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+    long firstLine;
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+      if (reader.readLine() == null) {
+        throw new IllegalStateException("No output from " + command);
+      }
+      firstLine = System.nanoTime() - start;
+      while (reader.readLine() != null) {
+        // Drain the rest so the process never blocks on a full pipe
+      }
+    }
+    if (process.waitFor() != 0) {
+      throw new IllegalStateException("Exit code " + process.exitValue() + " from " + command);
+    }
+    return new long[] { firstLine, System.nanoTime() - start };
+  }
+
+  /**
+   * Times a configuration and prints its medians.
+   */
+  private static void Measure(String name, List<String> command, int runs) throws IOException, InterruptedException {
+    for (int i = 0; i < WARMUP_RUNS; i++) {
+      Time(command);
+    }
+    long[] first = new long[runs];
+    long[] exit = new long[runs];
+    for (int i = 0; i < runs; i++) {
+      long[] times = Time(command);
+      first[i] = times[0];
+      exit[i] = times[1];
+    }
+    Arrays.sort(first);
+    Arrays.sort(exit);
+    System.out.printf("%-44s %12.1f %12.1f%n", name, first[runs / 2] / 1e6, exit[runs / 2] / 1e6);
+  }
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    String classes = args[0];
+    String jar = args[1];
+    String archive = args[2];
+    int runs = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+    String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+
+    System.out.printf("%-44s %12s %12s%n", "Configuration (median of " + runs + ")", "first ms", "exit ms");
+    Measure("GameRunner 1 game (baseline)", Arrays.asList(java, "-cp", classes, "GameRunner", "1", "42"), runs);
+    Measure("BotLauncher", Arrays.asList(java, "-cp", jar, "BotLauncher", "1", "42"), runs);
+    if (!new File(archive).isFile()) {
+      System.out.println("No CDS archive at " + archive + "; run mvn package to build it");
+      return;
+    }
+    List<String> launcher = new ArrayList<String>(Arrays.asList(java, "-XX:SharedArchiveFile=" + archive));
+    launcher.addAll(Arrays.asList("-cp", jar, "BotLauncher", "1", "42"));
+    Measure("BotLauncher + CDS", launcher, runs);
+    launcher.add(2, "-XX:TieredStopAtLevel=1"); // The flags bots.sh adds
+    launcher.add(3, "-XX:+UseSerialGC");
+    Measure("BotLauncher + CDS + C1 + Serial GC (bots.sh)", launcher, runs);
+  }
+}
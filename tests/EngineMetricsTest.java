@@ -0,0 +1,37 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that a Recorder adds up to the same totals as the turns it saw.
+ */
+class EngineMetricsTest {
+  @Test
+  void LargeDrawCountsOnceInTheMean() {
+    EngineMetrics metrics = new EngineMetrics();
+    EngineMetrics.Recorder recorder = metrics.NewRecorder();
+    recorder.Turn(1);
+    recorder.Turn(200); // Past the recorder's buckets, so recorded directly
+    recorder.Turn(0);
+    recorder.Flush();
+
+    assertEquals(201, metrics.getCardsDrawn());
+    assertEquals(3, metrics.getTurns());
+    assertEquals(201 / 3.0, metrics.getMeanCardsDrawnPerTurn(), 1e-9);
+    assertEquals(200, metrics.getMaxCardsDrawnPerTurn());
+  }
+
+  @Test
+  void LongGameCountsOnceInTheMean() {
+    EngineMetrics metrics = new EngineMetrics();
+    EngineMetrics.Recorder recorder = metrics.NewRecorder();
+    recorder.GameStart();
+    recorder.GameEnd(10, false);
+    recorder.GameStart();
+    recorder.GameEnd(5000, true); // Past the recorder's buckets
+    recorder.Flush();
+
+    assertEquals(2, metrics.getGamesFinished());
+    assertEquals(2505, metrics.getMeanTurnsPerGame(), 1e-9);
+  }
+}
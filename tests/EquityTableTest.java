@@ -0,0 +1,47 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks which deals an EquityTable answers for.
+ */
+class EquityTableTest {
+  @TempDir
+  Path dir;
+
+  /**
+   * Deals a two-player game under the given rules.
+   */
+  private static GameSystem Deal(RuleSet rules) {
+    GameSystem game = new GameSystem(11L);
+    game.SetMetrics(null);
+    game.SetRules(rules);
+    game.InitializeGame("Player 1", "Player 2");
+    return game;
+  }
+
+  @Test
+  void EstimatesStandardDeals() throws IOException {
+    try (EquityTable table = new EquityTable(dir.resolve("eq.bin"), 16, 16, 20, 1L)) {
+      double equity = table.GetEquity(Deal(RuleSet.STANDARD), 0);
+      assertTrue(equity >= 0 && equity <= 1);
+      assertEquals(equity, table.GetEquity(Deal(new RuleSet(0, 7, 0)), 0)); // Same deal, same rules spelled out
+      assertEquals(1, table.GetSimulations());
+    }
+  }
+
+  @Test
+  void RefusesHouseRuleDeals() throws IOException {
+    try (EquityTable table = new EquityTable(dir.resolve("eq.bin"), 16, 16, 20, 1L)) {
+      assertThrows(IllegalArgumentException.class, () -> table.GetEquity(Deal(new RuleSet(RuleSet.TWO_DRAWS_TWO, 0, 0)), 0));
+      assertThrows(IllegalArgumentException.class, () -> table.GetEquity(Deal(new RuleSet(0, 5, 0)), 0));
+      assertEquals(0, table.GetSimulations());
+    }
+  }
+}
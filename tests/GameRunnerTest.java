@@ -0,0 +1,33 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that games which never end on their own are stopped.
+ */
+class GameRunnerTest {
+  private static final long CYCLING_DEAL = TournamentRunner.MixSeed(7, 44373); // Greedy against Greedy never ends
+
+  @Test
+  void StopsACyclingGameAtTheDefaultLimit() {
+    GameSystem game = new GameSystem(1L);
+    game.SetMetrics(null);
+    GameRunner runner = new GameRunner(game, new GreedyStrategy(), new GreedyStrategy());
+
+    assertEquals(-1, runner.PlayGame(CYCLING_DEAL));
+    assertEquals(GameRunner.DEFAULT_TURN_LIMIT, runner.GetLastGameTurns());
+    assertEquals(1, runner.GetStalemates());
+  }
+
+  @Test
+  void StopsACyclingGameAtASetLimit() {
+    GameSystem game = new GameSystem(1L);
+    game.SetMetrics(null);
+    GameRunner runner = new GameRunner(game, new GreedyStrategy(), new GreedyStrategy());
+    runner.SetTurnLimit(500);
+
+    assertEquals(-1, runner.PlayGame(CYCLING_DEAL));
+    assertEquals(500, runner.GetLastGameTurns());
+    assertEquals(1, runner.GetStalemates());
+  }
+}
@@ -0,0 +1,194 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that DoMove() and UndoMove() take a game exactly back where it was,
+ * and that snapshots read back into the same state they were written from.
+ * Journal replay is checked by JournalTest.
+ */
+class GameSystemTest {
+  private static final RuleSet HOUSE_RULES =
+      new RuleSet(RuleSet.ACE_REVERSES | RuleSet.QUEEN_SKIPS | RuleSet.TWO_DRAWS_TWO, 0, 0);
+
+  /**
+   * Creates a game system and deals its first game.
+   */
+  private static GameSystem NewGame(long seed, int players, int decks, RuleSet rules) {
+    GameSystem game = new GameSystem(seed, players, decks);
+    game.SetMetrics(null);
+    if (rules != null) {
+      game.SetRules(rules);
+    }
+    String[] names = new String[players];
+    for (int i = 0; i < players; i++) {
+      names[i] = "Player " + (i + 1);
+    }
+    game.InitializeGame(names);
+    return game;
+  }
+
+  /**
+   * Returns a game's snapshot bytes followed by the counters a snapshot
+   * leaves out: reshuffles and turns this game.
+   */
+  private static byte[] State(GameSystem game) {
+    ByteBuffer buffer = ByteBuffer.allocate(game.GetSnapshotSize() + 8);
+    game.WriteSnapshot(buffer);
+    buffer.putInt(game.GetReshuffleCount()).putInt(game.GetView().GetTurn());
+    return buffer.array();
+  }
+
+  /**
+   * Picks a random legal move, drawing often so long lines reshuffle the deck.
+   */
+  private static int PickMove(GameSystem game, SplittableRandom random, int[] moves) {
+    int count = game.GenerateMoves(moves);
+    return random.nextInt(3) == 0 ? GameSystem.DRAW_MOVE : moves[random.nextInt(count)];
+  }
+
+  /**
+   * Walks random lines of play with DoMove(), then takes every move back
+   * and compares the state before each move byte for byte.
+   * @return Reshuffles summed over the lines, counted at their deepest points
+   */
+  private static int AssertUndoesExactly(long seed, int players, int decks, RuleSet rules) {
+    SplittableRandom random = new SplittableRandom(seed);
+    int[] moves = new int[GameSystem.MAX_MOVES];
+    int reshuffles = 0;
+    for (int line = 0; line < 20; line++) {
+      GameSystem game = NewGame(seed + line, players, decks, rules);
+      game.SetViewPublishing(true);
+      List<byte[]> before = new ArrayList<byte[]>();
+      while (!game.IsGameOver() && before.size() < 400) {
+        before.add(State(game));
+        game.DoMove(PickMove(game, random, moves));
+      }
+      reshuffles += game.GetReshuffleCount();
+      assertEquals(before.size(), game.GetUndoCount());
+      for (int i = before.size() - 1; i >= 0; i--) {
+        game.UndoMove();
+        assertArrayEquals(before.get(i), State(game), "line " + line + ", move " + i);
+      }
+      assertEquals(0, game.GetUndoCount());
+    }
+    return reshuffles;
+  }
+
+  @Test
+  void UndoesTwoPlayerGamesExactly() {
+    assertTrue(AssertUndoesExactly(1L, 2, 1, null) > 0, "no line reshuffled the deck");
+  }
+
+  @Test
+  void UndoesHouseRuleGamesWithMorePlayersAndDecksExactly() {
+    assertTrue(AssertUndoesExactly(2L, 4, 2, HOUSE_RULES) > 0, "no line reshuffled the deck");
+    AssertUndoesExactly(3L, 3, 1, HOUSE_RULES);
+  }
+
+  @Test
+  void UndoesSearchBranchesExactly() {
+    SplittableRandom random = new SplittableRandom(4L);
+    int[] moves = new int[GameSystem.MAX_MOVES];
+    GameSystem game = NewGame(4L, 2, 1, HOUSE_RULES);
+    game.SetViewPublishing(true);
+    for (int i = 0; i < 10 && !game.IsGameOver(); i++) {
+      game.DoMove(PickMove(game, random, moves));
+    }
+    byte[] root = State(game);
+    int depth = game.GetUndoCount();
+    for (int branch = 0; branch < 200; branch++) {
+      int made = 0;
+      for (int ply = random.nextInt(1, 30); ply > 0 && !game.IsGameOver(); ply--) {
+        game.DoMove(PickMove(game, random, moves));
+        made++;
+      }
+      for (; made > 0; made--) {
+        game.UndoMove();
+      }
+      assertArrayEquals(root, State(game), "branch " + branch);
+      assertEquals(depth, game.GetUndoCount());
+    }
+  }
+
+  /**
+   * Reads a game's snapshot into another game system and checks that it
+   * writes the same bytes and shows the same table.
+   */
+  private static void AssertRoundTrips(GameSystem game, GameSystem copy, String where) {
+    byte[] bytes = JournalTest.Snapshot(game);
+    copy.ReadSnapshot(ByteBuffer.wrap(bytes));
+    assertArrayEquals(bytes, JournalTest.Snapshot(copy), where);
+    assertEquals(game.GetCurrentPlayerIndex(), copy.GetCurrentPlayerIndex(), where);
+    assertEquals(game.GetNextPlayerIndex(), copy.GetNextPlayerIndex(), where);
+    assertEquals(game.GetTopCard(), copy.GetTopCard(), where);
+    assertEquals(game.GetDeckSize(), copy.GetDeckSize(), where);
+  }
+
+  /**
+   * Plays random lines and checks before every move, and between playing a
+   * card and passing the turn while its effect is pending, that a snapshot
+   * reads back into a fresh game system that plays on the same way.
+   */
+  private static void AssertSnapshotsRoundTrip(long seed, int players, int decks, RuleSet rules) {
+    SplittableRandom random = new SplittableRandom(seed);
+    int[] moves = new int[GameSystem.MAX_MOVES];
+    GameSystem copy = new GameSystem(0L, players, decks);
+    copy.SetMetrics(null);
+    if (rules != null) {
+      copy.SetRules(rules);
+    }
+    for (int line = 0; line < 10; line++) {
+      GameSystem game = NewGame(seed + line, players, decks, rules);
+      for (int ply = 0; !game.IsGameOver() && ply < 300; ply++) {
+        String where = "line " + line + ", move " + ply;
+        AssertRoundTrips(game, copy, where);
+
+        // The same move from the same seed leaves both in the same state
+        int move = PickMove(game, random, moves);
+        long moveSeed = random.nextLong();
+        game.SetSeed(moveSeed);
+        copy.SetSeed(moveSeed);
+        game.PlayMove(move);
+        copy.PlayMove(move);
+        if (move != GameSystem.DRAW_MOVE && !game.IsGameOver()) {
+          AssertRoundTrips(game, copy, where + " before passing the turn");
+          game.SwitchTurn();
+          copy.SwitchTurn();
+        }
+        assertArrayEquals(JournalTest.Snapshot(game), JournalTest.Snapshot(copy), where + " after playing it");
+      }
+    }
+  }
+
+  @Test
+  void SnapshotsOfTwoPlayerGamesRoundTrip() {
+    AssertSnapshotsRoundTrip(5L, 2, 1, null);
+  }
+
+  @Test
+  void SnapshotsOfHouseRuleGamesWithMorePlayersAndDecksRoundTrip() {
+    AssertSnapshotsRoundTrip(6L, 4, 2, HOUSE_RULES);
+    AssertSnapshotsRoundTrip(7L, 3, 1, HOUSE_RULES);
+  }
+
+  @Test
+  void SnapshotOfAFinishedGameRoundTrips() {
+    GameSystem game = NewGame(8L, 2, 1, null);
+    GameRunner runner = new GameRunner(game, new GreedyStrategy(), new RandomStrategy(8));
+    runner.ContinueGame();
+    byte[] bytes = JournalTest.Snapshot(game);
+    GameSystem copy = new GameSystem(0L);
+    copy.ReadSnapshot(ByteBuffer.wrap(bytes));
+    assertArrayEquals(bytes, JournalTest.Snapshot(copy));
+    assertTrue(copy.IsGameOver());
+    assertEquals(game.GetWinnerIndex(), copy.GetWinnerIndex());
+  }
+}
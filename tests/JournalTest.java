@@ -0,0 +1,102 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Records games to a MoveJournal and checks that JournalReplayer rebuilds
+ * every one of them exactly.
+ */
+class JournalTest {
+  @TempDir
+  Path dir;
+
+  /**
+   * Returns a game's full state as snapshot bytes.
+   */
+  static byte[] Snapshot(GameSystem game) {
+    ByteBuffer buffer = ByteBuffer.allocate(game.GetSnapshotSize());
+    game.WriteSnapshot(buffer);
+    return Arrays.copyOf(buffer.array(), buffer.position());
+  }
+
+  /**
+   * Plays games into a journal, then replays each one and compares its final state.
+   */
+  private void AssertReplays(GameSystem game, int games) throws IOException {
+    game.SetMetrics(null);
+    PlayerStrategy[] strategies = new PlayerStrategy[game.GetPlayerCount()];
+    for (int i = 0; i < strategies.length; i++) {
+      strategies[i] = i % 2 == 0 ? new GreedyStrategy() : new RandomStrategy(i);
+    }
+    GameRunner runner = new GameRunner(game, strategies);
+    List<byte[]> finals = new ArrayList<byte[]>();
+    Path file = dir.resolve("games.journal");
+    try (MoveJournal journal = new MoveJournal(file)) {
+      game.SetJournal(journal);
+      for (int i = 0; i < games; i++) {
+        runner.PlayGame();
+        finals.add(Snapshot(game));
+      }
+      game.SetJournal(null);
+    }
+
+    try (JournalReplayer replayer = new JournalReplayer(file)) {
+      assertEquals(games, replayer.GetGameCount());
+      for (int i = 0; i < games; i++) {
+        assertArrayEquals(finals.get(i), Snapshot(replayer.Replay(i)), "game " + i);
+      }
+    }
+  }
+
+  @Test
+  void ReplaysSeededGames() throws IOException {
+    AssertReplays(new GameSystem(42L), 50);
+  }
+
+  @Test
+  void ReplaysGamesFromAnInjectedRandomSource() throws IOException {
+    AssertReplays(new GameSystem(new Xoroshiro128PlusPlus(12345)), 50);
+  }
+
+  @Test
+  void ReplaysGamesFromASplittableRandomSource() throws IOException {
+    AssertReplays(new GameSystem(new SplittableRandomSource(12345), 3, 1), 50);
+  }
+
+  @Test
+  void RejectsARandomSourceItCannotReplay() throws IOException {
+    RandomSource custom = new RandomSource() {
+      public void SetSeed(long seed) {
+      }
+
+      public long NextLong() {
+        return 4;
+      }
+
+      public int NextInt(int bound) {
+        return 0;
+      }
+    };
+    GameSystem game = new GameSystem(custom);
+    try (MoveJournal journal = new MoveJournal(dir.resolve("games.journal"))) {
+      assertThrows(IllegalStateException.class, () -> game.SetJournal(journal));
+    }
+  }
+
+  @Test
+  void ReplaysHouseRuleGamesWithMorePlayersAndDecks() throws IOException {
+    GameSystem game = new GameSystem(7L, 4, 2);
+    game.SetRules(new RuleSet(RuleSet.ACE_REVERSES | RuleSet.QUEEN_SKIPS | RuleSet.TWO_DRAWS_TWO, 0, 0));
+    AssertReplays(game, 30);
+  }
+}
@@ -0,0 +1,23 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that a league of deterministic strategies always finishes.
+ */
+class LeagueRunnerTest {
+  @Test
+  void FinishesWhenTwoDeterministicStrategiesCycle() {
+    LeagueRunner league = new LeagueRunner(2);
+    league.Register("Greedy A", seed -> new GreedyStrategy());
+    league.Register("Greedy B", seed -> new GreedyStrategy());
+    league.SetMatchGames(100); // Deal 48 of seed 102's first match never ends without a turn limit
+
+    assertEquals(1, (int) assertTimeoutPreemptively(Duration.ofSeconds(60), () -> league.Run(0, 102)));
+    assertEquals(100, league.GetGames(0));
+    assertEquals(100, league.GetGames(1));
+  }
+}
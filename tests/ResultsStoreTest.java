@@ -0,0 +1,55 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks that a ResultsStore keeps only committed games.
+ */
+class ResultsStoreTest {
+  @TempDir
+  Path dir;
+
+  @Test
+  void FailedRunLeavesTheStoreAsItWas() throws IOException {
+    double winRate;
+    try (ResultsStore store = new ResultsStore(dir, 2)) {
+      TournamentRunner tournament = new TournamentRunner(s -> new GreedyStrategy(), s -> new RandomStrategy(s), 2);
+      tournament.SetResultsStore(store);
+      tournament.Run(300, 1L);
+      winRate = store.WinRate(store.SelectAll(), 0);
+
+      PlayerStrategy failing = new PlayerStrategy() {
+        public int SelectCard(GameSystem game, Player player) {
+          throw new IllegalStateException("Strategy failed");
+        }
+
+        public int SelectSuit(GameSystem game, Player player) {
+          throw new IllegalStateException("Strategy failed");
+        }
+      };
+      TournamentRunner broken = new TournamentRunner(s -> new GreedyStrategy(), s -> failing, 2);
+      broken.SetResultsStore(store);
+      assertThrows(IllegalStateException.class, () -> broken.Run(5000, 2L));
+    }
+
+    try (ResultsStore store = new ResultsStore(dir, 2)) {
+      assertEquals(300, store.GetRowCount());
+      assertEquals(winRate, store.WinRate(store.SelectAll(), 0));
+    }
+  }
+
+  @Test
+  void CloseDropsRowsThatWereNeverCommitted() throws IOException {
+    try (ResultsStore store = new ResultsStore(dir, 2)) {
+      store.Reserve(1000);
+    }
+    try (ResultsStore store = new ResultsStore(dir, 2)) {
+      assertEquals(0, store.GetRowCount());
+    }
+  }
+}
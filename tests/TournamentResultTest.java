@@ -0,0 +1,38 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that a TournamentResult counts every seat of games with more than
+ * two players.
+ */
+class TournamentResultTest {
+  @Test
+  void SumsEveryLoserOfAFourPlayerGame() {
+    GameSystem game = new GameSystem(3L, 4, 1);
+    game.SetMetrics(null);
+    GameRunner runner = new GameRunner(game,
+        new GreedyStrategy(), new RandomStrategy(1), new GreedyStrategy(), new RandomStrategy(3));
+    TournamentResult result = new TournamentResult();
+    long expectedPoints = 0;
+    long[] expectedWins = new long[4];
+    for (int g = 0; g < 40; g++) {
+      int winner = runner.PlayGame();
+      for (int i = 0; winner >= 0 && i < 4; i++) {
+        if (i != winner) {
+          expectedPoints += game.GetPlayerPoints(i);
+        }
+      }
+      if (winner >= 0) {
+        expectedWins[winner]++;
+      }
+      result.AddGame(game, runner.GetLastGameTurns());
+    }
+
+    long decided = result.GetGames() - result.GetStalemates();
+    assertEquals((double) expectedPoints / decided, result.GetAverageLoserPoints(), 1e-9);
+    for (int i = 0; i < 4; i++) {
+      assertEquals(expectedWins[i], result.GetWins(i), "seat " + i);
+    }
+  }
+}